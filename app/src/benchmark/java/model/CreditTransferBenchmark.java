@@ -0,0 +1,126 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Contention benchmark for credit transfers. Runs transfers from a growing
+ * number of threads in two setups and reports the transfers per second:
+ *
+ * <ul>
+ * <li>unrelated: every thread moves credits back and forth within its own
+ * pair of members, as in many sessions signing contracts for different
+ * members;</li>
+ * <li>contended: all threads move credits between the same few members, in
+ * random directions.</li>
+ * </ul>
+ *
+ * <p>After every run the total of all balances must be unchanged and no
+ * balance may be negative, otherwise the run is reported as failed. The
+ * members are registered in an in-memory register without a journal, so the
+ * numbers show the cost of the transfer itself and not of the disk.
+ *
+ * <p>Usage: CreditTransferBenchmark [transfers per thread] [max threads], by
+ * default 1000000 and twice the number of processors.
+ */
+public class CreditTransferBenchmark {
+  private static final int CONTENDED_MEMBERS = 4;
+  private static final int START_CREDITS = 1000;
+  private static final int MAX_TRANSFER = 50;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args transfers per thread and the maximum number of threads, both
+   *             optional.
+   * @throws InterruptedException if interrupted while waiting for the threads.
+   */
+  public static void main(String[] args) throws InterruptedException {
+    int transfers = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 2 * Runtime.getRuntime().availableProcessors();
+    System.out.println(Runtime.getRuntime().availableProcessors() + " processors, " + transfers
+        + " transfers per thread.");
+    run("unrelated", 1, transfers); // Warm up
+    for (int threads = 1; threads <= maxThreads; threads *= 2) {
+      run("unrelated", threads, transfers);
+      run("contended", threads, transfers);
+    }
+  }
+
+  /*
+   * Runs one setup with a number of threads and prints the result.
+   */
+  private static void run(String setup, int threads, int transfers) throws InterruptedException {
+    boolean contended = setup.equals("contended");
+    UserRegister register = new UserRegister();
+    List<Member> members = new ArrayList<>();
+    int memberCount = contended ? CONTENDED_MEMBERS : 2 * threads;
+    for (int i = 0; i < memberCount; i++) {
+      Member member = new Member("bench" + i, "password", "bench" + i + "@example.com", String.valueOf(i));
+      register.addIuser(member);
+      member.addCredits(START_CREDITS);
+      members.add(member);
+    }
+
+    CountDownLatch start = new CountDownLatch(1);
+    long[] declined = new long[threads];
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      int thread = t;
+      Thread worker = new Thread(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        awaitQuietly(start);
+        for (int i = 0; i < transfers; i++) {
+          Member from;
+          Member to;
+          if (contended) {
+            from = members.get(random.nextInt(CONTENDED_MEMBERS));
+            to = members.get(random.nextInt(CONTENDED_MEMBERS));
+          } else {
+            from = members.get(2 * thread + (i & 1));
+            to = members.get(2 * thread + 1 - (i & 1));
+          }
+          if (!from.transferCredits(to, 1 + random.nextInt(MAX_TRANSFER))) {
+            declined[thread]++;
+          }
+        }
+      });
+      worker.start();
+      workers.add(worker);
+    }
+
+    long startTime = System.nanoTime();
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    long elapsed = System.nanoTime() - startTime;
+
+    long total = 0;
+    boolean negative = false;
+    for (Member member : members) {
+      total += member.getCredits();
+      negative |= member.getCredits() < 0;
+    }
+    long declinedTotal = 0;
+    for (long count : declined) {
+      declinedTotal += count;
+    }
+    boolean ok = total == (long) memberCount * START_CREDITS && !negative;
+    System.out.printf("%-9s threads=%-3d %,12d transfers/s  declined=%-9d %s%n", setup, threads,
+        (long) threads * transfers * 1_000_000_000L / elapsed, declinedTotal, ok ? "ok" : "FAILED: credits not kept");
+  }
+
+  /*
+   * Waits for the start signal, keeping the interrupt status.
+   */
+  private static void awaitQuietly(CountDownLatch start) {
+    try {
+      start.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
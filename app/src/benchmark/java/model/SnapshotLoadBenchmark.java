@@ -0,0 +1,125 @@
+package model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark for loading a register from a snapshot, the first step of every
+ * startup. Saves snapshots of registers of a growing size, up to a number of
+ * members with a number of items each, and times loading each into an empty
+ * register. Reports the size of the snapshot, the load time and the time per
+ * item, which stays the same as the register grows if loading is linear.
+ *
+ * <p>Every tenth item has a contract with a random borrower. The names and
+ * descriptions are made of a few common words and a number, so the snapshot
+ * has about the size of a real one. Each size is loaded a few times with the
+ * fastest round kept, so that a garbage collection does not count as a slow
+ * load. The first search after a load builds the search index, which is timed
+ * apart.
+ *
+ * <p>Usage: SnapshotLoadBenchmark [members] [items per member], by default
+ * 10000 and 100, a million items.
+ */
+public class SnapshotLoadBenchmark {
+  private static final int ROUNDS = 3;
+  private static final int STEPS = 3; // Sizes loaded, each ten times smaller than the next
+  private static final int ITEMS_PER_CONTRACT = 10;
+  private static final String[] WORDS = {"drill", "saw", "ladder", "tent", "kayak", "bike", "camera", "lamp",
+      "speaker", "projector", "book", "ball", "guitar", "table", "grill", "stroller"};
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args the number of members and of items per member, both optional.
+   * @throws IOException if the snapshot cannot be written or read.
+   */
+  public static void main(String[] args) throws IOException {
+    int maxMembers = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+    int itemsPerMember = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+    Path file = Files.createTempFile("register", ".snapshot");
+    try {
+      System.out.printf("%-10s %-10s %-10s %10s %12s %12s%n", "members", "items", "MB", "load ms", "ns per item",
+          "search ms");
+      run(Math.max(1, maxMembers / 100), itemsPerMember, file); // Warm up
+      int members = maxMembers;
+      for (int step = 1; step < STEPS; step++) {
+        members = Math.max(1, members / 10);
+      }
+      for (int step = 0; step < STEPS; step++) {
+        print(members, itemsPerMember, file, run(members, itemsPerMember, file));
+        members *= 10;
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  /*
+   * Saves a snapshot of a register of the given size and loads it. Returns
+   * the fastest load and the first search after it, in nanoseconds.
+   */
+  private static long[] run(int members, int itemsPerMember, Path file) throws IOException {
+    RegisterSnapshot.write(fill(members, itemsPerMember), 0, file);
+    long[] nanos = {Long.MAX_VALUE, Long.MAX_VALUE};
+    for (int round = 0; round < ROUNDS; round++) {
+      UserRegister register = new UserRegister();
+      System.gc(); // Not while loading, the previous register is garbage
+      long startTime = System.nanoTime();
+      RegisterSnapshot.load(register, file);
+      long loaded = System.nanoTime();
+      if (register.searchItems(WORDS[0], 10).isEmpty()) {
+        throw new IllegalStateException("The loaded register finds no items");
+      }
+      nanos[0] = Math.min(nanos[0], loaded - startTime);
+      nanos[1] = Math.min(nanos[1], System.nanoTime() - loaded);
+    }
+    return nanos;
+  }
+
+  /*
+   * Registers members with items and contracts, in one batch without a
+   * journal.
+   */
+  private static UserRegister fill(int members, int itemsPerMember) {
+    Random random = new Random(members);
+    Member[] newMembers = new Member[members];
+    for (int i = 0; i < members; i++) {
+      newMembers[i] = new Member("bench" + i, "password", "bench" + i + "@example.com", String.valueOf(i));
+      for (int j = 0; j < itemsPerMember; j++) {
+        String word = WORDS[random.nextInt(WORDS.length)];
+        String description = "A good " + word + " for rent, " + WORDS[random.nextInt(WORDS.length)] + " included";
+        CategoryEnum category = CategoryEnum.values()[j % CategoryEnum.values().length];
+        newMembers[i].addItem(new Item(word + " " + j, 1 + random.nextInt(50), description, category));
+      }
+    }
+    UserRegister register = new UserRegister();
+    register.importMembersAndItems(Arrays.asList(newMembers), new HashMap<>(), LocalDate.now());
+
+    SimpleDate start = SimpleDate.ofEpochDay((int) LocalDate.now().toEpochDay());
+    List<Item> items = new ArrayList<>(register.getAllItems());
+    for (int i = 0; i < items.size(); i += ITEMS_PER_CONTRACT) {
+      Item item = items.get(i);
+      Member borrower = newMembers[random.nextInt(members)];
+      SimpleDate startDate = start.plusDays(random.nextInt(365));
+      item.addContract(new Contract(startDate, startDate.plusDays(random.nextInt(14)), item, item.getOwner(),
+          borrower));
+    }
+    return register;
+  }
+
+  /*
+   * Prints the times of one register size.
+   */
+  private static void print(int members, int itemsPerMember, Path file, long[] nanos) throws IOException {
+    long items = (long) members * itemsPerMember;
+    System.out.printf("%-10d %-10d %-10.1f %10.0f %12.0f %12.0f%n", members, items, Files.size(file) / 1e6,
+        nanos[0] / 1e6, (double) nanos[0] / items, nanos[1] / 1e6);
+  }
+}
@@ -0,0 +1,163 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Benchmark for looking up users in registers of a growing size, from 1000
+ * users up to a maximum, ten times more at every step. Reports the average
+ * time of a lookup by id, by username, by email address and by phone number,
+ * and how many times slower it is than in the smallest register. For
+ * comparison it also times finding a user by id by going through the list of
+ * all users, as the register did before it had an index.
+ *
+ * <p>The indexed lookups do the same work however many users are registered.
+ * Once the indexes outgrow the processor's cache every lookup waits for main
+ * memory, so they still get a few times slower towards a million users, while
+ * the list grows a thousand times slower.
+ *
+ * <p>The users are registered in one batch in an in-memory register without a
+ * journal, so the numbers show the cost of the lookup itself and not of the
+ * disk. Every lookup is of a random registered user, so that the lookups are
+ * not all served from the processor's cache, and each kind is timed a few
+ * times with the fastest round kept, so that a garbage collection does not
+ * count as a slow lookup.
+ *
+ * <p>Usage: UserLookupBenchmark [lookups per kind] [max users], by default
+ * 1000000 and 1000000.
+ */
+public class UserLookupBenchmark {
+  private static final int MIN_USERS = 1000;
+  private static final int ROUNDS = 3;
+  private static final int MIN_SCANS = 10;
+  private static final String[] KINDS = {"id", "username", "email", "phone"};
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args lookups per kind and the maximum number of users, both
+   *             optional.
+   */
+  public static void main(String[] args) {
+    int lookups = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    int maxUsers = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+    System.out.println(lookups + " lookups per kind, in nanoseconds per lookup.");
+    run(MIN_USERS, lookups); // Warm up
+    System.out.printf("%-10s %11s %11s %11s %11s %15s%n", "users", KINDS[0], KINDS[1], KINDS[2], KINDS[3],
+        "id without index");
+    double[] smallest = null;
+    for (int users = MIN_USERS; users <= maxUsers; users *= 10) {
+      double[] nanos = run(users, lookups);
+      if (smallest == null) {
+        smallest = nanos;
+      }
+      print(users, nanos, smallest);
+    }
+  }
+
+  /*
+   * Registers a number of users and times every kind of lookup. Returns the
+   * average times in nanoseconds, by kind and then of the scan.
+   */
+  private static double[] run(int users, int lookups) {
+    UserRegister register = new UserRegister();
+    Member[] members = new Member[users];
+    for (int i = 0; i < users; i++) {
+      members[i] = new Member("bench" + i, "password", "bench" + i + "@example.com", String.valueOf(i));
+    }
+    register.importMembersAndItems(Arrays.asList(members), new HashMap<>(), LocalDate.now());
+
+    double[] nanos = new double[KINDS.length + 1];
+    for (int kind = 0; kind < KINDS.length; kind++) {
+      nanos[kind] = Double.MAX_VALUE;
+      for (int round = 0; round < ROUNDS; round++) {
+        nanos[kind] = Math.min(nanos[kind], time(register, members, kind, lookups));
+      }
+    }
+    // A scan costs as much as a lookup per user, so fewer are timed
+    nanos[KINDS.length] = timeScan(register.getListOfAllUsers(), members, Math.max(MIN_SCANS, lookups / users));
+    return nanos;
+  }
+
+  /*
+   * Prints the times of one register size next to how many times slower they
+   * are than in the smallest register.
+   */
+  private static void print(int users, double[] nanos, double[] smallest) {
+    StringBuilder line = new StringBuilder(String.format("%-10d", users));
+    for (int kind = 0; kind < KINDS.length; kind++) {
+      line.append(String.format(" %5.0f %4.1fx", nanos[kind], nanos[kind] / smallest[kind]));
+    }
+    line.append(String.format(" %9.0f %4.0fx", nanos[KINDS.length], nanos[KINDS.length] / smallest[KINDS.length]));
+    System.out.println(line);
+  }
+
+  /*
+   * Times one kind of lookup of random members and returns the average time
+   * in nanoseconds. Fails if a member is not found.
+   */
+  private static double time(UserRegister register, Member[] members, int kind, int lookups) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    String[] keys = new String[lookups]; // Picked before timing, as building strings costs more than a lookup
+    for (int i = 0; i < lookups; i++) {
+      Member member = members[random.nextInt(members.length)];
+      keys[i] = kind == 0 ? member.getId() : kind == 1 ? member.getUsername()
+          : kind == 2 ? member.getEmail() : member.getPhoneNumber();
+    }
+
+    int found = 0;
+    long startTime = System.nanoTime();
+    for (String key : keys) {
+      boolean hit;
+      switch (kind) {
+        case 0:
+          hit = register.getIuserById(key) != null;
+          break;
+        case 1:
+          hit = register.getIuserByUsername(key) != null;
+          break;
+        case 2:
+          hit = !register.isEmailUnique(key);
+          break;
+        default:
+          hit = !register.isPhoneNumberUnique(key);
+          break;
+      }
+      if (hit) {
+        found++;
+      }
+    }
+    long elapsed = System.nanoTime() - startTime;
+    if (found != lookups) {
+      throw new IllegalStateException((lookups - found) + " registered users were not found by " + KINDS[kind]);
+    }
+    return (double) elapsed / lookups;
+  }
+
+  /*
+   * Times finding random members by id in the list of all users and returns
+   * the average time in nanoseconds.
+   */
+  private static double timeScan(List<Iuser> users, Member[] members, int scans) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int found = 0;
+    long startTime = System.nanoTime();
+    for (int i = 0; i < scans; i++) {
+      String id = members[random.nextInt(members.length)].getId();
+      for (Iuser iuser : users) {
+        if (iuser.getId().equals(id)) {
+          found++;
+          break;
+        }
+      }
+    }
+    long elapsed = System.nanoTime() - startTime;
+    if (found != scans) {
+      throw new IllegalStateException((scans - found) + " registered users were not found in the list");
+    }
+    return (double) elapsed / scans;
+  }
+}
@@ -1,7 +1,16 @@
 package controller;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
+import model.BulkImporter;
 import model.Contract;
+import model.ContractLedgerExporter;
+import model.ImportReport;
 import model.Item;
 import model.Iuser;
 import model.Member;
@@ -19,9 +28,11 @@ import view.ItemUi;
  * advancing the day count.
  */
 public class AdministratorController {
+  private static final int MAX_REJECTED_ROWS_SHOWN = 20;
   private GeneralUi ui = new GeneralUi();
   private UserRegister userRegister; // In-memory list of
   private AdministratorUi administratorUi = new AdministratorUi(); // UI for the administrator
+  private Path fileDirectory; // The only directory files may be imported from or exported to, or null for any
 
   /**
    * Constructor for the AdministratorController class.
@@ -29,7 +40,20 @@ public class AdministratorController {
    * @param userRegister In-memory list of users
    */
   protected AdministratorController(UserRegister userRegister) {
+    this(userRegister, null);
+  }
+
+  /**
+   * Constructor for an administrator who may only import and export files in
+   * one directory, for example in a session over the network, so that no
+   * other file on the server can be read or overwritten.
+   *
+   * @param userRegister  In-memory list of users
+   * @param fileDirectory The directory, or null to allow any file.
+   */
+  protected AdministratorController(UserRegister userRegister, Path fileDirectory) {
     this.userRegister = userRegister;
+    this.fileDirectory = fileDirectory == null ? null : fileDirectory.toAbsolutePath().normalize();
   }
 
   /**
@@ -86,17 +110,14 @@ public class AdministratorController {
   }
 
   /**
-   * Retrieves all contracts and displays them in the administrator UI.
+   * Displays all contracts in the administrator UI. Contracts are read-only, so
+   * they are shown straight from the contract register without copying.
    */
   protected void handleListAllContracts() {
-    ArrayList<Contract> allContracts = userRegister.getAllContracts();
     ContractUi contractUi = new ContractUi();
 
-    for (Contract contract : allContracts) {
-      // Create a copy of the contract so that the original is not modified
-      Contract copyOfContract = new Contract(contract.getStartDate(), contract.getEndDate(), contract.getItem(),
-          contract.getLender(), contract.getBorrower());
-      contractUi.showContract(copyOfContract);
+    for (Contract contract : userRegister.getContractRegister().getAllContracts()) {
+      contractUi.showContract(contract);
     }
 
   }
@@ -113,4 +134,76 @@ public class AdministratorController {
     ui.showCurrentDate(timeTracker.getCurrentDate().toString());
   }
 
+  /**
+   * Asks for a file and writes all contracts to it as NDJSON, one contract per
+   * line, for reconciliation outside the system.
+   */
+  protected void handleExportContracts() {
+    administratorUi.showExportFileMessage();
+    String path = ui.getInput().trim();
+    try {
+      Path file = resolveFile(path);
+      if (file == null) {
+        administratorUi.showFileOutsideDirectoryMessage(fileDirectory.toString());
+        return;
+      }
+      if (fileDirectory != null) {
+        Files.createDirectories(fileDirectory);
+      }
+      long contracts = new ContractLedgerExporter(userRegister.getContractRegister()).export(file);
+      administratorUi.showExportSuccessMessage(contracts, path);
+    } catch (IOException | InvalidPathException e) {
+      administratorUi.showExportFailedMessage(path);
+    }
+  }
+
+  /**
+   * Asks for a CSV or JSON Lines file and imports the members and items in it,
+   * then shows how many were added, the rejected rows and the throughput.
+   */
+  protected void handleImportMembersAndItems() {
+    administratorUi.showImportFileMessage();
+    String path = ui.getInput().trim();
+    ImportReport report;
+    try {
+      Path file = resolveFile(path);
+      if (file == null) {
+        administratorUi.showFileOutsideDirectoryMessage(fileDirectory.toString());
+        return;
+      }
+      report = new BulkImporter(userRegister).importFile(file);
+    } catch (IOException | InvalidPathException e) {
+      administratorUi.showImportFailedMessage(path);
+      return;
+    }
+    List<String> rejectedRows = report.getRejectedRows();
+    for (int i = 0; i < rejectedRows.size() && i < MAX_REJECTED_ROWS_SHOWN; i++) {
+      administratorUi.showImportRejectedRow(rejectedRows.get(i));
+    }
+    if (rejectedRows.size() > MAX_REJECTED_ROWS_SHOWN) {
+      administratorUi.showMoreImportRejectedRows(rejectedRows.size() - MAX_REJECTED_ROWS_SHOWN);
+    }
+    administratorUi.showImportReport(report.getRows(), report.getMembersImported(), report.getItemsImported(),
+        rejectedRows.size(), report.getElapsedSeconds(), report.getRowsPerSecond());
+  }
+
+  /*
+   * Resolves a path entered by the administrator. If files are limited to a
+   * directory, a relative path is taken from it, and null is returned for a
+   * path leading out of it, also through a link.
+   */
+  private Path resolveFile(String path) throws IOException {
+    if (fileDirectory == null) {
+      return Paths.get(path);
+    }
+    Path file = fileDirectory.resolve(path).normalize();
+    if (!file.startsWith(fileDirectory) || file.equals(fileDirectory)) {
+      return null;
+    }
+    if (Files.exists(file) && !file.toRealPath().startsWith(fileDirectory.toRealPath())) {
+      return null;
+    }
+    return file;
+  }
+
 }
@@ -1,16 +1,38 @@
 package controller;
 
+import java.io.IOException;
+import java.net.InetAddress;
+
 /**
  * Responsible for staring the application.
  */
 public class App {
+  private static final int DEFAULT_SERVER_PORT = 4040;
+  private static final String BIND_ADDRESS = System.getProperty("stufflending.bindAddress");
+
   /**
-   * Application starting point.
+   * Application starting point. Runs one session on the console, or with
+   * --server [port] serves sessions over TCP until the process is stopped. The
+   * server listens on the loopback interface, or on the address set with the
+   * stufflending.bindAddress property, where 0.0.0.0 means all interfaces.
    *
    * @param args command line arguments.
+   * @throws IOException if the server port cannot be opened.
    */
-  public static void main(String[] args) {
+  public static void main(String[] args) throws IOException {
     StuffLendingSystem stuffLendingSystem = new StuffLendingSystem();
-    stuffLendingSystem.runSystem();
+    if (args.length > 0 && args[0].equals("--server")) {
+      int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SERVER_PORT;
+      stuffLendingSystem.openStorage();
+      InetAddress bindAddress = BIND_ADDRESS == null ? InetAddress.getLoopbackAddress()
+          : InetAddress.getByName(BIND_ADDRESS);
+      try (LendingServer server = new LendingServer(stuffLendingSystem, port, bindAddress)) {
+        server.serve();
+      } finally {
+        stuffLendingSystem.closeStorage();
+      }
+    } else {
+      stuffLendingSystem.runSystem();
+    }
   }
 }
@@ -1,9 +1,12 @@
 package controller;
 
 import java.util.ArrayList;
+import java.util.List;
+import model.BookingReport;
+import model.BookingRequest;
 import model.Contract;
+import model.ContractPage;
 import model.Item;
-import model.Iuser;
 import model.Member;
 import model.SimpleDate;
 import model.TimeTracker;
@@ -19,6 +22,10 @@ import view.GeneralUi;
  */
 public class ContractController {
 
+  private static final int CONTRACTS_PER_PAGE = 10;
+  private static final char MORE_CONTRACTS_CHOICE = 'm';
+  private static final char BATCH_DONE_CHOICE = 'd';
+
   private ContractUi contractUi = new ContractUi();
   private GeneralUi ui = new GeneralUi();
   private UserRegister userRegister;
@@ -52,9 +59,7 @@ public class ContractController {
       endDate = takeInAndValidateReturnDate(startDate);
     }
 
-    Member lender = userRegister.getOwnerByItemId(item.getId());
-
-    Contract createdContract = createContract(startDate, endDate, item, lender, borrower);
+    Contract createdContract = createContract(startDate, endDate, item, borrower);
     if (createdContract != null) {
       contractUi.showCreatedContractMessage();
       contractUi.showContract(createdContract);
@@ -62,26 +67,75 @@ public class ContractController {
   }
 
   /**
-   * Displays all contracts related to a given member.
+   * Collects several items with their dates and books them all at once, or
+   * none of them if any booking is not possible. Each item is checked as it
+   * is entered, the whole batch is checked again when it is booked.
    *
-   * @param member the member whose contracts will be displayed
+   * @param borrower    The member who is borrowing the items.
+   * @param currentDate The current date.
    */
-  protected void showCurrentMemberContracts(Member member) {
-    ArrayList<Item> memberItems = member.getOwnedItems();
-    ArrayList<Item> memberBorrowedItems = member.getBorrowedItems();
-    ArrayList<Contract> memberContracts = new ArrayList<>();
-    for (Item item : memberItems) {
-      memberContracts.addAll(item.getAllContracts());
-
+  protected void signContracts(Member borrower, SimpleDate currentDate) {
+    List<BookingRequest> requests = new ArrayList<>();
+    while (true) {
+      contractUi.showEnterBatchItemMessage(BATCH_DONE_CHOICE);
+      String input = ui.getInput();
+      if (input.equalsIgnoreCase(String.valueOf(BATCH_DONE_CHOICE))) {
+        break;
+      }
+      Item item = userRegister.getItemById(input);
+      if (item == null) {
+        contractUi.showItemNotFoundMessage();
+        continue;
+      }
+      SimpleDate startDate = takeInAndValidateStartDate(currentDate);
+      if (startDate == null) {
+        startDate = takeInAndValidateStartDate(currentDate);
+      }
+      SimpleDate endDate = startDate == null ? null : takeInAndValidateReturnDate(startDate);
+      if (startDate != null && endDate == null) {
+        endDate = takeInAndValidateReturnDate(startDate);
+      }
+      if (endDate != null) {
+        requests.add(new BookingRequest(item, startDate, endDate));
+        contractUi.showBookingAddedMessage(requests.size());
+      }
     }
-    for (Item item : memberBorrowedItems) {
-      memberContracts.addAll(item.getAllContracts());
+    if (requests.isEmpty()) {
+      return;
     }
 
-    for (Contract contract : memberContracts) {
-      contractUi.showContract(contract);
+    BookingReport report = userRegister.signContracts(borrower, requests);
+    if (report.isBooked()) {
+      contractUi.showBatchBookedMessage(report.getContracts().size(), report.getTotalCost());
+      for (Contract contract : report.getContracts()) {
+        contractUi.showContract(contract);
+      }
+    } else {
+      contractUi.showBatchRejectedMessage();
+      for (String rejectedBooking : report.getRejectedBookings()) {
+        contractUi.showRejectedBookingMessage(rejectedBooking);
+      }
     }
+  }
 
+  /**
+   * Displays the contracts in which a given member is the borrower or the lender,
+   * in date order, one page at a time.
+   *
+   * @param member the member whose contracts will be displayed
+   */
+  protected void showCurrentMemberContracts(Member member) {
+    ContractPage page = null;
+    do {
+      page = userRegister.getContractRegister().getMemberContracts(member.getKey(), page, CONTRACTS_PER_PAGE);
+      for (Contract contract : page.getContracts()) {
+        contractUi.showContract(contract);
+      }
+      if (!page.hasNextPage()) {
+        return;
+      }
+      contractUi.showMoreContractsMessage(MORE_CONTRACTS_CHOICE);
+    } while (ui.getInput().equalsIgnoreCase(String.valueOf(MORE_CONTRACTS_CHOICE)));
   }
 
   /**
@@ -94,41 +148,20 @@ public class ContractController {
    *
    * @param startDate the start date of the contract
    * @param endDate   the end date of the contract
-   * @param item      the item being borrowed
-   * @param lender    the member lending the item
+   * @param item      the item being borrowed, lent by its owner
    * @param borrower  the member borrowing the item
    * @return the newly created contract, or null if any validation fails
    */
-  private Contract createContract(SimpleDate startDate, SimpleDate endDate, Item item, Member lender, Member borrower) {
+  private Contract createContract(SimpleDate startDate, SimpleDate endDate, Item item, Member borrower) {
     // Validate if the item exists
-    boolean itemExists = false;
-    for (Item i : userRegister.getAllItems()) {
-      if (i.getId().equals(item.getId())) {
-        itemExists = true;
-        break;
-      }
-    }
-    if (!itemExists) {
+    Member lender = userRegister.getOwnerByItemId(item.getId());
+    if (lender == null) {
       contractUi.showItemNotFoundMessage();
       return null;
     }
 
     // Validate if member exists and has enough credits
-    boolean borrowerExists = false;
-    ArrayList<Member> allMembers = new ArrayList<>();
-    for (Iuser user : userRegister.getListOfAllUsers()) {
-      if (user.getRole().equals("Member")) {
-        allMembers.add((Member) user);
-      }
-    }
-
-    for (Member m : allMembers) {
-      if (m.getId().equals(borrower.getId())) {
-        borrowerExists = true;
-        break;
-      }
-    }
-    if (!borrowerExists) {
+    if (!(userRegister.getIuserByKey(borrower.getKey()) instanceof Member)) {
       contractUi.showMemberNotFoundMessage();
       return null;
     }
@@ -139,29 +172,22 @@ public class ContractController {
       return null;
     }
 
-    for (Contract contract : userRegister.getAllContracts()) {
-      if (contract.getItem().getId().equals(item.getId())) {
-        SimpleDate contractStartDate = contract.getStartDate();
-        SimpleDate contractEndDate = contract.getEndDate();
-
-        if (startDate.isInRange(contractStartDate, contractEndDate)
-            || endDate.isInRange(contractStartDate, contractEndDate)
-            || (startDate.isBefore(contractStartDate) && endDate.isAfter(contractEndDate))) {
-          contractUi.showTimeConflictMessage();
-          return null;
-        }
+    // Book the dates and pay the lender in one step, unless another session booked the dates, spent the credits,
+    // deleted the item or removed the lender meanwhile
+    Contract newContract = new Contract(startDate, endDate, item, lender, borrower);
+    if (!borrower.borrow(newContract)) {
+      if (userRegister.getOwnerByItemId(item.getId()) != lender) {
+        contractUi.showItemNotFoundMessage();
+      } else if (item.hasTimeConflict(startDate, endDate)) {
+        contractUi.showTimeConflictMessage();
+        contractUi.showNextFreeStartDateMessage(
+            item.findNextFreeStartDate(startDate, startDate.daysBetween(endDate)).toString());
+      } else {
+        contractUi.showNotEnoughCreditsMessage();
       }
+      return null;
     }
 
-    // If all validations pass, create a new contract
-    Contract newContract = new Contract(startDate, endDate, item, lender, borrower);
-    item.addContract(newContract);
-    borrower.addBorrowedItem(item);
-
-    // Deduct credits from the borrower's account
-    borrower.deductCredits(cost);
-    lender.addCredits(cost);
-
     return newContract;
   }
 
@@ -175,26 +201,11 @@ public class ContractController {
   }
 
   /**
-   * Checks the status of all contracts.
+   * Checks the status of the contracts starting or ending since the last check
+   * and updates the availability of their items.
    */
   protected void checkContractStatus() {
-    SimpleDate currentDate = new SimpleDate(timeTracker.getCurrentDay(), timeTracker.getCurrentMonth(),
-        timeTracker.getCurrentYear());
-
-    for (Contract contract : userRegister.getAllContracts()) {
-      if (isContractActiveOnDate(contract, currentDate)) {
-        contract.getItem().setisItemAvailable(false);
-      } else {
-        contract.getItem().setisItemAvailable(true);
-      }
-    }
-  }
-
-  /*
-   * Determines if a contract is active on a given date.
-   */
-  private boolean isContractActiveOnDate(Contract contract, SimpleDate currentDate) {
-    return !currentDate.isBefore(contract.getStartDate()) && !currentDate.isAfter(contract.getEndDate());
+    userRegister.getContractRegister().getAvailabilityScheduler().advanceTo(timeTracker.getCurrentEpochDay());
   }
 
   /**
@@ -220,7 +231,7 @@ public class ContractController {
       inputStartYear = takeInAndValidateDateYear();
     }
     SimpleDate startDate = new SimpleDate(inputStartDay, inputStartMonth, inputStartYear);
-    System.out.println(currentDate);
+    ui.showCurrentDate(currentDate.toString());
     if (startDate.isBefore(currentDate)) {
       contractUi.showStartDatePassedMessage();
       return null;
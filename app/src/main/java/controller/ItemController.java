@@ -17,6 +17,7 @@ import view.ItemUi;
  * Item classes.
  */
 public class ItemController {
+  private static final int MAX_SEARCH_RESULTS = 20;
   private ItemUi itemUi = new ItemUi();
   private GeneralUi ui = new GeneralUi();
   private Member currentUserMember;
@@ -292,7 +293,7 @@ public class ItemController {
   /**
    * Displays all available items to the user interface.
    */
-  private void handleListAllAvaliableItems() {
+  protected void handleListAllAvaliableItems() {
     ArrayList<Item> itemList = userRegister.getAllItems();
     for (Item item : itemList) {
       if (item.getAvaliability() == true) {
@@ -303,6 +304,50 @@ public class ItemController {
     }
   }
 
+  /**
+   * Displays the categories with the number of items in each, and lists the
+   * items in the category the user chooses.
+   */
+  protected void handleBrowseItemsByCategory() {
+    CategoryEnum[] categories = CategoryEnum.values();
+    itemUi.showBrowseCategoryMessage();
+    for (int i = 0; i < categories.length; i++) {
+      int numberOfItems = userRegister.getNumberOfItemsInCategory(categories[i]);
+      itemUi.showCategoryWithNumberOfItems(i + 1, categories[i], numberOfItems);
+    }
+    int input;
+    try {
+      input = Integer.parseInt(ui.getInput());
+    } catch (NumberFormatException e) {
+      input = -1;
+    }
+    if (input < 1 || input > categories.length) {
+      itemUi.showInvalidItemCategoryMessage();
+      return;
+    }
+    CategoryEnum category = categories[input - 1];
+    ArrayList<Item> itemList = userRegister.getItemsInCategory(category);
+    itemUi.showItemsInCategoryMessage(category, itemList.size());
+    for (Item item : itemList) {
+      itemUi.displayItem(item.getId(), item.getName(), item.getcostPerDay(), item.getDescription(), item.getCategory(),
+          item.getAvaliability());
+    }
+  }
+
+  /**
+   * Asks the user for words to search for and lists the items whose names and
+   * descriptions contain them, the best matches first.
+   */
+  protected void handleSearchItems() {
+    itemUi.showSearchItemsMessage();
+    ArrayList<Item> itemList = userRegister.searchItems(ui.getInput(), MAX_SEARCH_RESULTS);
+    itemUi.showSearchResultsMessage(itemList.size(), MAX_SEARCH_RESULTS);
+    for (Item item : itemList) {
+      itemUi.displayItem(item.getId(), item.getName(), item.getcostPerDay(), item.getDescription(), item.getCategory(),
+          item.getAvaliability());
+    }
+  }
+
   /**
    * Displays all available items and prompts the user to borrow an item.
    * Calls the handleListAllAvaliableItems method to display all available items.
@@ -320,12 +365,9 @@ public class ItemController {
    * @return the item to borrow if it exists, otherwise null.
    */
   protected Item validateBorrowItemInput() {
-    String itemIdInput = ui.getInput();
-    if (itemIdInput.equals("0")) {
-      System.exit(0);
-    }
-    if (userRegister.getItemById(itemIdInput) != null) {
-      Item itemToBorrow = userRegister.getItemById(itemIdInput);
+    String itemIdInput = ui.getInput(); // Entering 0 ends the session
+    Item itemToBorrow = userRegister.getItemById(itemIdInput);
+    if (itemToBorrow != null) {
       return itemToBorrow;
     } else {
       itemUi.showItemDoesNotExistMessage(itemIdInput);
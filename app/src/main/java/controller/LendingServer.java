@@ -0,0 +1,146 @@
+package controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import view.GeneralUi;
+import view.Terminal;
+
+/**
+ * Serves the menus to many users at once over TCP. Every connection gets its own
+ * session with its own terminal on its own thread, and all sessions share the
+ * register and the date of the system hosting them. A session ends when the
+ * user enters 0 or closes the connection.
+ *
+ * <p>By default the server only listens on the loopback interface, so only
+ * users on the same machine can connect. Sessions over the network can only
+ * import and export files in the exchange directory of the data directory.
+ *
+ * <p>On Java 21 and later every session runs on a virtual thread, so a session
+ * waiting for input does not hold an operating system thread and tens of
+ * thousands of sessions can be open at once. On older versions each session
+ * gets a platform thread.
+ */
+public class LendingServer implements Closeable {
+  private static final int CONNECTION_BACKLOG = 4096;
+
+  private final StuffLendingSystem host;
+  private final ServerSocket serverSocket;
+  private final ExecutorService sessions;
+  private final boolean virtualThreads;
+  private GeneralUi ui = new GeneralUi();
+
+  /**
+   * Constructs a server listening on a port of the loopback interface.
+   *
+   * @param host The system whose register and date the sessions share. Its
+   *             storage must be open.
+   * @param port The TCP port, or 0 for any free port.
+   * @throws IOException if the port cannot be opened.
+   */
+  public LendingServer(StuffLendingSystem host, int port) throws IOException {
+    this(host, port, InetAddress.getLoopbackAddress());
+  }
+
+  /**
+   * Constructs a server listening on a port of one address of this machine.
+   *
+   * @param host        The system whose register and date the sessions share.
+   *                    Its storage must be open.
+   * @param port        The TCP port, or 0 for any free port.
+   * @param bindAddress The address to listen on, or null for all addresses.
+   * @throws IOException if the port cannot be opened.
+   */
+  public LendingServer(StuffLendingSystem host, int port, InetAddress bindAddress) throws IOException {
+    this.host = host;
+    this.serverSocket = new ServerSocket(port, CONNECTION_BACKLOG, bindAddress);
+    ExecutorService virtualThreadExecutor = newVirtualThreadExecutor();
+    this.virtualThreads = virtualThreadExecutor != null;
+    this.sessions = virtualThreads ? virtualThreadExecutor : Executors.newCachedThreadPool();
+  }
+
+  /*
+   * Creates an executor starting a virtual thread per task, looked up by name
+   * so that the system still builds and runs on Java 17. Returns null if
+   * virtual threads are not available.
+   */
+  private static ExecutorService newVirtualThreadExecutor() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Gets the port the server listens on.
+   *
+   * @return The port.
+   */
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Accepts connections and starts a session for each until the server is
+   * closed.
+   *
+   * @throws IOException if accepting a connection fails for another reason
+   *                     than the server being closed.
+   */
+  public void serve() throws IOException {
+    ui.showServerStartedMessage(serverSocket.getInetAddress().getHostAddress(), getPort(), virtualThreads);
+    ui.flushOutput();
+    while (!serverSocket.isClosed()) {
+      Socket socket;
+      try {
+        socket = serverSocket.accept();
+      } catch (SocketException e) {
+        if (serverSocket.isClosed()) {
+          return; // Closed while waiting
+        }
+        throw e;
+      }
+      try {
+        sessions.execute(() -> runSession(socket));
+      } catch (RejectedExecutionException e) {
+        socket.close(); // The server is shutting down
+      }
+    }
+  }
+
+  /*
+   * Runs the menus for one connection on the current thread.
+   */
+  private void runSession(Socket socket) {
+    try (Socket connection = socket;
+        Terminal terminal = new Terminal(connection.getInputStream(), connection.getOutputStream())) {
+      connection.setTcpNoDelay(true); // Output is already sent a whole menu at a time
+      Terminal.bind(terminal);
+      new StuffLendingSystem(host).runSession();
+    } catch (IOException e) {
+      // The connection was lost, nothing to clean up beyond closing it
+    } finally {
+      Terminal.bind(null);
+    }
+  }
+
+  /**
+   * Stops accepting connections and interrupts the sessions that are open.
+   *
+   * @throws IOException if the server socket cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    sessions.shutdownNow();
+  }
+}
@@ -21,11 +21,11 @@ public class MemberController {
   /**
    * Deletes a member from the user register.
    *
-   * @param memberId     the ID of the member to be deleted
+   * @param memberKey    the ID of the member to be deleted
    * @param userRegister the user register containing the member to be deleted
    */
-  private void deleteMember(String memberId, UserRegister userRegister) {
-    userRegister.removeIuser(userRegister.getIuserById(memberId));
+  private void deleteMember(long memberKey, UserRegister userRegister) {
+    userRegister.removeIuser(userRegister.getIuserByKey(memberKey));
   }
 
   /**
@@ -49,16 +49,21 @@ public class MemberController {
   /**
    * This method handles the change of username for a given member.
    * It prompts the user to input a new username, validates it, and sets it as the
-   * new username for the member.
+   * new username for the member if it is not already taken.
    * It also displays success message after the username has been changed.
    *
-   * @param member The member whose username is to be changed.
+   * @param member       The member whose username is to be changed.
+   * @param userRegister The user register keeping track of taken usernames.
    */
-  protected void handleChangeUsername(Member member) {
+  protected void handleChangeUsername(Member member, UserRegister userRegister) {
     myProfileUi.showChangeUsernameMessage();
     String newUsername = takeInAndValidateUsernameInput();
-    member.setUsername(newUsername);
-    myProfileUi.showChangeUsernameSuccessMessage();
+
+    if (userRegister.changeUsername(member, newUsername)) {
+      myProfileUi.showChangeUsernameSuccessMessage();
+    } else {
+      myProfileUi.showUniqueUsernameError();
+    }
   }
 
   /**
@@ -90,8 +95,7 @@ public class MemberController {
     myProfileUi.showChangeEmailMessage();
     String newEmail = takeInAndValidateEmailInput();
 
-    if (userRegister.isEmailUnique(newEmail)) {
-      member.setEmail(newEmail);
+    if (userRegister.changeEmail(member, newEmail)) {
       myProfileUi.showChangeEmailSuccessMessage();
     } else {
       myProfileUi.showUniqueEmailError();
@@ -110,8 +114,7 @@ public class MemberController {
     myProfileUi.showChangePhoneNumberMessage();
     String newPhoneNumber = takeInAndValidatePhoneNumberInput();
 
-    if (userRegister.isPhoneNumberUnique(newPhoneNumber)) {
-      member.setPhoneNumber(newPhoneNumber);
+    if (userRegister.changePhoneNumber(member, newPhoneNumber)) {
       myProfileUi.showChangePhoneNumberSuccessMessage();
     } else {
       myProfileUi.showUniquePhoneError();
@@ -132,8 +135,8 @@ public class MemberController {
         throw new IllegalArgumentException("Username must be at least 3 characters long.");
       }
       return input;
-    } catch (Exception e) {
-      System.out.println(e.getMessage());
+    } catch (IllegalArgumentException e) {
+      ui.showMessage(e.getMessage());
       ui.tryAgainMessage();
     }
     return takeInAndValidateUsernameInput();
@@ -153,8 +156,8 @@ public class MemberController {
         throw new IllegalArgumentException("Password must be at least 8 characters long.");
       }
       return input;
-    } catch (Exception e) {
-      System.out.println(e.getMessage());
+    } catch (IllegalArgumentException e) {
+      ui.showMessage(e.getMessage());
       ui.tryAgainMessage();
     }
     return takeInAndValidatePasswordInput();
@@ -188,8 +191,8 @@ public class MemberController {
       } else {
         throw new IllegalArgumentException("Invalid email address format.");
       }
-    } catch (Exception e) {
-      System.out.println(e.getMessage());
+    } catch (IllegalArgumentException e) {
+      ui.showMessage(e.getMessage());
       ui.tryAgainMessage();
       return takeInAndValidateEmailInput();
     }
@@ -229,8 +232,8 @@ public class MemberController {
       } else {
         throw new IllegalArgumentException("Invalid phone number format.");
       }
-    } catch (Exception e) {
-      System.out.println(e.getMessage());
+    } catch (IllegalArgumentException e) {
+      ui.showMessage(e.getMessage());
       ui.tryAgainMessage();
       return takeInAndValidatePhoneNumberInput();
     }
@@ -249,7 +252,7 @@ public class MemberController {
     myProfileUi.showDeleteAccountMessage(yesChoice, noChoice);
     String input = ui.getInput();
     if (input.equalsIgnoreCase(String.valueOf(yesChoice))) {
-      deleteMember(member.getId(), userRegister);
+      deleteMember(member.getKey(), userRegister);
       myProfileUi.showDeleteAccountSuccessMessage();
     } else {
       myProfileUi.showDeleteAccountCancelledMessage();
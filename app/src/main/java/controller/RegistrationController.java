@@ -69,8 +69,8 @@ public class RegistrationController {
 
   /**
    * Takes in user input for registration username and validates it.
-   * If the input is less than 3 characters, an IllegalArgumentException is
-   * thrown.
+   * If the input is less than 3 characters or the username is already taken, an
+   * IllegalArgumentException is thrown.
    * If an exception is caught, an error message is printed and the user is
    * prompted to try again.
    *
@@ -84,6 +84,11 @@ public class RegistrationController {
       ui.tryAgainMessage();
       return "";
     }
+    if (!userRegister.isUsernameUnique(input)) {
+      registerUi.showRegistrationUsernameTakenMessage();
+      ui.tryAgainMessage();
+      return "";
+    }
     return input;
   }
 
@@ -0,0 +1,289 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.CategoryEnum;
+import model.Item;
+import model.Member;
+import model.SimpleDate;
+import model.TimeTracker;
+import model.UserRegister;
+import view.ScriptedTerminal;
+import view.Terminal;
+
+/**
+ * Load generator running scripted sessions inside this process, through the
+ * real menus and controllers, from many simulated users at once. Unlike
+ * SessionLoadTest it needs no server and no sockets, so it measures the system
+ * itself. Reports the operations per second and the latency percentiles of
+ * every kind of action.
+ *
+ * <p>Without a script file every session is generated: a new member registers,
+ * logs in, adds an item, borrows an item of one of the lenders registered
+ * before the run, logs out and quits. One session in ADMIN_SESSION_EVERY is
+ * the administrator advancing the day instead. With a script file (see
+ * SessionScript) its sessions are replayed in turn until the number of
+ * sessions is reached.
+ *
+ * <p>The register is saved in a new temporary directory unless
+ * stufflending.dataDir is set, in which case it must not hold a register yet.
+ *
+ * <p>Usage: SessionLoadGenerator [sessions] [users] [script file], by default
+ * 10000 sessions by 64 users with generated scripts.
+ */
+public class SessionLoadGenerator {
+  private static final int LENDERS = 100;
+  private static final int ITEMS_PER_LENDER = 10;
+  private static final int MAX_COST_PER_DAY = 20;
+  private static final int MAX_BOOKING_DAYS = 3;
+  private static final int BOOKING_WINDOW_DAYS = 60;
+  private static final int ADMIN_SESSION_EVERY = 500;
+
+  /*
+   * The latencies of one kind of action, in nanoseconds.
+   */
+  private static final class Samples {
+    private long[] values = new long[64];
+    private int size;
+
+    private void add(long value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, 2 * size);
+      }
+      values[size++] = value;
+    }
+
+    private void addAll(Samples other) {
+      for (int i = 0; i < other.size; i++) {
+        add(other.values[i]);
+      }
+    }
+
+    /*
+     * Gets a percentile, in microseconds. The samples must be sorted.
+     */
+    private long percentile(double percent) {
+      int rank = (int) Math.ceil(percent / 100 * size);
+      return values[Math.max(rank, 1) - 1] / 1000;
+    }
+  }
+
+  /**
+   * Runs the load generator.
+   *
+   * @param args number of sessions, number of users and a script file, all
+   *             optional.
+   * @throws IOException          if the script file cannot be read.
+   * @throws InterruptedException if interrupted while waiting for the users.
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+    int users = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+    if (System.getProperty("stufflending.dataDir") == null) {
+      // Keep the journal of the run away from the saved register
+      System.setProperty("stufflending.dataDir", Files.createTempDirectory("stufflending-load").toString());
+    }
+
+    StuffLendingSystem host = new StuffLendingSystem();
+    host.openStorage();
+    try {
+      List<SessionScript> scripts = args.length > 2 ? repeat(SessionScript.read(Paths.get(args[2])), sessions)
+          : generate(host.userRegister, sessions);
+      run(host, scripts, users);
+    } finally {
+      host.closeStorage();
+    }
+  }
+
+  /*
+   * Replays recorded scripts in turn until there is one per session.
+   */
+  private static List<SessionScript> repeat(List<SessionScript> recorded, int sessions) {
+    if (recorded.isEmpty()) {
+      throw new IllegalArgumentException("The script file holds no sessions");
+    }
+    List<SessionScript> scripts = new ArrayList<>(sessions);
+    for (int i = 0; i < sessions; i++) {
+      scripts.add(recorded.get(i % recorded.size()));
+    }
+    return scripts;
+  }
+
+  /*
+   * Registers the lenders and generates a script per session.
+   */
+  private static List<SessionScript> generate(UserRegister register, int sessions) {
+    List<String> itemIds = registerLenders(register);
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    // Bookings start after the last day the administrator sessions advance to, so they are never in the past
+    int firstBookingDay = new TimeTracker().getCurrentEpochDay() + sessions / ADMIN_SESSION_EVERY + 1;
+    List<SessionScript> scripts = new ArrayList<>(sessions);
+    for (int i = 0; i < sessions; i++) {
+      if (i % ADMIN_SESSION_EVERY == ADMIN_SESSION_EVERY - 1) {
+        scripts.add(administratorScript());
+      } else {
+        SimpleDate start = SimpleDate.ofEpochDay(firstBookingDay + random.nextInt(BOOKING_WINDOW_DAYS));
+        SimpleDate end = start.plusDays(random.nextInt(MAX_BOOKING_DAYS));
+        scripts.add(memberScript(i, itemIds.get(random.nextInt(itemIds.size())), start, end));
+      }
+    }
+    return scripts;
+  }
+
+  /*
+   * Registers the members whose items are borrowed and returns the ids of the
+   * items.
+   */
+  private static List<String> registerLenders(UserRegister register) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    CategoryEnum[] categories = CategoryEnum.values();
+    List<String> itemIds = new ArrayList<>();
+    for (int i = 0; i < LENDERS; i++) {
+      Member lender = new Member("lender" + i, "password", "lender" + i + "@example.com", phoneNumber(i));
+      if (!register.addIuser(lender)) {
+        throw new IllegalStateException("Lender " + i + " is already registered, use an empty data directory");
+      }
+      for (int j = 0; j < ITEMS_PER_LENDER; j++) {
+        Item item = new Item("Lent item " + j, 1 + random.nextInt(MAX_COST_PER_DAY), "Load test item",
+            categories[random.nextInt(categories.length)]);
+        lender.addItem(item);
+        itemIds.add(item.getId());
+      }
+    }
+    return itemIds;
+  }
+
+  /*
+   * The script of a new member borrowing an item.
+   */
+  private static SessionScript memberScript(int session, String itemId, SimpleDate start, SimpleDate end) {
+    String username = "load" + session;
+    String password = "password" + session;
+    // Categories are entered from 1, 0 would quit; the number of categories stands for the first one
+    int category = 1 + ThreadLocalRandom.current().nextInt(CategoryEnum.values().length);
+    SessionScript script = new SessionScript();
+    script.add("register", "1", username, password, username + "@example.com", phoneNumber(LENDERS + session));
+    script.add("login", "2", username, password);
+    script.add("add item", "1", "1", "Item " + session, "5", "Load test item", String.valueOf(category));
+    script.add("borrow", "5", itemId, String.valueOf(start.getDay()), String.valueOf(start.getMonth()),
+        String.valueOf(start.getYear()), String.valueOf(end.getDay()), String.valueOf(end.getMonth()),
+        String.valueOf(end.getYear()));
+    script.add("logout", "-1", "4");
+    script.add("quit", "0");
+    return script;
+  }
+
+  /*
+   * The script of the hard coded administrator advancing the day.
+   */
+  private static SessionScript administratorScript() {
+    SessionScript script = new SessionScript();
+    script.add("login", "2", "admin", "aaaaaaaa");
+    script.add("advance day", "5");
+    script.add("logout", "8");
+    script.add("quit", "0");
+    return script;
+  }
+
+  private static String phoneNumber(int n) {
+    return String.format("07%08d", n);
+  }
+
+  /*
+   * Runs the scripts from a number of threads and prints the results.
+   */
+  private static void run(StuffLendingSystem host, List<SessionScript> scripts, int users)
+      throws InterruptedException {
+    AtomicInteger nextScript = new AtomicInteger();
+    AtomicInteger unfinished = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Map<String, Samples>> results = new ArrayList<>();
+    List<Thread> workers = new ArrayList<>();
+    for (int u = 0; u < users; u++) {
+      Map<String, Samples> samples = new HashMap<>();
+      results.add(samples);
+      Thread worker = new Thread(() -> {
+        awaitQuietly(start);
+        for (int i = nextScript.getAndIncrement(); i < scripts.size(); i = nextScript.getAndIncrement()) {
+          if (!runScript(host, scripts.get(i), samples)) {
+            unfinished.incrementAndGet();
+          }
+        }
+      });
+      worker.start();
+      workers.add(worker);
+    }
+
+    long startTime = System.nanoTime();
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    long elapsed = System.nanoTime() - startTime;
+
+    Map<String, Samples> actions = new TreeMap<>();
+    for (Map<String, Samples> samples : results) {
+      samples.forEach((action, latencies) -> actions.computeIfAbsent(action, key -> new Samples()).addAll(latencies));
+    }
+    System.out.printf("%d sessions by %d users in %d ms, %d sessions/s, %d did not finish their script.%n",
+        scripts.size(), users, elapsed / 1_000_000, scripts.size() * 1_000_000_000L / elapsed, unfinished.get());
+    System.out.printf("%-12s %9s %10s %9s %9s %9s %9s%n", "action", "count", "ops/s", "p50 us", "p90 us", "p99 us",
+        "max us");
+    actions.forEach((action, latencies) -> {
+      Arrays.sort(latencies.values, 0, latencies.size);
+      System.out.printf("%-12s %9d %10d %9d %9d %9d %9d%n", action, latencies.size,
+          latencies.size * 1_000_000_000L / elapsed, latencies.percentile(50), latencies.percentile(90),
+          latencies.percentile(99), latencies.percentile(100));
+    });
+  }
+
+  /*
+   * Runs one script in a session on the current thread and adds the latency of
+   * each action it reached. An action lasts from the time its first line is
+   * asked for until the first line of the next action is asked for, or the
+   * session ends. Returns false if the session ended before its script did.
+   */
+  private static boolean runScript(StuffLendingSystem host, SessionScript script, Map<String, Samples> samples) {
+    ScriptedTerminal terminal = new ScriptedTerminal(script.getInput());
+    Terminal.bind(terminal); // The session creates its views, bound to this terminal, in its constructor
+    try {
+      new StuffLendingSystem(host).runSession();
+    } finally {
+      Terminal.bind(null);
+    }
+    long end = System.nanoTime();
+    int linesRead = terminal.getLinesRead();
+    for (int action = 0; action < script.getNumberOfActions(); action++) {
+      int first = script.getActionStart(action);
+      if (first >= linesRead) {
+        break; // The session ended before this action
+      }
+      int next = action + 1 < script.getNumberOfActions() ? script.getActionStart(action + 1) : linesRead;
+      long finish = next < linesRead ? terminal.getReadTime(next) : end;
+      samples.computeIfAbsent(script.getAction(action), key -> new Samples())
+          .add(finish - terminal.getReadTime(first));
+    }
+    return linesRead >= script.getInput().size();
+  }
+
+  /*
+   * Waits for the start signal, keeping the interrupt status.
+   */
+  private static void awaitQuietly(CountDownLatch start) {
+    try {
+      start.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package controller;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Load test for the server mode. Opens many sessions against a running server,
+ * waits until all of them are connected at the same time, then runs a scripted
+ * session in every one of them and reports how many finished and how fast.
+ *
+ * <p>Every session logs in as one of the hard coded members, lists its
+ * contracts, views its profile and quits; it does not change the register. All
+ * connections are driven from one thread with a selector, so the client itself
+ * needs no thread per session. Each session uses a file descriptor on both
+ * sides, so the open file limit (ulimit -n) must be above the number of
+ * sessions.
+ *
+ * <p>Usage: SessionLoadTest [host] [port] [sessions], by default localhost 4040
+ * 10000.
+ */
+public class SessionLoadTest {
+  private static final String[] SCRIPT = {"2", "vanja", "vvvvvvvv", "3", "2", "1", "0"};
+  private static final byte[] QUIT_MESSAGE = "Quitting...".getBytes(StandardCharsets.US_ASCII);
+
+  /*
+   * The state of one scripted session.
+   */
+  private static final class Session {
+    private final ByteBuffer script;
+    private int matchedQuitBytes; // Bytes of the quit message matched so far
+    private boolean quitSeen;
+
+    private Session(ByteBuffer script) {
+      this.script = script;
+    }
+
+    /*
+     * Looks for the quit message in the output read so far.
+     */
+    private void scan(ByteBuffer output) {
+      while (output.hasRemaining() && !quitSeen) {
+        byte b = output.get();
+        if (b == QUIT_MESSAGE[matchedQuitBytes]) {
+          matchedQuitBytes++;
+        } else {
+          matchedQuitBytes = b == QUIT_MESSAGE[0] ? 1 : 0; // The first byte occurs only once
+        }
+        quitSeen = matchedQuitBytes == QUIT_MESSAGE.length;
+      }
+    }
+  }
+
+  /**
+   * Runs the load test.
+   *
+   * @param args host, port and number of sessions, all optional.
+   * @throws IOException if the selector cannot be opened.
+   */
+  public static void main(String[] args) throws IOException {
+    String host = args.length > 0 ? args[0] : "localhost";
+    int port = args.length > 1 ? Integer.parseInt(args[1]) : 4040;
+    int sessions = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+    InetSocketAddress address = new InetSocketAddress(host, port);
+    byte[] script = (String.join("\n", SCRIPT) + "\n").getBytes(StandardCharsets.UTF_8);
+
+    try (Selector selector = Selector.open()) {
+      long start = System.nanoTime();
+      int failed = 0;
+      for (int i = 0; i < sessions; i++) {
+        try {
+          SocketChannel channel = SocketChannel.open();
+          channel.configureBlocking(false);
+          channel.connect(address);
+          channel.register(selector, SelectionKey.OP_CONNECT, new Session(ByteBuffer.wrap(script)));
+        } catch (IOException e) {
+          failed++;
+        }
+      }
+
+      // Wait until every session is connected, so that all are open at once
+      int connected = 0;
+      while (connected + failed < sessions) {
+        selector.select();
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          try {
+            ((SocketChannel) key.channel()).finishConnect();
+            key.interestOps(0);
+            connected++;
+          } catch (IOException e) {
+            key.channel().close();
+            failed++;
+          }
+        }
+      }
+      long allConnected = System.nanoTime();
+      System.out.println(connected + " sessions open at once after " + millis(start, allConnected) + " ms ("
+          + failed + " failed to connect).");
+
+      // Run the script in every session and read until the server closes it
+      for (SelectionKey key : selector.keys()) {
+        key.interestOps(SelectionKey.OP_WRITE);
+      }
+      ByteBuffer output = ByteBuffer.allocateDirect(16 * 1024);
+      int open = connected;
+      int completed = 0;
+      while (open > 0) {
+        selector.select();
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          SocketChannel channel = (SocketChannel) key.channel();
+          Session session = (Session) key.attachment();
+          try {
+            if (key.isWritable()) {
+              channel.write(session.script);
+              if (!session.script.hasRemaining()) {
+                key.interestOps(SelectionKey.OP_READ);
+              }
+            } else if (key.isReadable()) {
+              output.clear();
+              if (channel.read(output) >= 0) {
+                output.flip();
+                session.scan(output);
+                continue;
+              }
+              channel.close();
+              open--;
+              if (session.quitSeen) {
+                completed++;
+              } else {
+                failed++;
+              }
+            }
+          } catch (IOException e) {
+            channel.close();
+            open--;
+            failed++;
+          }
+        }
+      }
+      long end = System.nanoTime();
+      double seconds = (end - allConnected) / 1e9;
+      System.out.println(completed + " sessions completed and " + failed + " failed in " + millis(allConnected, end)
+          + " ms, " + (long) (completed / seconds) + " sessions/s.");
+    }
+  }
+
+  /*
+   * Converts the time between two readings of System.nanoTime to milliseconds.
+   */
+  private static long millis(long from, long to) {
+    return (to - from) / 1_000_000;
+  }
+}
@@ -0,0 +1,93 @@
+package controller;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The input of one session, as a sequence of named actions, each being the
+ * lines a user enters for it.
+ *
+ * <p>Scripts can be written to a text file, one action per line: the name of
+ * the action followed by its input lines, all separated by tabs. A blank line
+ * starts the next session and lines starting with # are ignored, for example:
+ *
+ * <pre>
+ * login&#9;2&#9;vanja&#9;vvvvvvvv
+ * contracts&#9;3
+ * quit&#9;0
+ * </pre>
+ */
+final class SessionScript {
+  private final List<String> actions = new ArrayList<>();
+  private final List<Integer> actionStarts = new ArrayList<>(); // The index of the first line of each action
+  private final List<String> input = new ArrayList<>();
+
+  /*
+   * Adds an action at the end of the script.
+   */
+  void add(String action, String... lines) {
+    actions.add(action);
+    actionStarts.add(input.size());
+    input.addAll(Arrays.asList(lines));
+  }
+
+  /*
+   * Gets the lines of the whole script, in order.
+   */
+  List<String> getInput() {
+    return input;
+  }
+
+  /*
+   * Gets the number of actions in the script.
+   */
+  int getNumberOfActions() {
+    return actions.size();
+  }
+
+  /*
+   * Gets the name of an action.
+   */
+  String getAction(int action) {
+    return actions.get(action);
+  }
+
+  /*
+   * Gets the index of the first input line of an action.
+   */
+  int getActionStart(int action) {
+    return actionStarts.get(action);
+  }
+
+  /*
+   * Reads the scripts in a file.
+   */
+  static List<SessionScript> read(Path file) throws IOException {
+    List<SessionScript> scripts = new ArrayList<>();
+    SessionScript script = new SessionScript();
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isBlank()) {
+          if (script.getNumberOfActions() > 0) {
+            scripts.add(script);
+            script = new SessionScript();
+          }
+        } else if (!line.startsWith("#")) {
+          String[] fields = line.split("\t", -1);
+          script.add(fields[0], Arrays.copyOfRange(fields, 1, fields.length));
+        }
+      }
+    }
+    if (script.getNumberOfActions() > 0) {
+      scripts.add(script);
+    }
+    return scripts;
+  }
+}
@@ -1,23 +1,33 @@
 package controller;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
 import model.AdminMenuAction;
 import model.Administrator;
 import model.CategoryEnum; // This class is not dependent on Cathegory, I just need it for hardcoding test Items
 import model.Contract; // This class is not dependent on Contract, I just need it for hardcoding test Items
 import model.EditItemMenuAction;
+import model.FileNotificationSink;
 import model.Item;
 import model.ItemsMenuAction;
 import model.Iuser;
+import model.JdbcRegisterRepository;
 import model.MainMenuAction;
 import model.Member;
 import model.MenuOption;
+import model.MenuOptionLookup;
 import model.MyProfileMenuAction;
+import model.NotificationPipeline;
+import model.RegisterJournal;
 import model.RegistrationOrLoginAction;
 import model.SimpleDate; // This class is not dependent on SimpleDate, I just need it for hardcoding test Items
 import model.TimeTracker;
 import model.UserRegister;
 import view.AdministratorUi;
 import view.GeneralUi;
+import view.SessionClosedException;
 import view.UserMenuUi;
 
 /**
@@ -30,20 +40,93 @@ import view.UserMenuUi;
 
 public class StuffLendingSystem {
 
+  private static final Path DATA_DIRECTORY = Paths.get(System.getProperty("stufflending.dataDir", "data"));
+  private static final String STORAGE = System.getProperty("stufflending.storage", "memory");
+  private static final String JDBC_URL = System.getProperty("stufflending.jdbcUrl",
+      "jdbc:h2:" + DATA_DIRECTORY.toAbsolutePath().resolve("register"));
+  private static final Path NOTIFICATION_FILE = Paths.get(System.getProperty("stufflending.notificationFile",
+      DATA_DIRECTORY.resolve("notifications.log").toString()));
+  private static final Path EXCHANGE_DIRECTORY = DATA_DIRECTORY.resolve("exchange"); // For sessions over TCP
+  private static final Path REMINDER_DAY_FILE = DATA_DIRECTORY.resolve("reminders.day"); // Last day reminded of
+  private static final long NOTIFICATION_CHECK_MILLIS = Long.getLong("stufflending.notificationCheckMillis", 1000);
+
+  private static final MenuOptionLookup<RegistrationOrLoginAction> AUTHORIZATION_MENU =
+      new MenuOptionLookup<>(RegistrationOrLoginAction.class);
+  private static final MenuOptionLookup<MainMenuAction> MAIN_MENU = new MenuOptionLookup<>(MainMenuAction.class);
+  private static final MenuOptionLookup<ItemsMenuAction> ITEMS_MENU = new MenuOptionLookup<>(ItemsMenuAction.class);
+  private static final MenuOptionLookup<EditItemMenuAction> EDIT_ITEM_MENU =
+      new MenuOptionLookup<>(EditItemMenuAction.class);
+  private static final MenuOptionLookup<MyProfileMenuAction> MY_PROFILE_MENU =
+      new MenuOptionLookup<>(MyProfileMenuAction.class);
+  private static final MenuOptionLookup<AdminMenuAction> ADMINISTRATOR_MENU =
+      new MenuOptionLookup<>(AdminMenuAction.class);
+
   private Iuser currentUser;
-  UserRegister userRegister = new UserRegister();
-  private ItemController itemController;
+  UserRegister userRegister;
+  private ItemController itemController; // Created when a member logs in
   private ContractController contractController;
+  private RegistrationController registrationController;
+  private LoginController loginController;
+  private MemberController memberController = new MemberController();
+  private AdministratorController administratorController;
   private GeneralUi ui = new GeneralUi();
   private UserMenuUi userMenuUi = new UserMenuUi();
   private AdministratorUi administratorUi = new AdministratorUi();
   private TimeTracker timeTracker = new TimeTracker();
+  private RegisterJournal journal; // Saves every change of the in-memory register, or null
+  private JdbcRegisterRepository database; // Stores the register when the database is used, or null
+  private NotificationPipeline notifications; // Sends reminders about contracts while the storage is open, or null
 
   /*
    * Constructor for the StuffLendingSystem class.
    */
   public StuffLendingSystem() {
+    userRegister = createUserRegister();
     contractController = new ContractController(userRegister, timeTracker);
+    createRegisterControllers(null);
+  }
+
+  /*
+   * Constructs a session sharing the register and the date of a running
+   * system. Used by the server, which creates one per connection on the thread
+   * running the connection, so the views use its terminal. The administrator
+   * of such a session can only import and export files in the exchange
+   * directory.
+   */
+  StuffLendingSystem(StuffLendingSystem host) {
+    userRegister = host.userRegister;
+    timeTracker = host.timeTracker;
+    contractController = new ContractController(userRegister, timeTracker);
+    createRegisterControllers(EXCHANGE_DIRECTORY);
+  }
+
+  /*
+   * Creates the controllers working on the register. They are kept for the
+   * whole session instead of being created again every time a menu is shown.
+   * The file directory limits the files the administrator can use, or is null
+   * for any file.
+   */
+  private void createRegisterControllers(Path fileDirectory) {
+    registrationController = new RegistrationController(userRegister);
+    loginController = new LoginController(userRegister);
+    administratorController = new AdministratorController(userRegister, fileDirectory);
+  }
+
+  /*
+   * Creates the register on the storage chosen with the stufflending.storage
+   * property: "memory" (the default) keeps everything on the heap and saves it
+   * in the journal, "jdbc" keeps it in the database at stufflending.jdbcUrl.
+   */
+  private UserRegister createUserRegister() {
+    if ("jdbc".equals(STORAGE)) {
+      try {
+        database = new JdbcRegisterRepository(JDBC_URL);
+        return new UserRegister(database);
+      } catch (SQLException e) {
+        ui.showStorageUnavailableMessage(e.getMessage());
+      }
+    }
+    return new UserRegister();
   }
 
   /*
@@ -51,88 +134,180 @@ public class StuffLendingSystem {
    * application and handles the flow of the application.
    */
   protected void runSystem() {
-    ui.showWelcomeMessage();
+    openStorage();
+    runSession();
+    closeStorage();
+  }
+
+  /*
+   * Loads the saved register, or fills a new register with the hard coded users
+   * and items.
+   */
+  void openStorage() {
+    if (database == null) {
+      openJournal();
+    }
+    if (userRegister.getDroppedContractCount() > 0) {
+      ui.showDroppedContractsMessage(userRegister.getDroppedContractCount());
+    }
+    if (userRegister.isEmpty()) {
+      // HARD CODED USERS, only on the first start
+      hardCodeUsersAndItems();
+    }
+    notifications = createNotificationPipeline();
+    notifications.start();
+  }
 
+  /*
+   * Creates the reminder pipeline, going on from the last day it checked
+   * before a restart so that no reminder is sent twice. If that day cannot be
+   * read, the current day is checked again.
+   */
+  private NotificationPipeline createNotificationPipeline() {
+    FileNotificationSink sink = new FileNotificationSink(NOTIFICATION_FILE);
+    try {
+      return new NotificationPipeline(userRegister.getContractRegister(), timeTracker::getCurrentEpochDay, sink,
+          NOTIFICATION_CHECK_MILLIS, REMINDER_DAY_FILE);
+    } catch (IOException e) {
+      ui.showMessage(e.getMessage());
+      return new NotificationPipeline(userRegister.getContractRegister(), timeTracker::getCurrentEpochDay, sink,
+          NOTIFICATION_CHECK_MILLIS);
+    }
+  }
+
+  /*
+   * Runs the menus for one user until they quit or their input ends.
+   */
+  void runSession() {
+    ui.showWelcomeMessage();
     ui.showCurrentDate(timeTracker.getCurrentDate().toString());
-    // HARD CODED USERS
-    hardCodeUsersAndItems();
+    try {
+      runMenus();
+    } catch (SessionClosedException e) {
+      // The user quit, leave the menus
+    }
+    ui.flushOutput();
+  }
 
-    handleMemberOrAdminMenu();
+  /*
+   * Rebuilds the register from the journal in the data directory. If the
+   * journal cannot be opened, the system runs without saving changes.
+   */
+  private void openJournal() {
+    try {
+      journal = RegisterJournal.open(userRegister, DATA_DIRECTORY);
+      // Save the snapshot also when the process is stopped from outside
+      Runtime.getRuntime().addShutdownHook(new Thread(this::closeStorage));
+    } catch (IOException e) {
+      ui.showStorageUnavailableMessage(e.getMessage());
+    }
+  }
 
-    ui.closeScanner();
+  /*
+   * Stops the reminders and closes the journal or the database. Every change is
+   * already stored when it returns, so a failure here loses nothing. Also
+   * called by the shutdown hook, so the two calls must not overlap.
+   */
+  synchronized void closeStorage() {
+    if (notifications != null) {
+      try {
+        notifications.close(); // Sends the reminders still waiting
+      } catch (IOException e) {
+        ui.showStorageUnavailableMessage(e.getMessage());
+      }
+      notifications = null;
+    }
+    if (database != null) {
+      database.close();
+    }
+    if (journal == null) {
+      return;
+    }
+    try {
+      journal.close();
+    } catch (IOException e) {
+      ui.showStorageUnavailableMessage(e.getMessage());
+    }
   }
 
   /*
-   * The handleMemberOrAdminMenu method handles the authorization menu. It
-   * contains methods for handling the registration and login of a user. It also
-   * contains methods for handling the member menu and administrator menu.
+   * The menus of a session, and the end of the session. Each menu handler
+   * shows its menu, runs the chosen action and returns the menu to show next,
+   * so moving between menus never grows the stack.
    */
-  private void handleMemberOrAdminMenu() {
-    handleAuthorizeMenu(); // Id is returned if the User is found in the system and the user is logged in
-    // Check weather the user is Member or admin
-    if (currentUser instanceof Member) {
-      itemController = new ItemController((Member) currentUser, userRegister);
+  private enum MenuState {
+    AUTHORIZATION,
+    MEMBER_MAIN,
+    ITEMS,
+    EDIT_ITEM,
+    MY_PROFILE,
+    ADMINISTRATOR_MAIN,
+    CLOSED
+  }
 
+  /*
+   * The menu loop of a session. Shows the authorization menu first and then
+   * whichever menu the last action chose, until the session is closed.
+   */
+  private void runMenus() {
+    MenuState state = MenuState.AUTHORIZATION;
+    while (state != MenuState.CLOSED) {
       contractController.checkContractStatus(); // Check if any contracts are overdue
-      handleMemberMainMenu();
-    } else {
-      // ADMIN MENU
-      contractController.checkContractStatus(); // Check if any contracts are overdue
-      handleAdministatorMainMenu();
+      state = handleMenu(state);
     }
   }
 
   /*
-   * The handleAuthorizeMenu method handles the authorization menu. It contains
-   * methods for handling the registration and login of a user.
+   * Shows one menu and handles the chosen option.
    */
-  private void handleAuthorizeMenu() {
-    userMenuUi.showMenuSelectOptionMessage();
-    userMenuUi.showMenuOptions(RegistrationOrLoginAction.values());
-    takeInAndValidateRegistrationOrLoginInput();
+  private MenuState handleMenu(MenuState state) {
+    switch (state) {
+      case AUTHORIZATION:
+        return handleAuthorizeMenu();
+      case MEMBER_MAIN:
+        return handleMemberMainMenu();
+      case ITEMS:
+        return handleItemsMenu();
+      case EDIT_ITEM:
+        return handleEditItemMenu();
+      case MY_PROFILE:
+        return handleMyProfileMenu();
+      case ADMINISTRATOR_MAIN:
+        return handleAdministatorMainMenu();
+      default:
+        return MenuState.CLOSED;
+    }
   }
 
   /*
-   * The takeInAndValidateRegistrationOrLoginInput method takes in and validates
-   * the input from the user in the authorization menu. It contains methods for
-   * handling the registration and login of a user.
+   * The handleAuthorizeMenu method handles the authorization menu. It contains
+   * methods for handling the registration and login of a user, and leads to the
+   * member menu or administrator menu after a login.
    */
-  private void takeInAndValidateRegistrationOrLoginInput() {
-    contractController.checkContractStatus(); // Check if any contracts are overdue
-    int input = takeInAndValidateMenuOptionNumberInput(RegistrationOrLoginAction.class);
-    MenuOption[] actions = RegistrationOrLoginAction.values();
-    MenuOption action = getAction(actions, input);
-    RegistrationOrLoginAction registrationOrLoginAction = (RegistrationOrLoginAction) action;
-
-    switch (registrationOrLoginAction) {
+  private MenuState handleAuthorizeMenu() {
+    userMenuUi.showMenuSelectOptionMessage();
+    userMenuUi.showMenuOptions(RegistrationOrLoginAction.values());
+    switch (takeInAndValidateMenuOption(AUTHORIZATION_MENU)) {
       case REGISTER:
         // Registration
-        RegistrationController registrationController = new RegistrationController(userRegister);
         registrationController.handleRegistration();
-        // Show authorization menu again
-        handleAuthorizeMenu();
-        break;
+        return MenuState.AUTHORIZATION;
       case LOGIN:
         // Log in
-        LoginController loginController = new LoginController(userRegister);
         String validatedMemberId = loginController.handleLogIn();
         if (validatedMemberId.equals("-1")) {
-          // Show authorization menu again
-          handleAuthorizeMenu();
-        } else {
-          findCurrentMemberbyId(validatedMemberId); // Sets the current user based on the validatedMemberId
+          return MenuState.AUTHORIZATION;
         }
-        break;
-      case EXIT:
-        // Quit
-        break;
-      case BACK:
-        // Back - In this case it is exit
-        break;
+        findCurrentMemberbyId(validatedMemberId); // Sets the current user based on the validatedMemberId
+        // Check weather the user is Member or admin
+        if (currentUser instanceof Member) {
+          itemController = new ItemController((Member) currentUser, userRegister);
+          return MenuState.MEMBER_MAIN;
+        }
+        return MenuState.ADMINISTRATOR_MAIN;
       default:
-        // Show authorization menu again
-        handleAuthorizeMenu();
-        break;
+        // Exit, or Back which in this case is exit
+        return MenuState.CLOSED;
     }
   }
 
@@ -145,384 +320,217 @@ public class StuffLendingSystem {
   }
 
   /*
-   * The handleMemberMainMenu method handles the member menu. It contains methods
-   * for showing menu messages.
+   * Logs the current user out and returns to the authorization menu.
    */
-  private void handleMemberMainMenu() {
-    userMenuUi.showMenuSelectOptionMessage();
-    userMenuUi.showMenuOptions(MainMenuAction.values());
-    takeInAndValidateMainMenuInput();
+  private MenuState logOut() {
+    currentUser = null;
+    itemController = null;
+    return MenuState.AUTHORIZATION;
   }
 
   /*
-   * The takeInAndValidateMainMenuInput method takes in and validates the input
-   * from the user in the member menu.
+   * The handleMemberMainMenu method handles the member menu.
    */
-  private void takeInAndValidateMainMenuInput() {
-    contractController.checkContractStatus(); // Check if any contracts are overdue
-    int input = takeInAndValidateMenuOptionNumberInput(MainMenuAction.class);
-    MenuOption[] actions = MainMenuAction.values();
-    MenuOption action = getAction(actions, input);
-    MainMenuAction mainMenuAction = (MainMenuAction) action;
-
-    switch (mainMenuAction) {
+  private MenuState handleMemberMainMenu() {
+    userMenuUi.showMenuSelectOptionMessage();
+    userMenuUi.showMenuOptions(MainMenuAction.values());
+    switch (takeInAndValidateMenuOption(MAIN_MENU)) {
       case ITEMS:
-        // Show Items Menu
-        handleItemsMenu();
-        break;
+        return MenuState.ITEMS;
       case MY_PROFILE:
-        // Show My Profile Menu
-        handleMyProfileMenu();
-        break;
+        return MenuState.MY_PROFILE;
       case MY_CONTRACTS:
-        // Show My contracts
         contractController.showCurrentMemberContracts((Member) currentUser);
-        handleMemberMainMenu(); // Show Main Menu again
-        break;
+        return MenuState.MEMBER_MAIN;
       case LOGOUT:
-        // Logout
-        currentUser = null;
-        handleMemberOrAdminMenu(); // Show Authorization Menu again
-        break;
-      case EXIT:
-        // Quit
-        break;
       case BACK:
         // Back - In this case it is Authorization Menu
-        handleAdministatorMainMenu();
-        break;
+        return logOut();
       default:
-        // Show Main Menu again
-        handleMemberMainMenu();
-        break;
+        // Quit
+        return MenuState.CLOSED;
     }
   }
 
   /*
-   * The handleItemsMenu method handles the items menu. It contains methods for
-   * showing menu messages.
+   * The handleItemsMenu method handles the items menu.
    */
-  private void handleItemsMenu() {
+  private MenuState handleItemsMenu() {
     userMenuUi.showMenuSelectOptionMessage();
     userMenuUi.showMenuOptions(ItemsMenuAction.values());
-    takeInAndValidateItemsMenuInput();
-  }
-
-  /*
-   * The takeInAndValidateItemsMenuInput method takes in and validates the input
-   * from the user in the items menu.
-   */
-  private void takeInAndValidateItemsMenuInput() {
-    contractController.checkContractStatus(); // Check if any contracts are overdue
-    int input = takeInAndValidateMenuOptionNumberInput(ItemsMenuAction.class);
-    MenuOption[] actions = ItemsMenuAction.values();
-    MenuOption action = getAction(actions, input);
-    ItemsMenuAction itemsMenuAction = (ItemsMenuAction) action;
-
-    switch (itemsMenuAction) {
+    switch (takeInAndValidateMenuOption(ITEMS_MENU)) {
       case ADD_ITEM:
-        // Add Item
         itemController.handleAddItem();
-        handleItemsMenu(); // Show Items Menu again
-        break;
+        return MenuState.ITEMS;
       case VIEW_MY_ITEMS:
-        // View My Items
         itemController.handleListAllItems();
-        handleItemsMenu(); // Show Items Menu again
-        break;
+        return MenuState.ITEMS;
       case EDIT_MY_ITEM:
-        // Edit Item
-        if (itemController.validateEditItemInput()) {
-          // If there are no items, the user is taken back to Items Menu
-          handleEditItemMenu(); // Show Items Menu again
-          break;
-        } else {
-          // If there are items, the user is taken to Edit Item Menu
-          handleItemsMenu();
-        }
-        break;
+        // The user is taken to Edit Item Menu only if the chosen item exists
+        return itemController.validateEditItemInput() ? MenuState.EDIT_ITEM : MenuState.ITEMS;
       case DELETE_MY_ITEM:
-        // Delete Item
         itemController.handleDeleteItem();
-        handleItemsMenu(); // Show Items Menu again
-        break;
+        return MenuState.ITEMS;
       case SHOW_ALL_ITEMS_AVAILABLE_FOR_BORROWING:
         // Show all Items available for borrowing and make menu for borrowing items
         itemController.handleBorrowItem();
         Item itemToBorrow = itemController.validateBorrowItemInput();
-        if (itemToBorrow == null) {
-          // If there are no items, the user is taken back to Items Menu
-          handleItemsMenu(); // Show Items Menu again
-          break;
-        } else {
-          // If there are items, the user should borrow item
-          SimpleDate currentDate = new SimpleDate(timeTracker.getCurrentDay(),
-              timeTracker.getCurrentMonth(),
-              timeTracker.getCurrentYear());
-          contractController.signContract((Member) currentUser, itemToBorrow, currentDate);
-          handleItemsMenu(); // Show Items Menu again
+        if (itemToBorrow != null) {
+          contractController.signContract((Member) currentUser, itemToBorrow, getCurrentDate());
         }
-        break;
-      case EXIT:
-        // Quit
-        break;
+        return MenuState.ITEMS;
+      case BORROW_SEVERAL_ITEMS:
+        // Show all Items available for borrowing and book several of them at once
+        itemController.handleListAllAvaliableItems();
+        contractController.signContracts((Member) currentUser, getCurrentDate());
+        return MenuState.ITEMS;
+      case BROWSE_ITEMS_BY_CATEGORY:
+        itemController.handleBrowseItemsByCategory();
+        return MenuState.ITEMS;
+      case SEARCH_ITEMS:
+        itemController.handleSearchItems();
+        return MenuState.ITEMS;
       case BACK:
         // Back - In this case it is Main Menu
-        handleMemberMainMenu();
-        break;
+        return MenuState.MEMBER_MAIN;
       default:
-        // Show Items Menu again
-        handleItemsMenu();
-        break;
+        // Quit
+        return MenuState.CLOSED;
     }
   }
 
   /*
-   * The handleEditItemMenu method handles the edit item menu. It contains methods
-   * for showing menu messages.
+   * Gets the current date of the system.
    */
-  private void handleEditItemMenu() {
-    userMenuUi.showMenuSelectOptionMessage();
-    userMenuUi.showMenuOptions(EditItemMenuAction.values());
-    takeInAndValidateEditItemMenuInput();
+  private SimpleDate getCurrentDate() {
+    return new SimpleDate(timeTracker.getCurrentDay(), timeTracker.getCurrentMonth(), timeTracker.getCurrentYear());
   }
 
   /*
-   * The takeInAndValidateEditItemMenuInput method takes in and validates the
-   * input from the user in the edit item
+   * The handleEditItemMenu method handles the edit item menu.
    */
-  private void takeInAndValidateEditItemMenuInput() {
-    contractController.checkContractStatus(); // Check if any contracts are overdue
-    int input = takeInAndValidateMenuOptionNumberInput(EditItemMenuAction.class);
-    MenuOption[] actions = EditItemMenuAction.values();
-    MenuOption action = getAction(actions, input);
-    EditItemMenuAction editItemMenuAction = (EditItemMenuAction) action;
-
-    switch (editItemMenuAction) {
+  private MenuState handleEditItemMenu() {
+    userMenuUi.showMenuSelectOptionMessage();
+    userMenuUi.showMenuOptions(EditItemMenuAction.values());
+    switch (takeInAndValidateMenuOption(EDIT_ITEM_MENU)) {
       case EDIT_ITEM_NAME:
-        // Edit Item name
         itemController.handleEditItemName();
-        handleEditItemMenu(); // Show Edit Item Menu again
-        break;
+        return MenuState.EDIT_ITEM;
       case EDIT_ITEM_COST:
-        // Edit Item cost
         itemController.handleEditItemCost();
-        handleEditItemMenu(); // Show Edit Item Menu again
-        break;
+        return MenuState.EDIT_ITEM;
       case EDIT_ITEM_DESCRIPTION:
-        // Edit Item description
         itemController.handleEditItemDescription();
-        handleEditItemMenu(); // Show Edit Item Menu again
-        break;
+        return MenuState.EDIT_ITEM;
       case EDIT_ITEM_CATEGORY:
-        // Edit Item category
         itemController.handleEditItemCategory();
-        handleEditItemMenu(); // Show Edit Item Menu again
-        break;
-      case EXIT:
-        // Quit
-        break;
+        return MenuState.EDIT_ITEM;
       case BACK:
         // Back - In this case it is Items Menu
-        handleItemsMenu();
-        break;
+        return MenuState.ITEMS;
       default:
-        // Show Edit Item Menu again
-        handleEditItemMenu();
-        break;
+        // Quit
+        return MenuState.CLOSED;
     }
   }
 
   /*
-   * The handleMyProfileMenu method handles the my profile menu. It contains
-   * methods for showing menu messages.
+   * The handleMyProfileMenu method handles the my profile menu.
    */
-  private void handleMyProfileMenu() {
+  private MenuState handleMyProfileMenu() {
     userMenuUi.showMenuSelectOptionMessage();
     userMenuUi.showMenuOptions(MyProfileMenuAction.values());
-    takeInAndValidateMyProfileMenuInput();
-  }
-
-  /*
-   * The takeInAndValidateMyProfileMenuInput method takes in and validates the
-   * input from the user in the my profile
-   */
-  private void takeInAndValidateMyProfileMenuInput() {
-    contractController.checkContractStatus(); // Check if any contracts are overdue
     Member currentUserMember = (Member) currentUser;
-    MemberController memberController = new MemberController();
-    int input = takeInAndValidateMenuOptionNumberInput(MyProfileMenuAction.class);
-    MenuOption[] actions = MyProfileMenuAction.values();
-    MenuOption action = getAction(actions, input);
-    MyProfileMenuAction myProfileMenuAction = (MyProfileMenuAction) action;
-
-    switch (myProfileMenuAction) {
+    switch (takeInAndValidateMenuOption(MY_PROFILE_MENU)) {
       case VIEW_MY_PROFILE_DETAILS:
-        // View my profile details
         memberController.handleViewMyProfileDetails(currentUserMember);
-        handleMyProfileMenu(); // Show My Profile Menu again
-        break;
+        return MenuState.MY_PROFILE;
       case VIEW_MY_CREDITS:
-        // View my credits
         memberController.handleViewMyCredits(currentUserMember);
-        handleMyProfileMenu(); // Show My Profile Menu again
-        break;
+        return MenuState.MY_PROFILE;
       case CHANGE_MY_USERNAME:
-        // Change my username
-        memberController.handleChangeUsername(currentUserMember);
-        handleMyProfileMenu(); // Show My Profile Menu again
-        break;
+        memberController.handleChangeUsername(currentUserMember, userRegister);
+        return MenuState.MY_PROFILE;
       case CHANGE_MY_PASSWORD:
-        // Change my password
         memberController.handleChangePassword(currentUserMember);
-        handleMyProfileMenu(); // Show My Profile Menu again
-        break;
+        return MenuState.MY_PROFILE;
       case CHANGE_MY_EMAIL:
-        // Change my email
         memberController.handleChangeEmail(currentUserMember, userRegister);
-        handleMyProfileMenu(); // Show My Profile Menu again
-        break;
+        return MenuState.MY_PROFILE;
       case CHANGE_MY_PHONE_NUMBER:
-        // Change my phone number
         memberController.handleChangePhoneNumber(currentUserMember, userRegister);
-        handleMyProfileMenu(); // Show My Profile Menu again
-        break;
+        return MenuState.MY_PROFILE;
       case DELETE_ACCOUNT:
-        // Delete account
         memberController.handleDeleteAccount(currentUserMember, userRegister);
-        currentUser = null;
-        handleMemberOrAdminMenu(); // Show Authorization Menu again
-        break;
-      case EXIT:
-        // Quit
-        break;
+        return logOut();
       case BACK:
         // Back - In this case it is Main Menu
-        handleMemberMainMenu();
-        break;
+        return MenuState.MEMBER_MAIN;
       default:
-        // Show My Profile Menu again
-        handleMyProfileMenu();
-        break;
+        // Quit
+        return MenuState.CLOSED;
     }
   }
 
   /*
-   * The handleAdministatorMainMenu method handles the administrator menu. It
-   * contains methods for showing menu
+   * The handleAdministatorMainMenu method handles the administrator menu.
    */
-  private void handleAdministatorMainMenu() {
+  private MenuState handleAdministatorMainMenu() {
     administratorUi.showMenuSelectOptionMessage();
     administratorUi.showMainMenuMessage();
-    takeInAndValidateAdminMainMenuInput();
-  }
-
-  /*
-   * The takeInAndValidateAdminMainMenuInput method takes in and validates the
-   * input from the user in the administrator.
-   */
-  private void takeInAndValidateAdminMainMenuInput() {
-    contractController.checkContractStatus(); // Check if any contracts are overdue
-    AdministratorController administratorController = new AdministratorController(userRegister);
-    int input = takeInAndValidateMenuOptionNumberInput(AdminMenuAction.class);
-    MenuOption[] actions = AdminMenuAction.values();
-    MenuOption action = getAction(actions, input);
-    AdminMenuAction adminMenuAction = (AdminMenuAction) action;
-
-    switch (adminMenuAction) {
+    switch (takeInAndValidateMenuOption(ADMINISTRATOR_MENU)) {
       case LIST_ALL_MEMBERS_SIMPLE:
-        // List all members - simple
         administratorController.handleListAllMembersSimple();
-        handleAdministatorMainMenu(); // Show Admin Main Menu again
-        break;
+        return MenuState.ADMINISTRATOR_MAIN;
       case LIST_ALL_MEMBERS_VERBOSE:
-        // List all members - verbose
         administratorController.handleListAllMembersVerbose();
-        handleAdministatorMainMenu(); // Show Admin Main Menu again
-        break;
+        return MenuState.ADMINISTRATOR_MAIN;
       case LIST_ALL_ITEMS:
-        // List all items
         administratorController.handleListAllItems();
-        handleAdministatorMainMenu(); // Show Admin Main Menu again
-        break;
+        return MenuState.ADMINISTRATOR_MAIN;
       case LIST_CONTRACTS:
-        // List contracts
         administratorController.handleListAllContracts();
-        handleAdministatorMainMenu(); // Show Admin Main Menu again
-        break;
+        return MenuState.ADMINISTRATOR_MAIN;
       case ADVANCE_DAY:
-        // Advance day count
         administratorController.handleAdvanceDayCount(timeTracker);
-        handleAdministatorMainMenu(); // Show Admin Main Menu again
-        break;
+        return MenuState.ADMINISTRATOR_MAIN;
+      case IMPORT_MEMBERS_AND_ITEMS:
+        // Import members and items from a CSV or JSON Lines file
+        administratorController.handleImportMembersAndItems();
+        return MenuState.ADMINISTRATOR_MAIN;
+      case EXPORT_CONTRACTS:
+        // Export all contracts as NDJSON
+        administratorController.handleExportContracts();
+        return MenuState.ADMINISTRATOR_MAIN;
       case LOGOUT:
-        // Logout
-        currentUser = null;
-        handleMemberOrAdminMenu(); // Show Authorization Menu again
-        break;
-      case EXIT:
-        // Quit
-        break;
       case BACK:
-        // Back - In this case it is Main Menu
-        handleMemberOrAdminMenu();
-        break;
+        // Back - In this case it is Authorization Menu
+        return logOut();
       default:
-        // Show Admin Main Menu again
-        handleAdministatorMainMenu();
-        break;
+        // Quit
+        return MenuState.CLOSED;
     }
   }
 
   /**
-   * The takeInAndValidateMenuOptionNumberInput method takes in and validates the
-   * input from the user in the menu.
+   * The takeInAndValidateMenuOption method takes in the number of a menu
+   * option and asks again until it is the number of an option of the menu.
    *
-   * @param enumClass The enum class that contains the menu options.
+   * @param menu The lookup of the menu options.
+   * @return The chosen option.
    */
-  private <E extends Enum<E> & MenuOption> int takeInAndValidateMenuOptionNumberInput(Class<E> enumClass) {
-    int input = -2;
-    boolean valid = false;
-
-    while (!valid) {
+  private <E extends Enum<E> & MenuOption> E takeInAndValidateMenuOption(MenuOptionLookup<E> menu) {
+    while (true) {
       try {
-        input = Integer.parseInt(ui.getInput());
-
-        // Now we need to check each enum constant if it matches the input.
-        E matchedAction = null;
-        for (E action : enumClass.getEnumConstants()) {
-          if (action.matchesOptionNumber(input)) {
-            matchedAction = action;
-            break;
-          }
+        E option = menu.find(Integer.parseInt(ui.getInput()));
+        if (option != null) {
+          return option;
         }
-
-        valid = matchedAction != null;
-        if (!valid) {
-          ui.tryAgainMessage();
-        }
-
       } catch (NumberFormatException e) {
-        ui.tryAgainMessage();
-      }
-    }
-    return input;
-  }
-
-  /**
-   * The getAction method returns the action that matches the input.
-   *
-   * @param actions The actions that are available in the menu.
-   * @param input  The input from the user.
-   * @return The action that matches the input.
-   */
-  private MenuOption getAction(MenuOption[] actions, int input) {
-    for (MenuOption registrationOrLoginAction : actions) {
-      if (registrationOrLoginAction.matchesOptionNumber(input)) {
-        return registrationOrLoginAction;
+        // Not a number, ask again
       }
+      ui.tryAgainMessage();
     }
-    return null;
   }
 
   /*
@@ -9,7 +9,9 @@ public enum AdminMenuAction implements MenuOption {
   LIST_ALL_ITEMS(3, "List all items"),
   LIST_CONTRACTS(4, "List contracts"),
   ADVANCE_DAY(5, "Advance day count"),
-  LOGOUT(6, "Logout"),
+  IMPORT_MEMBERS_AND_ITEMS(6, "Import members and items from a file"),
+  EXPORT_CONTRACTS(7, "Export all contracts to a file"),
+  LOGOUT(8, "Logout"),
   BACK(-1, "Back"),
   EXIT(0, "Exit");
 
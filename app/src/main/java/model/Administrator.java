@@ -7,7 +7,8 @@ public class Administrator implements Iuser {
   private String username;
   private String password;
   private String role;
-  private String id;
+  private final long key;
+  private String id; // Text form of the ID, created when first needed
   private String email;
   private String phoneNumber;
 
@@ -20,10 +21,24 @@ public class Administrator implements Iuser {
    * @param adminPhoneNumber The phone number of the administrator.
    */
   public Administrator(String username, String password, String adminEmail, String adminPhoneNumber) {
+    this(EntityIds.next(), username, password, adminEmail, adminPhoneNumber);
+  }
+
+  /**
+   * Creates an administrator with an existing ID, used when the register is
+   * rebuilt.
+   *
+   * @param key The ID of the administrator.
+   * @param username The username of the administrator.
+   * @param password The password of the administrator.
+   * @param adminEmail The email of the administrator.
+   * @param adminPhoneNumber The phone number of the administrator.
+   */
+  Administrator(long key, String username, String password, String adminEmail, String adminPhoneNumber) {
     this.username = username;
     this.password = password;
     this.role = "Administrator";
-    this.id = "adminID";
+    this.key = key;
     this.email = adminEmail;
     this.phoneNumber = adminPhoneNumber;
   }
@@ -59,9 +74,20 @@ public class Administrator implements Iuser {
    */
   @Override
   public String getId() {
+    if (id == null) {
+      id = EntityIds.toDisplayString(key);
+    }
     return id;
   }
 
+  /*
+   * @Override getKey from IUser
+   */
+  @Override
+  public long getKey() {
+    return key;
+  }
+
   /*
    * @Override setUsername from IUser
    */
@@ -0,0 +1,105 @@
+package model;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The AvailabilityScheduler class keeps the start and end transitions of all
+ * contracts in queues by day. When the clock moves forward, only the
+ * transitions that are now due are applied, instead of re-evaluating every
+ * contract ever signed. Days are epoch days, so advancing the clock does not
+ * allocate. Sessions running at the same time share the scheduler: the queue
+ * of a day is a concurrent queue in a concurrent sorted map, so contracts are
+ * scheduled without a lock while other bookings are made, and moving the
+ * clock and deleting contracts are synchronized.
+ */
+public class AvailabilityScheduler {
+
+  // The items whose availability may change on each epoch day
+  private final ConcurrentNavigableMap<Integer, Queue<Item>> transitions = new ConcurrentSkipListMap<>();
+  private final AtomicInteger pending = new AtomicInteger(); // Kept apart as the queues count their items one by one
+  private volatile int currentDay = Integer.MIN_VALUE; // The last epoch day transitions were applied for
+
+  /**
+   * Schedules the transitions of a contract: the item is taken on the start date
+   * and released the day after the end date.
+   *
+   * @param contract The contract to schedule.
+   */
+  void scheduleContract(Contract contract) {
+    schedule(contract.getStartDate().getEpochDay(), contract.getItem());
+    schedule(contract.getEndDate().getEpochDay() + 1, contract.getItem());
+  }
+
+  /*
+   * Adds an item to the queue of a day. If the clock took the queue out
+   * meanwhile, the item was either applied with the queue or missed; a
+   * missed item is taken back out and added to the day's new queue.
+   */
+  private void schedule(int day, Item item) {
+    while (true) {
+      Queue<Item> queue = transitions.computeIfAbsent(day, d -> new ConcurrentLinkedQueue<>());
+      queue.add(item);
+      pending.incrementAndGet();
+      if (transitions.get(day) == queue || !queue.remove(item)) {
+        return; // Still scheduled, or applied by the clock
+      }
+      pending.decrementAndGet();
+    }
+  }
+
+  /**
+   * Handles a contract that was deleted. Its pending transitions are left in the
+   * queue, they only re-evaluate the item when they come due, but the item is
+   * re-evaluated right away in case the contract was active.
+   *
+   * @param contract The contract that was deleted.
+   */
+  synchronized void contractRemoved(Contract contract) {
+    if (currentDay != Integer.MIN_VALUE) {
+      updateAvailability(contract.getItem(), currentDay);
+    }
+  }
+
+  /**
+   * Moves the clock forward to an epoch day and applies all transitions due on
+   * or before it. Moving the clock backwards has no effect.
+   *
+   * @param day The new current epoch day.
+   */
+  public synchronized void advanceTo(int day) {
+    if (day < currentDay) {
+      return;
+    }
+    currentDay = day;
+    Map.Entry<Integer, Queue<Item>> due;
+    while ((due = transitions.firstEntry()) != null && due.getKey() <= day) {
+      transitions.remove(due.getKey(), due.getValue()); // Taken out first, so later items go to a new queue
+      Item item;
+      while ((item = due.getValue().poll()) != null) {
+        pending.decrementAndGet();
+        updateAvailability(item, day);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of transitions that are not yet due.
+   *
+   * @return The number of pending transitions.
+   */
+  public int pendingTransitions() {
+    return pending.get();
+  }
+
+  /*
+   * Sets an item as available unless one of its contracts is active on a day.
+   */
+  private void updateAvailability(Item item, int day) {
+    item.setisItemAvailable(!item.hasTimeConflict(day, day));
+  }
+}
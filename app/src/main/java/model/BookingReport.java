@@ -0,0 +1,66 @@
+package model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes the outcome of a batch booking: either every booking was made and
+ * paid for, or none was and the rejected bookings say why.
+ */
+public class BookingReport {
+  private final List<Contract> contracts;
+  private final long totalCost;
+  private final List<String> rejectedBookings;
+
+  /**
+   * Constructs a report.
+   *
+   * @param contracts        The contracts made, empty if the batch was rejected.
+   * @param totalCost        The combined cost of all bookings in the batch.
+   * @param rejectedBookings A description of every rejected booking, in batch
+   *                         order.
+   */
+  BookingReport(List<Contract> contracts, long totalCost, List<String> rejectedBookings) {
+    this.contracts = Collections.unmodifiableList(contracts);
+    this.totalCost = totalCost;
+    this.rejectedBookings = Collections.unmodifiableList(rejectedBookings);
+  }
+
+  /**
+   * Checks if the bookings were made.
+   *
+   * @return True if every booking was made, false if none was.
+   */
+  public boolean isBooked() {
+    return rejectedBookings.isEmpty();
+  }
+
+  /**
+   * Gets the contracts made.
+   *
+   * @return A read-only list of the contracts, in batch order, empty if the
+   *         batch was rejected.
+   */
+  public List<Contract> getContracts() {
+    return contracts;
+  }
+
+  /**
+   * Gets the combined cost of all bookings in the batch.
+   *
+   * @return The cost in credits.
+   */
+  public long getTotalCost() {
+    return totalCost;
+  }
+
+  /**
+   * Gets a description of every rejected booking, starting with its number in
+   * the batch.
+   *
+   * @return A read-only list of the rejected bookings, in batch order.
+   */
+  public List<String> getRejectedBookings() {
+    return rejectedBookings;
+  }
+}
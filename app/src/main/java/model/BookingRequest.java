@@ -0,0 +1,59 @@
+package model;
+
+/**
+ * One booking in a batch: an item and the dates, inclusive, to borrow it.
+ */
+public class BookingRequest {
+  private final Item item;
+  private final SimpleDate startDate;
+  private final SimpleDate endDate;
+
+  /**
+   * Constructs a booking request.
+   *
+   * @param item      The item to borrow.
+   * @param startDate The start date of the booking.
+   * @param endDate   The end date of the booking.
+   */
+  public BookingRequest(Item item, SimpleDate startDate, SimpleDate endDate) {
+    this.item = item;
+    this.startDate = startDate;
+    this.endDate = endDate;
+  }
+
+  /**
+   * Gets the item to borrow.
+   *
+   * @return The item.
+   */
+  public Item getItem() {
+    return item;
+  }
+
+  /**
+   * Gets the start date of the booking.
+   *
+   * @return The start date.
+   */
+  public SimpleDate getStartDate() {
+    return startDate;
+  }
+
+  /**
+   * Gets the end date of the booking.
+   *
+   * @return The end date.
+   */
+  public SimpleDate getEndDate() {
+    return endDate;
+  }
+
+  /**
+   * Gets the cost of the booking at the current price of the item.
+   *
+   * @return The cost in credits.
+   */
+  public long getCost() {
+    return (long) startDate.daysBetween(endDate) * item.getcostPerDay();
+  }
+}
@@ -0,0 +1,478 @@
+package model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Imports members and items in bulk from a CSV or JSON Lines file, for example
+ * when a partner organisation joins.
+ *
+ * <p>Every row is either a member or an item. In CSV the first column names the
+ * kind of row, and a header line starting with "type" is skipped:
+ *
+ * <pre>
+ * member,username,password,email,phoneNumber
+ * item,ownerUsername,name,costPerDay,description,category
+ * </pre>
+ *
+ * <p>In JSON Lines every line is an object with a "type" of "member" or "item"
+ * and the same fields by name, with "owner" for the owner's username. Files
+ * ending in .jsonl, .ndjson or .json are read as JSON Lines, all others as
+ * CSV. An item may belong to a member added earlier in the same file. If the
+ * file has a member row for the owner's username, the item belongs to that
+ * member only, and is rejected with it.
+ *
+ * <p>The lines are parsed and checked in parallel chunks. Uniqueness of
+ * usernames, email addresses and phone numbers is then checked in one pass
+ * against the register's indexes and the rows already accepted, and the
+ * accepted members and items are added to the register together. The pass and
+ * the adding hold the register's lock exclusively, so no member registering
+ * meanwhile can take a username, email address or phone number that was found
+ * free. All items get the same registration date and the usual credits for
+ * adding an item.
+ */
+public class BulkImporter {
+  private static final int CHUNK_LINES = 2048;
+  private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
+  private static final Pattern PHONE_NUMBER_PATTERN = Pattern.compile("^(\\+46|0|46)?[1-9]\\d{8}$");
+  private static final String[] MEMBER_FIELDS = {"username", "password", "email", "phoneNumber"};
+  private static final String[] ITEM_FIELDS = {"owner", "name", "costPerDay", "description", "category"};
+
+  private final UserRegister register;
+
+  /**
+   * Constructs an importer adding to a register.
+   *
+   * @param register The register to add the members and items to.
+   */
+  public BulkImporter(UserRegister register) {
+    this.register = register;
+  }
+
+  /**
+   * Imports the members and items of a file. Rows that cannot be parsed, break
+   * a rule or clash with an existing user are rejected and reported; all other
+   * rows are added.
+   *
+   * @param file The CSV or JSON Lines file.
+   * @return The outcome of the import.
+   * @throws IOException if the file cannot be read.
+   */
+  public ImportReport importFile(Path file) throws IOException {
+    long start = System.nanoTime();
+    List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    String fileName = file.getFileName() == null ? "" : file.getFileName().toString().toLowerCase(Locale.ROOT);
+    boolean json = fileName.endsWith(".jsonl") || fileName.endsWith(".ndjson") || fileName.endsWith(".json");
+
+    int chunks = (lines.size() + CHUNK_LINES - 1) / CHUNK_LINES;
+    List<List<Row>> parsedChunks = IntStream.range(0, chunks).parallel()
+        .mapToObj(chunk -> parseChunk(lines, chunk * CHUNK_LINES, json))
+        .collect(Collectors.toList());
+    return register.changeExclusively(() -> addRows(parsedChunks, start));
+  }
+
+  /*
+   * Checks the parsed rows against the register and each other and adds the
+   * accepted ones. Called with the register's lock held exclusively.
+   */
+  private ImportReport addRows(List<List<Row>> parsedChunks, long start) {
+    Set<String> memberRowUsernames = new HashSet<>(); // Usernames of all member rows, accepted or not
+    for (List<Row> chunk : parsedChunks) {
+      for (Row row : chunk) {
+        if (row.member && row.fields != null) {
+          memberRowUsernames.add(row.fields[0]);
+        }
+      }
+    }
+
+    List<String> rejectedRows = new ArrayList<>();
+    Set<String> usernames = new HashSet<>();
+    Set<String> emails = new HashSet<>();
+    Set<String> phoneNumbers = new HashSet<>();
+    Map<String, Member> newMembersByUsername = new LinkedHashMap<>();
+    Map<Member, List<Item>> itemsByOwner = new LinkedHashMap<>();
+    int rows = 0;
+    int itemsImported = 0;
+    for (List<Row> chunk : parsedChunks) {
+      for (Row row : chunk) {
+        rows++;
+        if (row.error != null) {
+          rejectedRows.add(row.describe(row.error));
+        } else if (row.member) {
+          String[] fields = row.fields;
+          String email = fields[2].toLowerCase(Locale.ROOT);
+          // A rejected row takes nothing, so a later row may still use its other values
+          if (usernames.contains(fields[0]) || !register.isUsernameUnique(fields[0])) {
+            rejectedRows.add(row.describe("the username is already taken"));
+          } else if (emails.contains(email) || !register.isEmailUnique(email)) {
+            rejectedRows.add(row.describe("the email address is already registered"));
+          } else if (phoneNumbers.contains(fields[3]) || !register.isPhoneNumberUnique(fields[3])) {
+            rejectedRows.add(row.describe("the phone number is already registered"));
+          } else {
+            usernames.add(fields[0]);
+            emails.add(email);
+            phoneNumbers.add(fields[3]);
+            newMembersByUsername.put(fields[0], new Member(fields[0], fields[1], fields[2], fields[3]));
+          }
+        } else {
+          String ownerUsername = row.fields[0];
+          Member owner = findOwner(newMembersByUsername, memberRowUsernames, ownerUsername);
+          if (owner == null && memberRowUsernames.contains(ownerUsername)) {
+            rejectedRows.add(row.describe("the owner's member row was rejected or comes after the item"));
+          } else if (owner == null) {
+            rejectedRows.add(row.describe("the owner is not a member"));
+          } else {
+            Item item = new Item(row.fields[1], Integer.parseInt(row.fields[2]), row.fields[3],
+                CategoryEnum.valueOf(row.fields[4].toUpperCase(Locale.ROOT)));
+            itemsByOwner.computeIfAbsent(owner, key -> new ArrayList<>()).add(item);
+            itemsImported++;
+          }
+        }
+      }
+    }
+
+    // Items of new members are added before the members are registered, so
+    // they are stored with them; items of existing members are added after
+    LocalDate dayOfRegistration = LocalDate.now();
+    List<Member> newMembers = new ArrayList<>(newMembersByUsername.values());
+    Map<Member, List<Item>> itemsOfExistingMembers = new LinkedHashMap<>();
+    for (Map.Entry<Member, List<Item>> entry : itemsByOwner.entrySet()) {
+      Member owner = entry.getKey();
+      if (newMembersByUsername.get(owner.getUsername()) == owner) {
+        owner.addItems(entry.getValue(), dayOfRegistration);
+      } else {
+        itemsOfExistingMembers.put(owner, entry.getValue());
+      }
+    }
+    if (!newMembers.isEmpty() || !itemsOfExistingMembers.isEmpty()) {
+      register.importMembersAndItems(newMembers, itemsOfExistingMembers, dayOfRegistration);
+    }
+    return new ImportReport(rows, newMembers.size(), itemsImported, rejectedRows, System.nanoTime() - start);
+  }
+
+  /*
+   * Finds the owner of an item among the members of the import, then among the
+   * registered members. Registered members are only looked at if the file has
+   * no member row for the username, so the items of a rejected member never go
+   * to another member who already has that username.
+   */
+  private Member findOwner(Map<String, Member> newMembersByUsername, Set<String> memberRowUsernames,
+      String username) {
+    if (memberRowUsernames.contains(username)) {
+      return newMembersByUsername.get(username);
+    }
+    Iuser iuser = register.getIuserByUsername(username);
+    return iuser instanceof Member ? (Member) iuser : null;
+  }
+
+  /*
+   * Parses and checks the lines of one chunk. Blank lines and a CSV header are
+   * skipped.
+   */
+  private static List<Row> parseChunk(List<String> lines, int from, boolean json) {
+    int to = Math.min(from + CHUNK_LINES, lines.size());
+    List<Row> rows = new ArrayList<>(to - from);
+    for (int index = from; index < to; index++) {
+      String line = lines.get(index).trim();
+      if (line.isEmpty() || (!json && index == 0 && line.toLowerCase(Locale.ROOT).startsWith("type,"))) {
+        continue;
+      }
+      Row row = new Row(index + 1);
+      try {
+        String[] values = json ? readJsonFields(line) : readCsvFields(line);
+        row.error = checkRow(row, values);
+      } catch (IllegalArgumentException e) {
+        row.error = e.getMessage();
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  /*
+   * Checks the values of a row, in CSV order with the type first, and fills in
+   * the row. Returns the reason the row is rejected, or null if it is valid.
+   */
+  private static String checkRow(Row row, String[] values) {
+    String type = values[0].trim().toLowerCase(Locale.ROOT);
+    if (type.equals("member")) {
+      if (values.length != MEMBER_FIELDS.length + 1) {
+        return "a member needs " + MEMBER_FIELDS.length + " fields";
+      }
+      row.member = true;
+      row.fields = trimmed(values);
+      if (row.fields[0].length() < 3) {
+        return "the username must be at least 3 characters";
+      }
+      if (row.fields[1].length() < 8) {
+        return "the password must be at least 8 characters";
+      }
+      if (!EMAIL_PATTERN.matcher(row.fields[2]).matches()) {
+        return "the email address is not valid";
+      }
+      if (!PHONE_NUMBER_PATTERN.matcher(row.fields[3]).matches()) {
+        return "the phone number is not valid";
+      }
+      return null;
+    }
+    if (type.equals("item")) {
+      if (values.length != ITEM_FIELDS.length + 1) {
+        return "an item needs " + ITEM_FIELDS.length + " fields";
+      }
+      row.fields = trimmed(values);
+      if (row.fields[1].length() < 3) {
+        return "the name must be at least 3 characters";
+      }
+      int cost;
+      try {
+        cost = Integer.parseInt(row.fields[2]);
+      } catch (NumberFormatException e) {
+        return "the cost per day is not a number";
+      }
+      if (cost < 1 || cost > 1000) {
+        return "the cost per day must be between 1 and 1000";
+      }
+      if (row.fields[3].length() < 10) {
+        return "the description must be at least 10 characters";
+      }
+      try {
+        CategoryEnum.valueOf(row.fields[4].toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        return "the category is not known";
+      }
+      return null;
+    }
+    return "the type must be member or item";
+  }
+
+  /*
+   * Returns the values after the type, without surrounding spaces.
+   */
+  private static String[] trimmed(String[] values) {
+    String[] fields = new String[values.length - 1];
+    for (int i = 1; i < values.length; i++) {
+      fields[i - 1] = values[i].trim();
+    }
+    return fields;
+  }
+
+  /*
+   * Splits a CSV line into its values. Values may be quoted with double quotes,
+   * and a double quote inside a quoted value is written twice.
+   */
+  private static String[] readCsvFields(String line) {
+    List<String> values = new ArrayList<>();
+    StringBuilder value = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c != '"') {
+          value.append(c);
+        } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          value.append('"');
+          i++;
+        } else {
+          quoted = false;
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        values.add(value.toString());
+        value.setLength(0);
+      } else {
+        value.append(c);
+      }
+    }
+    if (quoted) {
+      throw new IllegalArgumentException("a quoted value is not closed");
+    }
+    values.add(value.toString());
+    return values.toArray(new String[0]);
+  }
+
+  /*
+   * Reads a JSON object of strings and numbers and returns its values in CSV
+   * order, with the type first.
+   */
+  private static String[] readJsonFields(String line) {
+    Map<String, String> object = new JsonObjectReader(line).read();
+    String type = object.get("type");
+    if (type == null) {
+      throw new IllegalArgumentException("the type is missing");
+    }
+    String[] names = type.equalsIgnoreCase("member") ? MEMBER_FIELDS
+        : type.equalsIgnoreCase("item") ? ITEM_FIELDS : new String[0];
+    String[] values = new String[names.length + 1];
+    values[0] = type;
+    for (int i = 0; i < names.length; i++) {
+      values[i + 1] = object.get(names[i]);
+      if (values[i + 1] == null) {
+        throw new IllegalArgumentException("the field " + names[i] + " is missing");
+      }
+    }
+    return values;
+  }
+
+  /*
+   * One parsed line of the file.
+   */
+  private static class Row {
+    private final int lineNumber;
+    private boolean member; // True for a member, false for an item
+    private String[] fields; // The values after the type, in CSV order
+    private String error; // Why the row is rejected, or null
+
+    private Row(int lineNumber) {
+      this.lineNumber = lineNumber;
+    }
+
+    private String describe(String reason) {
+      return "Line " + lineNumber + ": " + reason;
+    }
+  }
+
+  /*
+   * Reads one flat JSON object whose values are strings, numbers, booleans or
+   * null. Numbers and booleans are returned as written; null values are left
+   * out.
+   */
+  private static class JsonObjectReader {
+    private final String text;
+    private int position;
+
+    private JsonObjectReader(String text) {
+      this.text = text;
+    }
+
+    private Map<String, String> read() {
+      Map<String, String> object = new HashMap<>();
+      expect('{');
+      skipSpaces();
+      if (peek() == '}') {
+        position++;
+      } else {
+        while (true) {
+          skipSpaces();
+          String name = readString();
+          skipSpaces();
+          expect(':');
+          skipSpaces();
+          String value = peek() == '"' ? readString() : readLiteral();
+          if (!value.equals("null")) {
+            object.put(name, value);
+          }
+          skipSpaces();
+          if (peek() == ',') {
+            position++;
+          } else {
+            expect('}');
+            break;
+          }
+        }
+      }
+      skipSpaces();
+      if (position != text.length()) {
+        throw new IllegalArgumentException("unexpected text after the object");
+      }
+      return object;
+    }
+
+    private String readString() {
+      expect('"');
+      StringBuilder value = new StringBuilder();
+      while (true) {
+        char c = next();
+        if (c == '"') {
+          return value.toString();
+        }
+        if (c != '\\') {
+          value.append(c);
+          continue;
+        }
+        char escaped = next();
+        switch (escaped) {
+          case 'b':
+            value.append('\b');
+            break;
+          case 'f':
+            value.append('\f');
+            break;
+          case 'n':
+            value.append('\n');
+            break;
+          case 'r':
+            value.append('\r');
+            break;
+          case 't':
+            value.append('\t');
+            break;
+          case 'u':
+            if (position + 4 > text.length()) {
+              throw new IllegalArgumentException("the JSON is not valid");
+            }
+            try {
+              value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+            } catch (NumberFormatException e) {
+              throw new IllegalArgumentException("the JSON is not valid");
+            }
+            position += 4;
+            break;
+          default:
+            value.append(escaped); // Quote, backslash and slash
+            break;
+        }
+      }
+    }
+
+    private String readLiteral() {
+      int start = position;
+      while (position < text.length() && ",} \t".indexOf(text.charAt(position)) < 0) {
+        position++;
+      }
+      if (start == position || text.charAt(start) == '{' || text.charAt(start) == '[') {
+        throw new IllegalArgumentException("only strings and numbers are supported");
+      }
+      return text.substring(start, position);
+    }
+
+    private void skipSpaces() {
+      while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+        position++;
+      }
+    }
+
+    private char peek() {
+      if (position >= text.length()) {
+        throw new IllegalArgumentException("the JSON ends too early");
+      }
+      return text.charAt(position);
+    }
+
+    private char next() {
+      char c = peek();
+      position++;
+      return c;
+    }
+
+    private void expect(char expected) {
+      if (next() != expected) {
+        throw new IllegalArgumentException("the JSON is not valid");
+      }
+    }
+  }
+}
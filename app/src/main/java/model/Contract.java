@@ -1,12 +1,11 @@
 package model;
 
-import java.util.UUID;
-
 /**
  * Represents a contract created by a member.
  */
 public class Contract {
-  private String contractId;
+  private final long contractKey;
+  private String contractId; // Text form of the ID, created when first needed
   private SimpleDate startDate;
   private SimpleDate endDate;
   private Item item;
@@ -24,21 +23,27 @@ public class Contract {
    * @param borrower  The member who is borrowing the item.
    */
   public Contract(SimpleDate startDate, SimpleDate endDate, Item item, Member lender, Member borrower) {
-    this.contractId = generateContractId();
-    setStartDate(startDate);
-    setEndDate(endDate);
-    setItem(item);
-    setLender(lender);
-    setBorrower(borrower);
+    this(EntityIds.next(), startDate, endDate, item, lender, borrower);
   }
 
   /**
-   * Set a unique contract ID.
+   * Constructs a contract with an existing ID, used when the register is
+   * rebuilt.
    *
-   * @return a unique ID string for the contract.
+   * @param contractKey The ID of the contract.
+   * @param startDate   The start date of the contract.
+   * @param endDate     The end date of the contract.
+   * @param item        The item involved in the contract.
+   * @param lender      The member who is lending the item.
+   * @param borrower    The member who is borrowing the item.
    */
-  private String generateContractId() {
-    return UUID.randomUUID().toString();
+  Contract(long contractKey, SimpleDate startDate, SimpleDate endDate, Item item, Member lender, Member borrower) {
+    this.contractKey = contractKey;
+    setStartDate(startDate);
+    setEndDate(endDate);
+    setItem(item);
+    setLender(lender);
+    setBorrower(borrower);
   }
 
   /**
@@ -102,9 +107,21 @@ public class Contract {
    * @return The unique identifier for the contract.
    */
   public String getContractId() {
+    if (contractId == null) {
+      contractId = EntityIds.toDisplayString(contractKey);
+    }
     return contractId;
   }
 
+  /**
+   * Retrieves the contract's numeric ID, used by the registers.
+   *
+   * @return The numeric identifier for the contract.
+   */
+  public long getContractKey() {
+    return contractKey;
+  }
+
   /**
    * Retrieves the start date of the contract.
    *
@@ -133,23 +150,39 @@ public class Contract {
   }
 
   /**
-   * Retrieves the member who is lending the item.
+   * Retrieves the numeric ID of the member who is lending the item.
    *
-   * @return The member who is lending the item.
+   * @return The ID of the lender.
    */
-  public Member getLender() {
-    // Return a defensive copy of the lender object
-    return new Member(lender.getUsername(), lender.getPassword(), lender.getEmail(), lender.getPhoneNumber());
+  public long getLenderKey() {
+    return lender.getKey();
   }
 
   /**
-   * Retrieves the member who is lending the item.
+   * Retrieves the numeric ID of the member who is borrowing the item.
+   *
+   * @return The ID of the borrower.
+   */
+  public long getBorrowerKey() {
+    return borrower.getKey();
+  }
+
+  /**
+   * Retrieves a read-only view of the member who is lending the item.
    *
    * @return The member who is lending the item.
    */
-  public Member getBorrower() {
-    // Return a defensive copy of the borrower object
-    return new Member(borrower.getUsername(), borrower.getPassword(), borrower.getEmail(), borrower.getPhoneNumber());
+  public ContractParty getLender() {
+    return lender.getPartyView();
+  }
+
+  /**
+   * Retrieves a read-only view of the member who is borrowing the item.
+   *
+   * @return The member who is borrowing the item.
+   */
+  public ContractParty getBorrower() {
+    return borrower.getPartyView();
   }
 
 }
@@ -0,0 +1,208 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The ContractIntervalIndex class keeps the contracts of one item sorted by
+ * start date. The contracts of an item never overlap, so they are sorted by end
+ * date as well, which lets overlap checks and free window lookups use binary
+ * search instead of looking at every contract of the item. Dates are compared
+ * as epoch days, so lookups do not allocate.
+ *
+ * <p>The index is the reservation set of the item. The contracts are kept in
+ * an array that is never changed; adding or removing a contract builds a new
+ * array and swaps it in with compare-and-set, and starts over if another
+ * thread swapped in its own array first. A contract is only added if it does
+ * not overlap the array it replaces, so two racing bookings of the same dates
+ * cannot both succeed, and booking an item nobody else is booking takes no
+ * lock. Lookups read the array once and work on that copy.
+ */
+public class ContractIntervalIndex {
+
+  private static final Contract[] NO_CONTRACTS = new Contract[0];
+
+  // Shared empty array until the first contract, most items have none
+  private final AtomicReference<Contract[]> contracts = new AtomicReference<>(NO_CONTRACTS);
+
+  /**
+   * Adds a contract to the index if it does not overlap any contract already
+   * in the index. The check and the addition are one atomic step.
+   *
+   * @param contract The contract to add.
+   * @return True if the contract was added, false if it overlaps a contract.
+   */
+  boolean tryAdd(Contract contract) {
+    int startDay = contract.getStartDate().getEpochDay();
+    int endDay = contract.getEndDate().getEpochDay();
+    Contract[] current;
+    Contract[] grown;
+    do {
+      current = contracts.get();
+      if (overlaps(current, startDay, endDay)) {
+        return false;
+      }
+      int position = firstStartingAfter(current, startDay);
+      grown = new Contract[current.length + 1];
+      System.arraycopy(current, 0, grown, 0, position);
+      grown[position] = contract;
+      System.arraycopy(current, position, grown, position + 1, current.length - position);
+    } while (!contracts.compareAndSet(current, grown)); // Another booking or removal came first, check again
+    return true;
+  }
+
+  /**
+   * Removes a contract from the index.
+   *
+   * @param contract The contract to remove.
+   * @return True if the contract was removed, false if it was not in the index.
+   */
+  boolean remove(Contract contract) {
+    Contract[] current;
+    Contract[] shrunk;
+    do {
+      current = contracts.get();
+      int position = lastStartingOnOrBefore(current, contract.getStartDate().getEpochDay());
+      if (position < 0 || current[position] != contract) {
+        position = Arrays.asList(current).indexOf(contract);
+      }
+      if (position < 0) {
+        return false;
+      }
+      shrunk = current.length == 1 ? NO_CONTRACTS : new Contract[current.length - 1];
+      System.arraycopy(current, 0, shrunk, 0, position);
+      System.arraycopy(current, position + 1, shrunk, position, current.length - position - 1);
+    } while (!contracts.compareAndSet(current, shrunk));
+    return true;
+  }
+
+  /**
+   * Gets the contracts in the index, ordered by start date, as they are at the
+   * time of the call.
+   *
+   * @return A read-only list of the contracts.
+   */
+  List<Contract> getContracts() {
+    return Collections.unmodifiableList(Arrays.asList(contracts.get()));
+  }
+
+  /**
+   * Checks if a date range, inclusive, overlaps any contract in the index.
+   *
+   * @param startDate The start date of the range.
+   * @param endDate   The end date of the range.
+   * @return True if the range overlaps a contract, false otherwise.
+   */
+  public boolean overlaps(SimpleDate startDate, SimpleDate endDate) {
+    return overlaps(startDate.getEpochDay(), endDate.getEpochDay());
+  }
+
+  /**
+   * Checks if a range of epoch days, inclusive, overlaps any contract in the
+   * index.
+   *
+   * @param startDay The first epoch day of the range.
+   * @param endDay   The last epoch day of the range.
+   * @return True if the range overlaps a contract, false otherwise.
+   */
+  public boolean overlaps(int startDay, int endDay) {
+    return overlaps(contracts.get(), startDay, endDay);
+  }
+
+  /**
+   * Finds the first start date on or after a date at which a contract of the
+   * given length, counted as in SimpleDate.daysBetween, fits between the
+   * contracts in the index.
+   *
+   * @param fromDate     The earliest start date.
+   * @param lengthInDays The number of days between start and end date.
+   * @return The first free start date.
+   */
+  public SimpleDate findNextFreeStartDate(SimpleDate fromDate, int lengthInDays) {
+    return SimpleDate.ofEpochDay(findNextFreeStartDay(fromDate.getEpochDay(), lengthInDays));
+  }
+
+  /**
+   * Finds the first start epoch day on or after an epoch day at which a contract
+   * of the given length fits between the contracts in the index.
+   *
+   * @param fromDay      The earliest start epoch day.
+   * @param lengthInDays The number of days between start and end day.
+   * @return The first free start epoch day.
+   */
+  public int findNextFreeStartDay(int fromDay, int lengthInDays) {
+    Contract[] current = contracts.get();
+    int candidate = fromDay;
+    int position = lastStartingOnOrBefore(current, candidate);
+    if (position >= 0 && endDayOf(current, position) >= candidate) {
+      candidate = endDayOf(current, position) + 1;
+    }
+    for (int next = position + 1; next < current.length; next++) {
+      if (startDayOf(current, next) > candidate + lengthInDays) {
+        break; // The window before this contract is long enough
+      }
+      candidate = endDayOf(current, next) + 1;
+    }
+    return candidate;
+  }
+
+  /**
+   * Returns the number of contracts in the index.
+   *
+   * @return The number of contracts.
+   */
+  public int size() {
+    return contracts.get().length;
+  }
+
+  /*
+   * Checks if a range of epoch days overlaps any contract in an array of the
+   * index. Only the last contract starting on or before the end of the range
+   * can reach into it, as every earlier contract also ends earlier.
+   */
+  private static boolean overlaps(Contract[] contracts, int startDay, int endDay) {
+    int position = lastStartingOnOrBefore(contracts, endDay);
+    return position >= 0 && endDayOf(contracts, position) >= startDay;
+  }
+
+  /*
+   * Gets the start epoch day of the contract at a position.
+   */
+  private static int startDayOf(Contract[] contracts, int position) {
+    return contracts[position].getStartDate().getEpochDay();
+  }
+
+  /*
+   * Gets the end epoch day of the contract at a position.
+   */
+  private static int endDayOf(Contract[] contracts, int position) {
+    return contracts[position].getEndDate().getEpochDay();
+  }
+
+  /*
+   * Binary search for the last contract starting on or before a day, or -1.
+   */
+  private static int lastStartingOnOrBefore(Contract[] contracts, int day) {
+    return firstStartingAfter(contracts, day) - 1;
+  }
+
+  /*
+   * Binary search for the first contract starting after a day, or the number
+   * of contracts if there is none.
+   */
+  private static int firstStartingAfter(Contract[] contracts, int day) {
+    int low = 0;
+    int high = contracts.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (startDayOf(contracts, middle) > day) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+    return low;
+  }
+}
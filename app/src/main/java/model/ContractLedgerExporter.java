@@ -0,0 +1,211 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Exports all contracts of a register as NDJSON, one JSON object per line:
+ *
+ * <pre>
+ * {"id":"...","item":"...","itemName":"...","lender":"...","borrower":"...",
+ *  "start":"2024-01-31","end":"2024-02-02","cost":40}
+ * </pre>
+ *
+ * <p>IDs are in the text form shown to users. Rows are encoded straight into a
+ * direct buffer that is reused for every export on the same thread, and the
+ * buffer is written to a FileChannel whenever it fills up. The contracts are
+ * read from the contract register without copying, so the memory used does
+ * not grow with the number of contracts.
+ */
+public class ContractLedgerExporter {
+  private static final int BUFFER_BYTES = 64 * 1024;
+  private static final int MAX_CHAR_BYTES = 6; // The longest form of a character, an escaped control character
+  private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+  private static final ThreadLocal<ByteBuffer> BUFFERS =
+      ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_BYTES));
+
+  private final ContractRegister contractRegister;
+  private final byte[] digits = new byte[20]; // Enough for any long in any radix from 10 up
+  private ByteBuffer buffer;
+  private FileChannel channel;
+
+  /**
+   * Constructs an exporter for the contracts of a register.
+   *
+   * @param contractRegister The contract register to export.
+   */
+  public ContractLedgerExporter(ContractRegister contractRegister) {
+    this.contractRegister = contractRegister;
+  }
+
+  /**
+   * Writes all contracts to a file, replacing the file if it exists.
+   *
+   * @param file The file to write.
+   * @return The number of contracts written.
+   * @throws IOException if the file cannot be written.
+   */
+  public long export(Path file) throws IOException {
+    long rows = 0;
+    buffer = BUFFERS.get();
+    buffer.clear();
+    try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      channel = fileChannel;
+      for (Contract contract : contractRegister.getAllContracts()) {
+        writeContract(contract);
+        rows++;
+      }
+      flush();
+    } finally {
+      channel = null;
+      buffer = null;
+    }
+    return rows;
+  }
+
+  /*
+   * Encodes one contract as a line of JSON.
+   */
+  private void writeContract(Contract contract) throws IOException {
+    Item item = contract.getItem();
+    writeAscii("{\"id\":\"");
+    writeId(contract.getContractKey());
+    writeAscii("\",\"item\":\"");
+    writeId(item.getKey());
+    writeAscii("\",\"itemName\":\"");
+    writeEscaped(item.getName());
+    writeAscii("\",\"lender\":\"");
+    writeId(contract.getLenderKey());
+    writeAscii("\",\"borrower\":\"");
+    writeId(contract.getBorrowerKey());
+    writeAscii("\",\"start\":\"");
+    writeDate(contract.getStartDate());
+    writeAscii("\",\"end\":\"");
+    writeDate(contract.getEndDate());
+    writeAscii("\",\"cost\":");
+    writeNumber(contract.getCost(), 10);
+    writeAscii("}\n");
+  }
+
+  /*
+   * Writes an ID in its text form.
+   */
+  private void writeId(long id) throws IOException {
+    writeNumber(id, EntityIds.DISPLAY_RADIX);
+  }
+
+  /*
+   * Writes a date as yyyy-MM-dd.
+   */
+  private void writeDate(SimpleDate date) throws IOException {
+    writePadded(date.getYear(), 4);
+    writeByte('-');
+    writePadded(date.getMonth(), 2);
+    writeByte('-');
+    writePadded(date.getDay(), 2);
+  }
+
+  /*
+   * Writes a non-negative number with leading zeros up to a width.
+   */
+  private void writePadded(int value, int width) throws IOException {
+    int length = 1;
+    for (int rest = value / 10; rest > 0; rest /= 10) {
+      length++;
+    }
+    for (; length < width; length++) {
+      writeByte('0');
+    }
+    writeNumber(value, 10);
+  }
+
+  /*
+   * Writes a number in a radix without creating a string.
+   */
+  private void writeNumber(long value, int radix) throws IOException {
+    if (value < 0) {
+      writeByte('-');
+      value = -value;
+    }
+    int length = 0;
+    do {
+      digits[digits.length - ++length] = (byte) Character.forDigit((int) (value % radix), radix);
+      value /= radix;
+    } while (value > 0);
+    ensureRoom(length);
+    buffer.put(digits, digits.length - length, length);
+  }
+
+  /*
+   * Writes text known to be plain ASCII without escapes.
+   */
+  private void writeAscii(String text) throws IOException {
+    ensureRoom(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      buffer.put((byte) text.charAt(i));
+    }
+  }
+
+  /*
+   * Writes text as the inside of a JSON string, encoded as UTF-8.
+   */
+  private void writeEscaped(String text) throws IOException {
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      ensureRoom(MAX_CHAR_BYTES);
+      if (c == '"' || c == '\\') {
+        buffer.put((byte) '\\').put((byte) c);
+      } else if (c < 0x20) {
+        buffer.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0')
+            .put(HEX_DIGITS[c >> 4]).put(HEX_DIGITS[c & 0xf]);
+      } else if (c < 0x80) {
+        buffer.put((byte) c);
+      } else if (c < 0x800) {
+        buffer.put((byte) (0xc0 | c >> 6)).put((byte) (0x80 | c & 0x3f));
+      } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+          && Character.isLowSurrogate(text.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, text.charAt(++i));
+        buffer.put((byte) (0xf0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3f))
+            .put((byte) (0x80 | codePoint >> 6 & 0x3f)).put((byte) (0x80 | codePoint & 0x3f));
+      } else if (Character.isSurrogate(c)) {
+        buffer.put((byte) '?'); // A lone surrogate has no UTF-8 form
+      } else {
+        buffer.put((byte) (0xe0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3f)).put((byte) (0x80 | c & 0x3f));
+      }
+    }
+  }
+
+  /*
+   * Writes one ASCII character.
+   */
+  private void writeByte(char c) throws IOException {
+    ensureRoom(1);
+    buffer.put((byte) c);
+  }
+
+  /*
+   * Writes the buffer to the file if fewer than the given number of bytes are
+   * left in it.
+   */
+  private void ensureRoom(int bytes) throws IOException {
+    if (buffer.remaining() < bytes) {
+      flush();
+    }
+  }
+
+  /*
+   * Writes the contents of the buffer to the file and empties the buffer.
+   */
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+}
@@ -0,0 +1,52 @@
+package model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents one page of a member's contracts in date order. A page is also the
+ * cursor for the next page: pass it back to ContractRegister to continue after
+ * its last contract.
+ */
+public class ContractPage {
+  private final List<Contract> contracts;
+  private final boolean hasNextPage;
+
+  /**
+   * Constructs a page.
+   *
+   * @param contracts   The contracts on the page, in date order.
+   * @param hasNextPage True if more contracts follow the page.
+   */
+  ContractPage(List<Contract> contracts, boolean hasNextPage) {
+    this.contracts = Collections.unmodifiableList(contracts);
+    this.hasNextPage = hasNextPage;
+  }
+
+  /**
+   * Gets the contracts on the page.
+   *
+   * @return A read-only list of the contracts, in date order.
+   */
+  public List<Contract> getContracts() {
+    return contracts;
+  }
+
+  /**
+   * Checks if more contracts follow this page.
+   *
+   * @return True if there is a next page, false otherwise.
+   */
+  public boolean hasNextPage() {
+    return hasNextPage;
+  }
+
+  /**
+   * Gets the last contract on the page, which the next page starts after.
+   *
+   * @return The last contract, or null if the page is empty.
+   */
+  Contract getLastContract() {
+    return contracts.isEmpty() ? null : contracts.get(contracts.size() - 1);
+  }
+}
@@ -0,0 +1,65 @@
+package model;
+
+/**
+ * An immutable, read-only view of a member taking part in a contract. Each
+ * member keeps one view and replaces it when its username or email changes, so
+ * contracts can hand it out without creating new objects.
+ */
+public final class ContractParty {
+  private final long key;
+  private String id; // Text form of the ID, created when first needed
+  private final String username;
+  private final String email;
+
+  /**
+   * Constructs a party view.
+   *
+   * @param key      The ID of the member.
+   * @param username The username of the member.
+   * @param email    The email address of the member.
+   */
+  ContractParty(long key, String username, String email) {
+    this.key = key;
+    this.username = username;
+    this.email = email;
+  }
+
+  /**
+   * Gets the ID of the member.
+   *
+   * @return The ID of the member.
+   */
+  public String getId() {
+    if (id == null) {
+      id = EntityIds.toDisplayString(key);
+    }
+    return id;
+  }
+
+  /**
+   * Gets the numeric ID of the member.
+   *
+   * @return The numeric ID of the member.
+   */
+  public long getKey() {
+    return key;
+  }
+
+  /**
+   * Gets the username of the member.
+   *
+   * @return The username of the member.
+   */
+  public String getUsername() {
+    return username;
+  }
+
+  /**
+   * Gets the email address of the member.
+   *
+   * @return The email address of the member.
+   */
+  public String getEmail() {
+    return email;
+  }
+}
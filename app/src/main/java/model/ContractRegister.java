@@ -0,0 +1,384 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The ContractRegister class keeps every contract in the system together with
+ * secondary indexes by item, borrower, lender, start date and end date. The
+ * borrower and lender indexes keep each member's contracts in date order, so
+ * they can be read one page at a time.
+ * It is updated as contracts are added to and deleted from items, so readers
+ * never have to rebuild the full list of contracts, and it feeds the
+ * availability scheduler.
+ *
+ * <p>The register is safe to use from many threads and takes no lock, so
+ * bookings of different items never wait for each other here. Every index is
+ * a concurrent map of buckets. An item has few contracts, so its bucket is an
+ * array that is never changed and is replaced when a contract is added or
+ * removed; a member's bucket is a concurrent sorted set, and a day's bucket a
+ * concurrent queue. A bucket of the item and member indexes is created and
+ * dropped atomically with its map entry; the buckets of the date indexes, one
+ * per day, are kept when they empty. The indexes are updated one after
+ * another, so a query made while a contract is added or removed may find it
+ * in some indexes and not yet in others, and queries reading several buckets
+ * may see some changes made meanwhile and not others. Every query sees each
+ * contract at most once.
+ */
+public class ContractRegister {
+
+  /*
+   * Orders contracts by start date, then by id so that no two contracts are
+   * equal. A class of its own rather than a chain of comparators, as it runs
+   * a few dozen times for every contract added to a member's bucket.
+   */
+  private static final class DateOrder implements Comparator<Contract> {
+    @Override
+    public int compare(Contract first, Contract second) {
+      int order = Integer.compare(first.getStartDate().getEpochDay(), second.getStartDate().getEpochDay());
+      return order != 0 ? order : Long.compare(first.getContractKey(), second.getContractKey());
+    }
+  }
+
+  private static final Comparator<Contract> DATE_ORDER = new DateOrder();
+
+  private Map<Long, Contract> contracts; // All contracts, by contract id
+  private final AtomicInteger size = new AtomicInteger(); // Kept apart as the map counts its contracts one by one
+  private ConcurrentMap<Long, Contract[]> contractsByItem; // Each array in date order
+  private ConcurrentMap<Long, NavigableSet<Contract>> contractsByBorrower;
+  private ConcurrentMap<Long, NavigableSet<Contract>> contractsByLender;
+  private ConcurrentNavigableMap<SimpleDate, Collection<Contract>> contractsByStartDate;
+  private ConcurrentNavigableMap<SimpleDate, Collection<Contract>> contractsByEndDate;
+  private AvailabilityScheduler availabilityScheduler;
+
+  /**
+   * Constructs an empty contract register.
+   */
+  public ContractRegister() {
+    this.contracts = new ConcurrentSkipListMap<>();
+    this.contractsByItem = new ConcurrentHashMap<>();
+    this.contractsByBorrower = new ConcurrentHashMap<>();
+    this.contractsByLender = new ConcurrentHashMap<>();
+    this.contractsByStartDate = new ConcurrentSkipListMap<>();
+    this.contractsByEndDate = new ConcurrentSkipListMap<>();
+    this.availabilityScheduler = new AvailabilityScheduler();
+  }
+
+  /**
+   * Adds a contract and indexes it. Adding a contract that is already in the
+   * register has no effect.
+   *
+   * @param contract The contract to add.
+   */
+  void addContract(Contract contract) {
+    if (contracts.putIfAbsent(contract.getContractKey(), contract) != null) {
+      return;
+    }
+    size.incrementAndGet();
+    contractsByItem.compute(contract.getItem().getKey(), (key, bucket) -> withContract(bucket, contract));
+    addToIndex(contractsByBorrower, contract.getBorrowerKey(), contract);
+    addToIndex(contractsByLender, contract.getLenderKey(), contract);
+    addToDateIndex(contractsByStartDate, contract.getStartDate(), contract);
+    addToDateIndex(contractsByEndDate, contract.getEndDate(), contract);
+    availabilityScheduler.scheduleContract(contract);
+  }
+
+  /**
+   * Removes a contract and all its index entries.
+   *
+   * @param contract The contract to remove.
+   */
+  void removeContract(Contract contract) {
+    if (!contracts.remove(contract.getContractKey(), contract)) {
+      return;
+    }
+    size.decrementAndGet();
+    contractsByItem.computeIfPresent(contract.getItem().getKey(), (key, bucket) -> withoutContract(bucket, contract));
+    removeFromIndex(contractsByBorrower, contract.getBorrowerKey(), contract);
+    removeFromIndex(contractsByLender, contract.getLenderKey(), contract);
+    removeFromDateIndex(contractsByStartDate, contract.getStartDate(), contract);
+    removeFromDateIndex(contractsByEndDate, contract.getEndDate(), contract);
+    availabilityScheduler.contractRemoved(contract);
+  }
+
+  /*
+   * Adds a contract to the bucket of the given key. The hash map runs the
+   * change with the key's entry locked, so a bucket being dropped as it
+   * empties never loses the contract.
+   */
+  private void addToIndex(ConcurrentMap<Long, NavigableSet<Contract>> index, long key, Contract contract) {
+    index.compute(key, (k, bucket) -> {
+      NavigableSet<Contract> contractsOfKey = bucket == null ? new ConcurrentSkipListSet<>(DATE_ORDER) : bucket;
+      contractsOfKey.add(contract);
+      return contractsOfKey;
+    });
+  }
+
+  /*
+   * Removes a contract from the bucket of the given key, dropping the bucket
+   * if it empties.
+   */
+  private void removeFromIndex(ConcurrentMap<Long, NavigableSet<Contract>> index, long key, Contract contract) {
+    index.computeIfPresent(key, (k, bucket) -> {
+      bucket.remove(contract);
+      return bucket.isEmpty() ? null : bucket;
+    });
+  }
+
+  /*
+   * Copies an item bucket with a contract added in date order. The hash map
+   * runs this with the item's entry locked, so no other change of the bucket
+   * is lost.
+   */
+  private static Contract[] withContract(Contract[] bucket, Contract contract) {
+    if (bucket == null) {
+      return new Contract[] {contract};
+    }
+    int position = 0;
+    while (position < bucket.length && DATE_ORDER.compare(bucket[position], contract) < 0) {
+      position++;
+    }
+    Contract[] grown = new Contract[bucket.length + 1];
+    System.arraycopy(bucket, 0, grown, 0, position);
+    grown[position] = contract;
+    System.arraycopy(bucket, position, grown, position + 1, bucket.length - position);
+    return grown;
+  }
+
+  /*
+   * Copies an item bucket without a contract, or returns null to drop the
+   * bucket if the contract was the last one.
+   */
+  private static Contract[] withoutContract(Contract[] bucket, Contract contract) {
+    int position = Arrays.asList(bucket).indexOf(contract);
+    if (position < 0) {
+      return bucket;
+    }
+    if (bucket.length == 1) {
+      return null;
+    }
+    Contract[] shrunk = new Contract[bucket.length - 1];
+    System.arraycopy(bucket, 0, shrunk, 0, position);
+    System.arraycopy(bucket, position + 1, shrunk, position, bucket.length - position - 1);
+    return shrunk;
+  }
+
+  /*
+   * Adds a contract to the bucket of a date. Only one bucket is ever put in
+   * for a date, as empty ones are kept.
+   */
+  private void addToDateIndex(ConcurrentNavigableMap<SimpleDate, Collection<Contract>> index, SimpleDate date,
+      Contract contract) {
+    index.computeIfAbsent(date, d -> new ConcurrentLinkedQueue<>()).add(contract);
+  }
+
+  /*
+   * Removes a contract from the bucket of a date, keeping the bucket.
+   */
+  private void removeFromDateIndex(ConcurrentNavigableMap<SimpleDate, Collection<Contract>> index,
+      SimpleDate date, Contract contract) {
+    Collection<Contract> bucket = index.get(date);
+    if (bucket != null) {
+      bucket.remove(contract);
+    }
+  }
+
+  /**
+   * Gets a contract by its id.
+   *
+   * @param contractId The id of the contract.
+   * @return The contract, or null if not found.
+   */
+  public Contract getContractById(String contractId) {
+    return getContractByKey(EntityIds.parse(contractId));
+  }
+
+  /**
+   * Gets a contract by its numeric id.
+   *
+   * @param contractKey The numeric id of the contract.
+   * @return The contract, or null if not found.
+   */
+  Contract getContractByKey(long contractKey) {
+    return contracts.get(contractKey);
+  }
+
+  /**
+   * Gets all contracts in the order of their ids. The view reflects later
+   * changes and can be read while contracts are added or removed.
+   *
+   * @return A read-only view of all contracts.
+   */
+  public Collection<Contract> getAllContracts() {
+    return Collections.unmodifiableCollection(contracts.values());
+  }
+
+  /**
+   * Gets all contracts of an item.
+   *
+   * @param itemKey The numeric id of the item.
+   * @return A read-only copy of the contracts of the item, in date order.
+   */
+  public List<Contract> getContractsByItem(long itemKey) {
+    Contract[] bucket = contractsByItem.get(itemKey);
+    return bucket == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(bucket));
+  }
+
+  /**
+   * Gets all contracts in which a member is the borrower.
+   *
+   * @param memberKey The numeric id of the borrower.
+   * @return A read-only copy of the contracts of the borrower, in date order.
+   */
+  public Collection<Contract> getContractsByBorrower(long memberKey) {
+    return readOnlyCopy(contractsByBorrower.get(memberKey));
+  }
+
+  /**
+   * Gets all contracts in which a member is the lender.
+   *
+   * @param memberKey The numeric id of the lender.
+   * @return A read-only copy of the contracts of the lender, in date order.
+   */
+  public Collection<Contract> getContractsByLender(long memberKey) {
+    return readOnlyCopy(contractsByLender.get(memberKey));
+  }
+
+  /**
+   * Gets one page of the contracts in which a member is the borrower or the
+   * lender, in date order. Only the contracts on the page are visited.
+   *
+   * @param memberKey    The numeric id of the member.
+   * @param previousPage The page to continue after, or null for the first page.
+   * @param pageSize     The maximum number of contracts on the page.
+   * @return The page of contracts.
+   */
+  public ContractPage getMemberContracts(long memberKey, ContractPage previousPage, int pageSize) {
+    Contract cursor = previousPage == null ? null : previousPage.getLastContract();
+    Iterator<Contract> borrowed = tailIterator(contractsByBorrower.get(memberKey), cursor);
+    Iterator<Contract> lent = tailIterator(contractsByLender.get(memberKey), cursor);
+    Contract nextBorrowed = borrowed.hasNext() ? borrowed.next() : null;
+    Contract nextLent = lent.hasNext() ? lent.next() : null;
+
+    List<Contract> page = new ArrayList<>();
+    while (page.size() < pageSize && (nextBorrowed != null || nextLent != null)) {
+      int order = nextLent == null ? -1 : nextBorrowed == null ? 1 : DATE_ORDER.compare(nextBorrowed, nextLent);
+      if (order <= 0) {
+        page.add(nextBorrowed);
+        nextBorrowed = borrowed.hasNext() ? borrowed.next() : null;
+      } else {
+        page.add(nextLent);
+      }
+      if (order >= 0) {
+        nextLent = lent.hasNext() ? lent.next() : null; // A member lending to themself is listed once
+      }
+    }
+    return new ContractPage(page, nextBorrowed != null || nextLent != null);
+  }
+
+  /*
+   * Iterates the contracts of a member index bucket after a cursor contract.
+   */
+  private Iterator<Contract> tailIterator(NavigableSet<Contract> bucket, Contract cursor) {
+    if (bucket == null) {
+      return Collections.emptyIterator();
+    }
+    return cursor == null ? bucket.iterator() : bucket.tailSet(cursor, false).iterator();
+  }
+
+  /**
+   * Gets all contracts starting within a date range, inclusive, ordered by start
+   * date.
+   *
+   * @param from The first start date of the range.
+   * @param to   The last start date of the range.
+   * @return The contracts starting within the range.
+   */
+  public List<Contract> getContractsStartingBetween(SimpleDate from, SimpleDate to) {
+    return flatten(contractsByStartDate.subMap(from, true, to, true));
+  }
+
+  /**
+   * Gets all contracts ending within a date range, inclusive, ordered by end
+   * date.
+   *
+   * @param from The first end date of the range.
+   * @param to   The last end date of the range.
+   * @return The contracts ending within the range.
+   */
+  public List<Contract> getContractsEndingBetween(SimpleDate from, SimpleDate to) {
+    return flatten(contractsByEndDate.subMap(from, true, to, true));
+  }
+
+  /**
+   * Gets all contracts that are active on a date. Only contracts ending on or
+   * after the date are visited.
+   *
+   * @param date The date to check.
+   * @return The contracts active on the date.
+   */
+  public List<Contract> getContractsActiveOn(SimpleDate date) {
+    List<Contract> activeContracts = new ArrayList<>();
+    for (Collection<Contract> bucket : contractsByEndDate.tailMap(date, true).values()) {
+      for (Contract contract : bucket) {
+        if (!contract.getStartDate().isAfter(date)) {
+          activeContracts.add(contract);
+        }
+      }
+    }
+    return activeContracts;
+  }
+
+  /**
+   * Gets the scheduler keeping item availability in line with the contracts.
+   *
+   * @return The availability scheduler.
+   */
+  public AvailabilityScheduler getAvailabilityScheduler() {
+    return availabilityScheduler;
+  }
+
+  /**
+   * Returns the number of contracts in the register.
+   *
+   * @return The number of contracts.
+   */
+  public int size() {
+    return size.get();
+  }
+
+  /*
+   * Copies an index bucket into a read-only list, keeping its order.
+   */
+  private List<Contract> readOnlyCopy(Collection<Contract> bucket) {
+    if (bucket == null) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(new ArrayList<>(bucket));
+  }
+
+  /*
+   * Collects the buckets of a date range into one list.
+   */
+  private List<Contract> flatten(Map<SimpleDate, Collection<Contract>> range) {
+    List<Contract> result = new ArrayList<>();
+    for (Collection<Contract> bucket : range.values()) {
+      result.addAll(bucket);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,74 @@
+package model;
+
+/**
+ * Holds the ID allocator used by members, items and contracts, and converts
+ * between the numeric IDs used by the registers and the short text form shown
+ * to and typed by users.
+ */
+public final class EntityIds {
+  static final int DISPLAY_RADIX = 36;
+  private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L; // Odd, so the multiplication is one to one
+
+  private static volatile IdAllocator allocator = new SnowflakeIdAllocator(Integer.getInteger(
+      "stufflending.nodeId", 0));
+
+  private EntityIds() {
+  }
+
+  /**
+   * Replaces the ID allocator. Only entities created afterwards are affected.
+   *
+   * @param newAllocator The allocator to use.
+   */
+  public static void setAllocator(IdAllocator newAllocator) {
+    allocator = newAllocator;
+  }
+
+  /**
+   * Allocates a new ID with the current allocator.
+   *
+   * @return The allocated ID.
+   */
+  static long next() {
+    return allocator.nextId();
+  }
+
+  /**
+   * Converts an ID to its text form.
+   *
+   * @param id The ID.
+   * @return The text form of the ID.
+   */
+  public static String toDisplayString(long id) {
+    return Long.toString(id, DISPLAY_RADIX);
+  }
+
+  /**
+   * Converts the text form of an ID back to the ID.
+   *
+   * @param displayString The text form, for example as typed by a user.
+   * @return The ID, or -1 if the text is not a valid ID.
+   */
+  public static long parse(String displayString) {
+    try {
+      long id = Long.parseLong(displayString.trim().toLowerCase(), DISPLAY_RADIX);
+      return id < 0 ? -1 : id;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Gets the key to store an ID under in a hash map. IDs allocated close in
+   * time differ mostly in their lowest and highest bits, which Long.hashCode
+   * folds onto a few thousand buckets, so a map keyed by the IDs themselves
+   * slows down as it grows. Multiplying by an odd constant spreads every bit
+   * over the hash and gives each ID its own key.
+   *
+   * @param id The ID.
+   * @return The key for the ID.
+   */
+  static long hashKey(long id) {
+    return id * HASH_MULTIPLIER;
+  }
+}
@@ -0,0 +1,45 @@
+package model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends reminders to a local text file, one block per batch: a line naming
+ * the recipient followed by one line per reminder. Used instead of sending
+ * mail when running locally.
+ */
+public class FileNotificationSink implements NotificationSink {
+  private final Path file;
+
+  /**
+   * Constructs a sink writing to a file, which is created when needed.
+   *
+   * @param file The file to append to.
+   */
+  public FileNotificationSink(Path file) {
+    this.file = file;
+  }
+
+  @Override
+  public void deliver(ContractParty recipient, List<Notification> notifications) throws IOException {
+    Path directory = file.toAbsolutePath().getParent();
+    if (directory != null) {
+      Files.createDirectories(directory);
+    }
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+        StandardOpenOption.APPEND)) {
+      writer.write("To " + recipient.getUsername() + " <" + recipient.getEmail() + ">:");
+      writer.newLine();
+      for (Notification notification : notifications) {
+        writer.write("  [" + notification.getKind() + "] " + notification.getMessage() + " (contract "
+            + notification.getContractId() + ")");
+        writer.newLine();
+      }
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package model;
+
+/**
+ * Hands out unique 64-bit IDs for members, items and contracts.
+ * Implementations must be safe to call from several threads and never return
+ * the same ID twice.
+ */
+public interface IdAllocator {
+
+  /**
+   * Allocates a new, positive, unique ID.
+   *
+   * @return The allocated ID.
+   */
+  long nextId();
+}
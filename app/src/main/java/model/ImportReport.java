@@ -0,0 +1,89 @@
+package model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes the outcome of a bulk import: how many rows were read, how many
+ * members and items were added, which rows were rejected and how fast the
+ * import ran.
+ */
+public class ImportReport {
+  private final int rows;
+  private final int membersImported;
+  private final int itemsImported;
+  private final List<String> rejectedRows;
+  private final long elapsedNanos;
+
+  /**
+   * Constructs a report.
+   *
+   * @param rows            The number of rows read, not counting blank lines and
+   *                        the header.
+   * @param membersImported The number of members added.
+   * @param itemsImported   The number of items added.
+   * @param rejectedRows    A description of every rejected row, in file order.
+   * @param elapsedNanos    The time the import took, in nanoseconds.
+   */
+  ImportReport(int rows, int membersImported, int itemsImported, List<String> rejectedRows, long elapsedNanos) {
+    this.rows = rows;
+    this.membersImported = membersImported;
+    this.itemsImported = itemsImported;
+    this.rejectedRows = Collections.unmodifiableList(rejectedRows);
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * Gets the number of rows read.
+   *
+   * @return The number of rows.
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Gets the number of members added.
+   *
+   * @return The number of members.
+   */
+  public int getMembersImported() {
+    return membersImported;
+  }
+
+  /**
+   * Gets the number of items added.
+   *
+   * @return The number of items.
+   */
+  public int getItemsImported() {
+    return itemsImported;
+  }
+
+  /**
+   * Gets a description of every rejected row, starting with its line number.
+   *
+   * @return A read-only list of the rejected rows, in file order.
+   */
+  public List<String> getRejectedRows() {
+    return rejectedRows;
+  }
+
+  /**
+   * Gets the time the import took.
+   *
+   * @return The time in seconds.
+   */
+  public double getElapsedSeconds() {
+    return elapsedNanos / 1e9;
+  }
+
+  /**
+   * Gets the number of rows handled per second, counting rejected rows.
+   *
+   * @return The throughput in rows per second.
+   */
+  public long getRowsPerSecond() {
+    return elapsedNanos == 0 ? rows : (long) (rows * 1e9 / elapsedNanos);
+  }
+}
@@ -0,0 +1,37 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps delivered reminders in memory, so that tests can look at them.
+ */
+public class InMemoryNotificationSink implements NotificationSink {
+  private final List<Notification> delivered = new ArrayList<>();
+  private int batches;
+
+  @Override
+  public synchronized void deliver(ContractParty recipient, List<Notification> notifications) {
+    delivered.addAll(notifications);
+    batches++;
+  }
+
+  /**
+   * Gets all reminders delivered so far.
+   *
+   * @return A copy of the reminders, in delivery order.
+   */
+  public synchronized List<Notification> getDelivered() {
+    return new ArrayList<>(delivered);
+  }
+
+  /**
+   * Gets the number of batches delivered so far, one per recipient and
+   * delivery round.
+   *
+   * @return The number of batches.
+   */
+  public synchronized int getBatches() {
+    return batches;
+  }
+}
@@ -0,0 +1,211 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Keeps all users and items on the heap, with hash indexes for every lookup.
+ * The objects themselves are the stored state, so updates need no work, and
+ * contracts are kept by the register's contract index alone.
+ *
+ * <p>The indexes are concurrent maps and the user list is copied on write, so
+ * lookups and listings take no lock. Users are added far less often than they
+ * are listed. The item catalog is a hash map, so finding an item takes
+ * constant time however many there are. Next to it the items are kept in a
+ * skip list ordered by ID, which is the order they were created in, so a
+ * listing of all items walks them in order instead of sorting them. Both are
+ * updated on every add and remove; a listing made at the same time as a change
+ * may or may not include the item changed.
+ */
+public class InMemoryRegisterRepository implements RegisterRepository {
+  private List<Iuser> iusers = new CopyOnWriteArrayList<>();
+  private Map<Long, Iuser> idToUserMap = new ConcurrentHashMap<>(); // Keyed by EntityIds.hashKey
+  private Map<String, Iuser> usernameToUserMap = new ConcurrentHashMap<>();
+  private Map<String, Iuser> emailToUserMap = new ConcurrentHashMap<>(); // Keyed by lower case email
+  private Map<String, Iuser> phoneToUserMap = new ConcurrentHashMap<>();
+  private Map<Long, Item> itemCatalog = new ConcurrentHashMap<>(); // All items of all members, by EntityIds.hashKey
+  private ConcurrentNavigableMap<Long, Item> itemsInIdOrder = new ConcurrentSkipListMap<>(); // The same items, by ID
+
+  @Override
+  public void addUser(Iuser iuser) {
+    iusers.add(iuser);
+    indexUser(iuser);
+  }
+
+  @Override
+  public void addUsers(List<? extends Iuser> newUsers) {
+    iusers.addAll(newUsers); // One copy of the list for all of them
+    for (Iuser iuser : newUsers) {
+      indexUser(iuser);
+    }
+  }
+
+  /*
+   * Adds a user to the lookup indexes.
+   */
+  private void indexUser(Iuser iuser) {
+    idToUserMap.put(EntityIds.hashKey(iuser.getKey()), iuser);
+    usernameToUserMap.put(iuser.getUsername(), iuser);
+    emailToUserMap.put(iuser.getEmail().toLowerCase(), iuser);
+    phoneToUserMap.put(iuser.getPhoneNumber(), iuser);
+  }
+
+  @Override
+  public void removeUser(Iuser iuser) {
+    iusers.remove(iuser);
+    idToUserMap.remove(EntityIds.hashKey(iuser.getKey()));
+    usernameToUserMap.remove(iuser.getUsername());
+    emailToUserMap.remove(iuser.getEmail().toLowerCase());
+    phoneToUserMap.remove(iuser.getPhoneNumber());
+    if (iuser instanceof Member) {
+      for (Item item : ((Member) iuser).getOwnedItems()) {
+        removeItem(item);
+      }
+    }
+  }
+
+  @Override
+  public void updateUser(Iuser iuser) {
+    // The user object is the stored state
+  }
+
+  @Override
+  public void changeUsername(Iuser iuser, String newUsername) {
+    moveKey(usernameToUserMap, iuser.getUsername(), newUsername, iuser);
+  }
+
+  @Override
+  public void changeEmail(Iuser iuser, String newEmail) {
+    moveKey(emailToUserMap, iuser.getEmail().toLowerCase(), newEmail.toLowerCase(), iuser);
+  }
+
+  @Override
+  public void changePhoneNumber(Iuser iuser, String newPhoneNumber) {
+    moveKey(phoneToUserMap, iuser.getPhoneNumber(), newPhoneNumber, iuser);
+  }
+
+  /*
+   * Moves a user from one key of an index to another. The new key is added
+   * first, so a lookup never misses the user in between.
+   */
+  private void moveKey(Map<String, Iuser> index, String oldKey, String newKey, Iuser iuser) {
+    if (index.get(oldKey) == iuser) {
+      index.put(newKey, iuser);
+      if (!newKey.equals(oldKey)) {
+        index.remove(oldKey, iuser);
+      }
+    }
+  }
+
+  @Override
+  public Iuser findUserByKey(long key) {
+    return idToUserMap.get(EntityIds.hashKey(key));
+  }
+
+  @Override
+  public Iuser findUserByUsername(String username) {
+    return usernameToUserMap.get(username);
+  }
+
+  @Override
+  public Iuser findUserByEmail(String email) {
+    return emailToUserMap.get(email.toLowerCase());
+  }
+
+  @Override
+  public Iuser findUserByPhoneNumber(String phoneNumber) {
+    return phoneToUserMap.get(phoneNumber);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return iusers.isEmpty();
+  }
+
+  @Override
+  public List<Iuser> findAllUsers() {
+    return Collections.unmodifiableList(iusers);
+  }
+
+  @Override
+  public void addItem(Item item) {
+    itemCatalog.put(EntityIds.hashKey(item.getKey()), item);
+    itemsInIdOrder.put(item.getKey(), item);
+  }
+
+  @Override
+  public void addItems(List<Item> items) {
+    Map<Long, Item> itemsByHashKey = new HashMap<>(items.size() * 4 / 3 + 1);
+    for (Item item : items) {
+      itemsByHashKey.put(EntityIds.hashKey(item.getKey()), item);
+      itemsInIdOrder.put(item.getKey(), item);
+    }
+    itemCatalog.putAll(itemsByHashKey); // Grows the catalog once for all of them instead of doubling it step by step
+  }
+
+  @Override
+  public void removeItem(Item item) {
+    itemCatalog.remove(EntityIds.hashKey(item.getKey()));
+    itemsInIdOrder.remove(item.getKey(), item);
+  }
+
+  @Override
+  public void updateItem(Item item) {
+    // The item object is the stored state
+  }
+
+  @Override
+  public Item findItemByKey(long key) {
+    return itemCatalog.get(EntityIds.hashKey(key));
+  }
+
+  @Override
+  public List<Item> findAllItems() {
+    return new ArrayList<>(itemsInIdOrder.values());
+  }
+
+  @Override
+  public Map<Long, CategoryEnum> loadItemCategories() {
+    Map<Long, CategoryEnum> categories = new LinkedHashMap<>();
+    for (Item item : itemsInIdOrder.values()) {
+      categories.put(item.getKey(), item.getCategory());
+    }
+    return categories;
+  }
+
+  @Override
+  public void loadItemTexts(ItemTextConsumer consumer) {
+    for (Item item : itemsInIdOrder.values()) {
+      consumer.accept(item.getKey(), item.getName(), item.getDescription());
+    }
+  }
+
+  @Override
+  public <T> T runInTransaction(Supplier<T> changes) {
+    return changes.get(); // Nothing is stored apart from the objects
+  }
+
+  @Override
+  public void addContract(Contract contract) {
+    // Kept by the contract register
+  }
+
+  @Override
+  public void removeContract(Contract contract) {
+    // Kept by the contract register
+  }
+
+  @Override
+  public List<Contract> loadContracts() {
+    return Collections.emptyList();
+  }
+}
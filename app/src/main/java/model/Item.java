@@ -2,20 +2,26 @@ package model;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.UUID;
 
 /**
  * Represents an item that can be used in a system.
+ *
+ * <p>Like a member, an item can be read by many threads at once. Changes hold
+ * the register's lock shared and the item's own lock, except bookings: the
+ * contracts of the item are a reservation set that is changed with
+ * compare-and-set, see ContractIntervalIndex.
  */
 public class Item {
-  private String id;
-  private String name;
-  private int costPerDay;
-  private String description;
-  private CategoryEnum category;
-  private LocalDate dayOfRegistration;
-  private boolean isItemAvailable;
-  private ArrayList<Contract> allContracts = new ArrayList<>();
+  private final long key;
+  private String id; // Text form of the ID, created when first needed
+  private volatile String name;
+  private volatile int costPerDay;
+  private volatile String description;
+  private volatile CategoryEnum category;
+  private volatile LocalDate dayOfRegistration;
+  private volatile boolean isItemAvailable;
+  private volatile Member owner; // Back-reference to the member owning the item
+  private final ContractIntervalIndex contractIntervals = new ContractIntervalIndex(); // All contracts of the item
 
   /**
    * Constructs an item with the specified name, costPerDay, description, and
@@ -30,22 +36,25 @@ public class Item {
    * @param category    category of item
    */
   public Item(String name, int costPerDay, String description, CategoryEnum category) {
+    this(EntityIds.next(), name, costPerDay, description, category);
+  }
+
+  /**
+   * Constructs an item with an existing id, used when the register is rebuilt.
+   *
+   * @param key         The id of the item.
+   * @param name        The name of the item.
+   * @param costPerDay  The cost per day of the item.
+   * @param description The description of the item.
+   * @param category    The category of the item.
+   */
+  Item(long key, String name, int costPerDay, String description, CategoryEnum category) {
+    this.key = key;
     setName(name);
     setcostPerDay(costPerDay);
     setDescription(description);
     setCategory(category);
     setisItemAvailable(true); // When a new item is added, It is avaliable
-    this.id = createUniqueItemId();
-  }
-
-  /*
-   * Creates a unique item ID.
-   *
-   * @return The unique item ID.
-   */
-  private String createUniqueItemId() {
-    String uuid = UUID.randomUUID().toString().replace("-", "");
-    return uuid.substring(0, 6);
   }
 
   /**
@@ -54,9 +63,21 @@ public class Item {
    * @return The id of the item.
    */
   public String getId() {
+    if (id == null) {
+      id = EntityIds.toDisplayString(key);
+    }
     return id;
   }
 
+  /**
+   * Gets the numeric id of the item, used by the registers.
+   *
+   * @return The numeric id of the item.
+   */
+  public long getKey() {
+    return key;
+  }
+
   /**
    * Gets the name of the item.
    *
@@ -113,13 +134,25 @@ public class Item {
     return dayOfRegistration;
   }
 
+  /**
+   * Gets the member owning the item.
+   *
+   * @return The owner of the item, or null if the item has no owner.
+   */
+  Member getOwner() {
+    return owner;
+  }
+
   /**
    * Sets the costPerDay of the item.
    *
    * @param costPerDay The costPerDay of the item.
    */
   public void setcostPerDay(int costPerDay) {
-    this.costPerDay = costPerDay;
+    change(() -> {
+      this.costPerDay = costPerDay;
+      recordUpdate();
+    });
   }
 
   /**
@@ -128,7 +161,10 @@ public class Item {
    * @param name The name of the item.
    */
   public void setName(String name) {
-    this.name = name;
+    change(() -> {
+      this.name = name;
+      recordUpdate();
+    });
   }
 
   /**
@@ -137,7 +173,10 @@ public class Item {
    * @param description The description of the item.
    */
   public void setDescription(String description) {
-    this.description = description;
+    change(() -> {
+      this.description = description;
+      recordUpdate();
+    });
   }
 
   /**
@@ -146,7 +185,10 @@ public class Item {
    * @param category The category of the item.
    */
   public void setCategory(CategoryEnum category) {
-    this.category = category;
+    change(() -> {
+      this.category = category;
+      recordUpdate();
+    });
   }
 
   /**
@@ -168,21 +210,125 @@ public class Item {
   }
 
   /**
-   * Adds a contract to the item.
+   * Sets the member owning the item. Maintained by Member when the item is added
+   * or deleted.
+   *
+   * @param owner The owner of the item, or null when the item is removed.
+   */
+  void setOwner(Member owner) {
+    this.owner = owner;
+  }
+
+  /**
+   * Adds a contract to the item. The contract must not conflict with the
+   * existing contracts of the item.
    *
    * @param contract The contract to add.
+   * @throws IllegalArgumentException if the contract overlaps a contract of
+   *                                  the item.
    */
   public void addContract(Contract contract) {
-    allContracts.add(contract);
+    if (!tryAddContract(contract)) {
+      throw new IllegalArgumentException("The contract overlaps another contract of the item");
+    }
+  }
+
+  /**
+   * Books the dates of a contract if they are still free, and adds the
+   * contract to the item. The check and the booking are one atomic step, so of
+   * two bookings racing for overlapping dates exactly one succeeds. No lock of
+   * the item is taken. If the contract cannot be stored the dates are freed
+   * again before the exception is passed on.
+   *
+   * @param contract The contract to add.
+   * @return True if the contract was added, false if its dates are taken.
+   */
+  public boolean tryAddContract(Contract contract) {
+    UserRegister changedRegister = beginChange();
+    try {
+      if (!contractIntervals.tryAdd(contract)) {
+        return false;
+      }
+      if (changedRegister != null) {
+        boolean stored = false;
+        try {
+          changedRegister.contractAdded(contract);
+          stored = true;
+        } finally {
+          if (!stored) {
+            contractIntervals.remove(contract); // Not stored, so not booked either
+          }
+        }
+      }
+      return true;
+    } finally {
+      Member.endChange(changedRegister);
+    }
+  }
+
+  /**
+   * Adds a stored contract without storing it again, unless it overlaps a
+   * contract of the item. Used when the register is rebuilt.
+   *
+   * @param contract The contract to add.
+   * @return True if the contract was added.
+   */
+  boolean restoreContract(Contract contract) {
+    return contractIntervals.tryAdd(contract);
+  }
+
+  /**
+   * Checks if the item has any contracts, without copying them.
+   *
+   * @return True if the item has at least one contract.
+   */
+  boolean hasContracts() {
+    return contractIntervals.size() > 0;
   }
 
   /**
    * Gets all contracts of the item, both current and upcoming.
    *
-   * @return A copy of the ArrayList containing all contracts of the item.
+   * @return A copy of the ArrayList containing all contracts of the item,
+   *         ordered by start date.
    */
   public ArrayList<Contract> getAllContracts() {
-    return new ArrayList<>(allContracts);
+    return new ArrayList<>(contractIntervals.getContracts());
+  }
+
+  /**
+   * Checks if a date range, inclusive, conflicts with any contract of the item.
+   *
+   * @param startDate The start date of the range.
+   * @param endDate   The end date of the range.
+   * @return True if the range overlaps a contract of the item, false otherwise.
+   */
+  public boolean hasTimeConflict(SimpleDate startDate, SimpleDate endDate) {
+    return contractIntervals.overlaps(startDate, endDate);
+  }
+
+  /**
+   * Checks if a range of epoch days, inclusive, conflicts with any contract of
+   * the item.
+   *
+   * @param startDay The first epoch day of the range.
+   * @param endDay   The last epoch day of the range.
+   * @return True if the range overlaps a contract of the item, false otherwise.
+   */
+  public boolean hasTimeConflict(int startDay, int endDay) {
+    return contractIntervals.overlaps(startDay, endDay);
+  }
+
+  /**
+   * Finds the first start date on or after a date at which the item is free for
+   * a contract of the given length.
+   *
+   * @param fromDate     The earliest start date.
+   * @param lengthInDays The number of days between start and end date.
+   * @return The first start date at which the item is free.
+   */
+  public SimpleDate findNextFreeStartDate(SimpleDate fromDate, int lengthInDays) {
+    return contractIntervals.findNextFreeStartDate(fromDate, lengthInDays);
   }
 
   /**
@@ -191,7 +337,55 @@ public class Item {
    * @param contract The contract to delete.
    */
   public void deleteContract(Contract contract) {
-    allContracts.remove(contract);
+    UserRegister changedRegister = beginChange();
+    try {
+      if (contractIntervals.remove(contract) && changedRegister != null) {
+        changedRegister.contractRemoved(contract);
+      }
+    } finally {
+      Member.endChange(changedRegister);
+    }
+  }
+
+  /*
+   * Runs a change of the item with the register's lock held shared and the
+   * item's own lock held.
+   */
+  private void change(Runnable change) {
+    UserRegister changedRegister = beginChange();
+    try {
+      synchronized (this) {
+        change.run();
+      }
+    } finally {
+      Member.endChange(changedRegister);
+    }
+  }
+
+  /*
+   * Takes the register's lock shared, if the item belongs to a registered
+   * member, and returns the register or null.
+   */
+  private UserRegister beginChange() {
+    Member currentOwner = owner;
+    return currentOwner == null ? null : currentOwner.beginChange();
+  }
+
+  /*
+   * Gets the register the owner belongs to, if any.
+   */
+  private UserRegister getRegister() {
+    return owner == null ? null : owner.getRegister();
+  }
+
+  /*
+   * Stores the item after a change to its name, cost, description or category.
+   */
+  private void recordUpdate() {
+    UserRegister register = getRegister();
+    if (register != null) {
+      register.itemUpdated(this);
+    }
   }
 
 }
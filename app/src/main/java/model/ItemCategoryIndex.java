@@ -0,0 +1,97 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Keeps the ids of the cataloged items by category, so that the items of one
+ * category are listed in time proportional to their number and counted in
+ * constant time, instead of going through the whole catalog. It holds ids
+ * rather than items, so it keeps no item in memory that the repository could
+ * otherwise drop.
+ *
+ * <p>Lookups take no lock. Changes are made one at a time, so an item deleted
+ * while its category changes is not indexed again.
+ */
+public class ItemCategoryIndex {
+  private final Map<CategoryEnum, NavigableSet<Long>> itemsByCategory = new EnumMap<>(CategoryEnum.class);
+  private final AtomicIntegerArray counts = new AtomicIntegerArray(CategoryEnum.values().length); // By ordinal
+
+  /**
+   * Constructs an empty index.
+   */
+  ItemCategoryIndex() {
+    for (CategoryEnum category : CategoryEnum.values()) {
+      itemsByCategory.put(category, new ConcurrentSkipListSet<>());
+    }
+  }
+
+  /**
+   * Adds an item.
+   *
+   * @param itemKey  The numeric id of the item.
+   * @param category The category of the item.
+   */
+  synchronized void add(long itemKey, CategoryEnum category) {
+    if (itemsByCategory.get(category).add(itemKey)) {
+      counts.incrementAndGet(category.ordinal());
+    }
+  }
+
+  /**
+   * Removes an item from whichever category it is in.
+   *
+   * @param itemKey The numeric id of the item.
+   * @return true if the item was indexed.
+   */
+  synchronized boolean remove(long itemKey) {
+    for (Map.Entry<CategoryEnum, NavigableSet<Long>> entry : itemsByCategory.entrySet()) {
+      if (entry.getValue().remove(itemKey)) {
+        counts.decrementAndGet(entry.getKey().ordinal());
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Moves an indexed item to its current category. Does nothing if the item is
+   * not indexed, for example because it has just been deleted.
+   *
+   * @param itemKey  The numeric id of the item.
+   * @param category The category the item is in now.
+   */
+  synchronized void move(long itemKey, CategoryEnum category) {
+    if (itemsByCategory.get(category).contains(itemKey)) {
+      return; // The category did not change, the common case
+    }
+    if (remove(itemKey)) {
+      add(itemKey, category);
+    }
+  }
+
+  /**
+   * Gets the ids of the items in a category, in the order of the catalog.
+   *
+   * @param category The category.
+   * @return The numeric ids of the items.
+   */
+  public List<Long> getItemKeys(CategoryEnum category) {
+    return new ArrayList<>(itemsByCategory.get(category));
+  }
+
+  /**
+   * Gets the number of items in a category.
+   *
+   * @param category The category.
+   * @return The number of items.
+   */
+  public int count(CategoryEnum category) {
+    return counts.get(category.ordinal());
+  }
+}
@@ -0,0 +1,371 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * An inverted index over the names and descriptions of the cataloged items.
+ * The text is split into lower case words of letters and digits; each word
+ * leads to the items containing it, and the words are kept sorted so that all
+ * words starting with a prefix are found together.
+ *
+ * <p>A search matches an item if every word of the query is a word of the
+ * item or the start of one. Matches are ranked by how well they match: a word
+ * of the name counts more than a word of the description, a whole word more
+ * than a prefix, and a word occurring several times more than once.
+ *
+ * <p>The items of each word are kept with the heaviest first, so a search for
+ * one word only reads the first few items of every word it matches, however
+ * many items contain them. A search for several words only looks at the items
+ * of the query word matching the fewest items, so it costs time in proportion
+ * to those, not to the size of the catalog.
+ *
+ * <p>Like the category index it holds ids rather than items. Searches take no
+ * lock; changes are made one at a time, so an item deleted while its text
+ * changes is not indexed again.
+ */
+public class ItemSearchIndex {
+  private static final int NAME_WEIGHT = 3;
+  private static final int DESCRIPTION_WEIGHT = 1;
+  private static final int WHOLE_WORD_FACTOR = 2;
+
+  /*
+   * An item containing a word, with the weight of the word in the item.
+   */
+  private static final class Posting {
+    private final long itemKey;
+    private final int weight;
+
+    private Posting(long itemKey, int weight) {
+      this.itemKey = itemKey;
+      this.weight = weight;
+    }
+  }
+
+  /*
+   * Orders the items of a word from the highest weight down, then by id.
+   */
+  private static final Comparator<Posting> HEAVIEST_FIRST = Comparator
+      .comparingInt((Posting posting) -> -posting.weight)
+      .thenComparingLong(posting -> posting.itemKey);
+
+  /*
+   * The items containing a word.
+   */
+  private static final class Postings {
+    private final NavigableSet<Posting> heaviestFirst = new ConcurrentSkipListSet<>(HEAVIEST_FIRST);
+    private volatile int size; // Kept apart as the set counts its elements one by one
+  }
+
+  /*
+   * The distinct words of an item with their weights. Never changed once built.
+   */
+  private static final class ItemWords {
+    private final String[] words;
+    private final int[] weights;
+
+    private ItemWords(Map<String, Integer> weightsByWord) {
+      words = new String[weightsByWord.size()];
+      weights = new int[weightsByWord.size()];
+      int i = 0;
+      for (Map.Entry<String, Integer> entry : weightsByWord.entrySet()) {
+        words[i] = entry.getKey();
+        weights[i] = entry.getValue();
+        i++;
+      }
+    }
+
+    /*
+     * Rates how well the item matches a query word: the weight of a whole word
+     * counts double, the weight of a word it starts once, and 0 means no match.
+     */
+    private int score(String queryWord) {
+      int score = 0;
+      for (int i = 0; i < words.length; i++) {
+        if (words[i].startsWith(queryWord)) {
+          score = Math.max(score, words[i].length() == queryWord.length() ? WHOLE_WORD_FACTOR * weights[i]
+              : weights[i]);
+        }
+      }
+      return score;
+    }
+  }
+
+  /*
+   * An item matching a search, with its rank.
+   */
+  private static final class Match {
+    private final long itemKey;
+    private final int score;
+
+    private Match(long itemKey, int score) {
+      this.itemKey = itemKey;
+      this.score = score;
+    }
+  }
+
+  /*
+   * Orders matches from the worst to the best: lower scores first, then later
+   * items first, so that earlier items win ties.
+   */
+  private static final Comparator<Match> WORST_FIRST = Comparator.comparingInt((Match match) -> match.score)
+      .thenComparing(match -> match.itemKey, Comparator.reverseOrder());
+
+  private final NavigableMap<String, Postings> postingsByWord = new ConcurrentSkipListMap<>();
+  private final Map<Long, ItemWords> wordsByItem = new ConcurrentHashMap<>();
+
+  /**
+   * Constructs an empty index.
+   */
+  ItemSearchIndex() {
+  }
+
+  /**
+   * Splits a text into lower case words of letters and digits.
+   *
+   * @param text The text.
+   * @return The words, in order and with repetitions.
+   */
+  static List<String> words(String text) {
+    List<String> words = new ArrayList<>();
+    if (text == null) {
+      return words;
+    }
+    String lowerCase = text.toLowerCase(Locale.ROOT);
+    int start = -1;
+    for (int i = 0; i <= lowerCase.length(); i++) {
+      boolean inWord = i < lowerCase.length() && Character.isLetterOrDigit(lowerCase.charAt(i));
+      if (inWord && start < 0) {
+        start = i;
+      } else if (!inWord && start >= 0) {
+        words.add(lowerCase.substring(start, i));
+        start = -1;
+      }
+    }
+    return words;
+  }
+
+  /*
+   * Weighs the words of an item's name and description.
+   */
+  private static Map<String, Integer> weigh(String name, String description) {
+    Map<String, Integer> weights = new HashMap<>();
+    for (String word : words(name)) {
+      weights.merge(word, NAME_WEIGHT, Integer::sum);
+    }
+    for (String word : words(description)) {
+      weights.merge(word, DESCRIPTION_WEIGHT, Integer::sum);
+    }
+    return weights;
+  }
+
+  /**
+   * Adds an item, or indexes its text again if it is already indexed. Only the
+   * words that were added, dropped or reweighed are changed.
+   *
+   * @param itemKey     The numeric id of the item.
+   * @param name        The name of the item.
+   * @param description The description of the item.
+   */
+  synchronized void add(long itemKey, String name, String description) {
+    Map<String, Integer> weights = weigh(name, description);
+    ItemWords previous = wordsByItem.put(itemKey, new ItemWords(weights));
+    Map<String, Integer> kept = new HashMap<>();
+    if (previous != null) {
+      for (int i = 0; i < previous.words.length; i++) {
+        Integer weight = weights.get(previous.words[i]);
+        if (weight != null && weight == previous.weights[i]) {
+          kept.put(previous.words[i], weight);
+        } else {
+          unlink(previous.words[i], itemKey, previous.weights[i]);
+        }
+      }
+    }
+    for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+      if (!kept.containsKey(entry.getKey())) {
+        Postings postings = postingsByWord.computeIfAbsent(entry.getKey(), word -> new Postings());
+        postings.heaviestFirst.add(new Posting(itemKey, entry.getValue()));
+        postings.size++;
+      }
+    }
+  }
+
+  /**
+   * Indexes the new text of an indexed item. Does nothing if the item is not
+   * indexed, for example because it has just been deleted.
+   *
+   * @param itemKey     The numeric id of the item.
+   * @param name        The name of the item.
+   * @param description The description of the item.
+   */
+  synchronized void update(long itemKey, String name, String description) {
+    if (wordsByItem.containsKey(itemKey)) {
+      add(itemKey, name, description);
+    }
+  }
+
+  /**
+   * Removes an item.
+   *
+   * @param itemKey The numeric id of the item.
+   */
+  synchronized void remove(long itemKey) {
+    ItemWords previous = wordsByItem.remove(itemKey);
+    if (previous != null) {
+      for (int i = 0; i < previous.words.length; i++) {
+        unlink(previous.words[i], itemKey, previous.weights[i]);
+      }
+    }
+  }
+
+  /*
+   * Removes an item from the items of a word.
+   */
+  private void unlink(String word, long itemKey, int weight) {
+    Postings postings = postingsByWord.get(word);
+    postings.heaviestFirst.remove(new Posting(itemKey, weight));
+    postings.size--;
+    if (postings.size == 0) {
+      postingsByWord.remove(word);
+    }
+  }
+
+  /**
+   * Finds the items matching every word of a query, the best matches first.
+   *
+   * @param query      The words to search for; the last letters of a word may
+   *                   be left out.
+   * @param maxResults The largest number of items to return.
+   * @return The numeric ids of the best matching items.
+   */
+  public List<Long> search(String query, int maxResults) {
+    List<String> queryWords = new ArrayList<>(new HashSet<>(words(query)));
+    if (queryWords.isEmpty() || maxResults <= 0) {
+      return new ArrayList<>();
+    }
+    return queryWords.size() == 1 ? searchWord(queryWords.get(0), maxResults)
+        : searchWords(queryWords, maxResults);
+  }
+
+  /*
+   * Finds the best items for one query word. An item's score is that of its
+   * best matching word, so the best items overall are among the best few of
+   * each matching word.
+   */
+  private List<Long> searchWord(String queryWord, int maxResults) {
+    Map<Long, Integer> scores = new HashMap<>();
+    for (Map.Entry<String, Postings> entry : startingWith(queryWord).entrySet()) {
+      int factor = entry.getKey().length() == queryWord.length() ? WHOLE_WORD_FACTOR : 1;
+      int taken = 0;
+      for (Posting posting : entry.getValue().heaviestFirst) {
+        if (taken++ == maxResults) {
+          break;
+        }
+        scores.merge(posting.itemKey, factor * posting.weight, Math::max);
+      }
+    }
+    PriorityQueue<Match> best = new PriorityQueue<>(WORST_FIRST);
+    scores.forEach((itemKey, score) -> offer(best, new Match(itemKey, score), maxResults));
+    return ranked(best);
+  }
+
+  /*
+   * Finds the best items for several query words, looking only at the items
+   * of the query word that starts the words of the fewest items.
+   */
+  private List<Long> searchWords(List<String> queryWords, int maxResults) {
+    String rarest = null;
+    long fewest = Long.MAX_VALUE;
+    for (String queryWord : queryWords) {
+      long count = 0;
+      for (Postings postings : startingWith(queryWord).values()) {
+        count += postings.size;
+        if (count >= fewest) {
+          break; // Not the rarest, no need to count on
+        }
+      }
+      if (count < fewest) {
+        fewest = count;
+        rarest = queryWord;
+      }
+    }
+
+    Set<Long> candidates = new HashSet<>();
+    for (Postings postings : startingWith(rarest).values()) {
+      for (Posting posting : postings.heaviestFirst) {
+        candidates.add(posting.itemKey);
+      }
+    }
+    PriorityQueue<Match> best = new PriorityQueue<>(WORST_FIRST);
+    for (long itemKey : candidates) {
+      int score = score(wordsByItem.get(itemKey), queryWords);
+      if (score > 0) {
+        offer(best, new Match(itemKey, score), maxResults);
+      }
+    }
+    return ranked(best);
+  }
+
+  /*
+   * Gets the indexed words starting with a prefix.
+   */
+  private NavigableMap<String, Postings> startingWith(String prefix) {
+    return postingsByWord.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+  }
+
+  /*
+   * Ranks an item against the query words, or returns 0 if a query word
+   * matches none of its words.
+   */
+  private static int score(ItemWords itemWords, List<String> queryWords) {
+    if (itemWords == null) {
+      return 0; // Removed since the candidates were found
+    }
+    int score = 0;
+    for (String queryWord : queryWords) {
+      int wordScore = itemWords.score(queryWord);
+      if (wordScore == 0) {
+        return 0;
+      }
+      score += wordScore;
+    }
+    return score;
+  }
+
+  /*
+   * Keeps a match if it is among the best found so far.
+   */
+  private static void offer(PriorityQueue<Match> best, Match match, int maxResults) {
+    if (best.size() < maxResults) {
+      best.add(match);
+    } else if (WORST_FIRST.compare(match, best.peek()) > 0) {
+      best.poll();
+      best.add(match);
+    }
+  }
+
+  /*
+   * Lists the kept matches, the best first.
+   */
+  private static List<Long> ranked(PriorityQueue<Match> best) {
+    List<Long> itemKeys = new ArrayList<>(best.size());
+    while (!best.isEmpty()) {
+      itemKeys.add(best.poll().itemKey);
+    }
+    Collections.reverse(itemKeys);
+    return itemKeys;
+  }
+}
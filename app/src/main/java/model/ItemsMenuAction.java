@@ -9,6 +9,9 @@ public enum ItemsMenuAction implements MenuOption {
   EDIT_MY_ITEM(3, "Edit My Item"),
   DELETE_MY_ITEM(4, "Delete My Item"),
   SHOW_ALL_ITEMS_AVAILABLE_FOR_BORROWING(5, "Show all Items available for borrowing"),
+  BORROW_SEVERAL_ITEMS(6, "Borrow several Items at once"),
+  BROWSE_ITEMS_BY_CATEGORY(7, "Browse Items by category"),
+  SEARCH_ITEMS(8, "Search Items"),
   BACK(-1, "Back"),
   EXIT(0, "Exit");
 
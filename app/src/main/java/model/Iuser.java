@@ -6,6 +6,8 @@ package model;
 public interface Iuser {
   String getId();
 
+  long getKey();
+
   String getUsername();
 
   void setUsername(String username);
@@ -0,0 +1,691 @@
+package model;
+
+import java.io.Closeable;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Stores users, items and contracts in an embedded database through JDBC, for
+ * registers that do not fit on the heap. Every lookup is an indexed query, and
+ * members are loaded together with their items. Loaded users and items are kept
+ * in an identity cache of soft references: the same ID gives the same object
+ * while it is in use, and objects nobody refers to can be dropped when memory
+ * is short.
+ *
+ * <p>Not everything can be dropped. What stays on the heap for as long as the
+ * register is open:
+ * <ul>
+ *   <li>Every contract, loaded by loadContracts when the register is created,
+ *   with its item, lender and borrower. A member is loaded with all its items,
+ *   so every item of a member taking part in a contract stays too. Bookings
+ *   check the item's contracts for overlaps, and the availability and
+ *   reminders walk the contracts by date every day, so the register keeps
+ *   them in its contract index rather than querying for them.</li>
+ *   <li>The register's category and search indexes, built from
+ *   loadItemCategories and loadItemTexts. They hold item ids rather than
+ *   items, but one entry per item in the category index and one per distinct
+ *   word of an item in the search index. With 100,000 items of seven words
+ *   each they take about 9 MB and 114 MB, so the search index, not the items,
+ *   is what limits the size of a catalog on a given heap.</li>
+ *   <li>The result of findAllItems, which loads every item for as long as the
+ *   caller holds the list. Only the listings of all items call it.</li>
+ * </ul>
+ * Everything else is loaded when asked for and can be dropped again: lookups
+ * of users, the items of a category and search results load the users and
+ * items they return, and the owners of those items with their items.
+ *
+ * <p>Statements are prepared once and reused. Changes that touch several rows,
+ * such as adding many items or removing a member, run as one transaction, and
+ * the rows of a bulk insert are sent as one batch. Changes that the register
+ * makes in several calls, such as a credit transfer or a batch of bookings,
+ * run as one transaction through runInTransaction. All calls share one
+ * connection and hold the repository's lock, so no other thread's statement
+ * can slip into an open transaction.
+ */
+public class JdbcRegisterRepository implements RegisterRepository, Closeable {
+  private static final String USER_COLUMNS =
+      "user_key, administrator, username, password, email, phone_number, credits";
+  private static final String ITEM_COLUMNS =
+      "item_key, owner_key, name, cost_per_day, description, category, registration_day";
+
+  private static final String[] SCHEMA = {
+    "CREATE TABLE IF NOT EXISTS users (user_key BIGINT PRIMARY KEY, administrator BOOLEAN NOT NULL,"
+        + " username VARCHAR(255) NOT NULL, password VARCHAR(255) NOT NULL, email VARCHAR(255) NOT NULL,"
+        + " email_key VARCHAR(255) NOT NULL, phone_number VARCHAR(255) NOT NULL, credits INT NOT NULL)",
+    "CREATE UNIQUE INDEX IF NOT EXISTS users_username ON users (username)",
+    "CREATE UNIQUE INDEX IF NOT EXISTS users_email ON users (email_key)",
+    "CREATE UNIQUE INDEX IF NOT EXISTS users_phone_number ON users (phone_number)",
+    "CREATE TABLE IF NOT EXISTS items (item_key BIGINT PRIMARY KEY, owner_key BIGINT NOT NULL,"
+        + " name VARCHAR(255) NOT NULL, cost_per_day INT NOT NULL, description VARCHAR(4000) NOT NULL,"
+        + " category VARCHAR(32) NOT NULL, registration_day BIGINT)",
+    "CREATE INDEX IF NOT EXISTS items_owner ON items (owner_key)",
+    "CREATE TABLE IF NOT EXISTS contracts (contract_key BIGINT PRIMARY KEY, item_key BIGINT NOT NULL,"
+        + " lender_key BIGINT NOT NULL, borrower_key BIGINT NOT NULL, start_day INT NOT NULL,"
+        + " end_day INT NOT NULL)",
+    "CREATE INDEX IF NOT EXISTS contracts_item ON contracts (item_key)",
+  };
+
+  private final Connection connection;
+  private final PreparedStatement insertUser;
+  private final PreparedStatement updateUser;
+  private final PreparedStatement deleteUser;
+  private final PreparedStatement selectUserByKey;
+  private final PreparedStatement selectUserByUsername;
+  private final PreparedStatement selectUserByEmail;
+  private final PreparedStatement selectUserByPhoneNumber;
+  private final PreparedStatement selectAllUsers;
+  private final PreparedStatement selectAnyUser;
+  private final PreparedStatement insertItem;
+  private final PreparedStatement updateItem;
+  private final PreparedStatement deleteItem;
+  private final PreparedStatement deleteItemsByOwner;
+  private final PreparedStatement selectItemsByOwner;
+  private final PreparedStatement selectItemOwner;
+  private final PreparedStatement selectAllItemOwners;
+  private final PreparedStatement selectAllItemCategories;
+  private final PreparedStatement selectAllItemTexts;
+  private final PreparedStatement insertContract;
+  private final PreparedStatement deleteContract;
+  private final PreparedStatement deleteContractsByItem;
+  private final PreparedStatement deleteContractsByOwner;
+  private final PreparedStatement selectAllContracts;
+
+  private final IdentityCache<Iuser> users = new IdentityCache<>();
+  private final IdentityCache<Item> items = new IdentityCache<>();
+  private int transactionDepth; // The number of nested transactions open, 0 when each statement commits itself
+
+  /**
+   * Connects to a database and creates the tables and indexes if they do not
+   * exist yet.
+   *
+   * @param jdbcUrl The JDBC URL of the database, for example
+   *                jdbc:h2:./data/register.
+   * @throws SQLException if the database cannot be opened or prepared.
+   */
+  public JdbcRegisterRepository(String jdbcUrl) throws SQLException {
+    connection = DriverManager.getConnection(jdbcUrl);
+    try (Statement statement = connection.createStatement()) {
+      for (String sql : SCHEMA) {
+        statement.execute(sql);
+      }
+    }
+    insertUser = connection.prepareStatement("INSERT INTO users (" + USER_COLUMNS + ", email_key)"
+        + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+    updateUser = connection.prepareStatement("UPDATE users SET username = ?, password = ?, email = ?,"
+        + " phone_number = ?, credits = ?, email_key = ? WHERE user_key = ?");
+    deleteUser = connection.prepareStatement("DELETE FROM users WHERE user_key = ?");
+    selectUserByKey = connection.prepareStatement("SELECT " + USER_COLUMNS + " FROM users WHERE user_key = ?");
+    selectUserByUsername = connection.prepareStatement("SELECT " + USER_COLUMNS + " FROM users WHERE username = ?");
+    selectUserByEmail = connection.prepareStatement("SELECT " + USER_COLUMNS + " FROM users WHERE email_key = ?");
+    selectUserByPhoneNumber = connection.prepareStatement("SELECT " + USER_COLUMNS
+        + " FROM users WHERE phone_number = ?");
+    selectAllUsers = connection.prepareStatement("SELECT " + USER_COLUMNS + " FROM users ORDER BY user_key");
+    selectAnyUser = connection.prepareStatement("SELECT user_key FROM users FETCH FIRST 1 ROWS ONLY");
+    insertItem = connection.prepareStatement("INSERT INTO items (" + ITEM_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)");
+    updateItem = connection.prepareStatement("UPDATE items SET name = ?, cost_per_day = ?, description = ?,"
+        + " category = ? WHERE item_key = ?");
+    deleteItem = connection.prepareStatement("DELETE FROM items WHERE item_key = ?");
+    deleteItemsByOwner = connection.prepareStatement("DELETE FROM items WHERE owner_key = ?");
+    selectItemsByOwner = connection.prepareStatement("SELECT " + ITEM_COLUMNS
+        + " FROM items WHERE owner_key = ? ORDER BY item_key");
+    selectItemOwner = connection.prepareStatement("SELECT owner_key FROM items WHERE item_key = ?");
+    selectAllItemOwners = connection.prepareStatement("SELECT item_key, owner_key FROM items ORDER BY item_key");
+    selectAllItemCategories = connection.prepareStatement("SELECT item_key, category FROM items ORDER BY item_key");
+    selectAllItemTexts = connection.prepareStatement("SELECT item_key, name, description FROM items"
+        + " ORDER BY item_key");
+    insertContract = connection.prepareStatement("INSERT INTO contracts (contract_key, item_key, lender_key,"
+        + " borrower_key, start_day, end_day) VALUES (?, ?, ?, ?, ?, ?)");
+    deleteContract = connection.prepareStatement("DELETE FROM contracts WHERE contract_key = ?");
+    deleteContractsByItem = connection.prepareStatement("DELETE FROM contracts WHERE item_key = ?");
+    deleteContractsByOwner = connection.prepareStatement("DELETE FROM contracts WHERE item_key IN"
+        + " (SELECT item_key FROM items WHERE owner_key = ?)");
+    selectAllContracts = connection.prepareStatement("SELECT contract_key, item_key, borrower_key, start_day,"
+        + " end_day FROM contracts ORDER BY contract_key");
+  }
+
+  @Override
+  public synchronized void addUser(Iuser iuser) {
+    try {
+      setUserColumns(insertUser, iuser);
+      insertUser.executeUpdate();
+    } catch (SQLException e) {
+      throw new StorageException("The user could not be stored.", e);
+    }
+    users.put(iuser.getKey(), iuser);
+  }
+
+  @Override
+  public synchronized void addUsers(List<? extends Iuser> newUsers) {
+    inTransaction(() -> {
+      for (Iuser iuser : newUsers) {
+        setUserColumns(insertUser, iuser);
+        insertUser.addBatch();
+      }
+      insertUser.executeBatch();
+    }, "The users could not be stored.");
+    for (Iuser iuser : newUsers) {
+      users.put(iuser.getKey(), iuser);
+    }
+  }
+
+  /*
+   * Sets the columns of a user row in the order of USER_COLUMNS, then the email
+   * key.
+   */
+  private static void setUserColumns(PreparedStatement statement, Iuser iuser) throws SQLException {
+    statement.setLong(1, iuser.getKey());
+    statement.setBoolean(2, !(iuser instanceof Member));
+    statement.setString(3, iuser.getUsername());
+    statement.setString(4, iuser.getPassword());
+    statement.setString(5, iuser.getEmail());
+    statement.setString(6, iuser.getPhoneNumber());
+    statement.setInt(7, iuser instanceof Member ? ((Member) iuser).getCredits() : 0);
+    statement.setString(8, iuser.getEmail().toLowerCase());
+  }
+
+  @Override
+  public synchronized void removeUser(Iuser iuser) {
+    inTransaction(() -> {
+      deleteContractsByOwner.setLong(1, iuser.getKey());
+      deleteContractsByOwner.executeUpdate();
+      deleteItemsByOwner.setLong(1, iuser.getKey());
+      deleteItemsByOwner.executeUpdate();
+      deleteUser.setLong(1, iuser.getKey());
+      deleteUser.executeUpdate();
+    }, "The user could not be removed.");
+    users.remove(iuser.getKey());
+    if (iuser instanceof Member) {
+      for (Item item : ((Member) iuser).getOwnedItems()) {
+        items.remove(item.getKey());
+      }
+    }
+  }
+
+  @Override
+  public synchronized void updateUser(Iuser iuser) {
+    try {
+      updateUser.setString(1, iuser.getUsername());
+      updateUser.setString(2, iuser.getPassword());
+      updateUser.setString(3, iuser.getEmail());
+      updateUser.setString(4, iuser.getPhoneNumber());
+      updateUser.setInt(5, iuser instanceof Member ? ((Member) iuser).getCredits() : 0);
+      updateUser.setString(6, iuser.getEmail().toLowerCase());
+      updateUser.setLong(7, iuser.getKey());
+      updateUser.executeUpdate();
+    } catch (SQLException e) {
+      throw new StorageException("The user could not be updated.", e);
+    }
+  }
+
+  @Override
+  public void changeUsername(Iuser iuser, String newUsername) {
+    // Stored by updateUser once the user has changed
+  }
+
+  @Override
+  public void changeEmail(Iuser iuser, String newEmail) {
+    // Stored by updateUser once the user has changed
+  }
+
+  @Override
+  public void changePhoneNumber(Iuser iuser, String newPhoneNumber) {
+    // Stored by updateUser once the user has changed
+  }
+
+  @Override
+  public synchronized Iuser findUserByKey(long key) {
+    Iuser cached = users.get(key);
+    if (cached != null) {
+      return cached;
+    }
+    try {
+      selectUserByKey.setLong(1, key);
+      return findUser(selectUserByKey);
+    } catch (SQLException e) {
+      throw new StorageException("The user could not be read.", e);
+    }
+  }
+
+  @Override
+  public synchronized Iuser findUserByUsername(String username) {
+    try {
+      selectUserByUsername.setString(1, username);
+      return findUser(selectUserByUsername);
+    } catch (SQLException e) {
+      throw new StorageException("The user could not be read.", e);
+    }
+  }
+
+  @Override
+  public synchronized Iuser findUserByEmail(String email) {
+    try {
+      selectUserByEmail.setString(1, email.toLowerCase());
+      return findUser(selectUserByEmail);
+    } catch (SQLException e) {
+      throw new StorageException("The user could not be read.", e);
+    }
+  }
+
+  @Override
+  public synchronized Iuser findUserByPhoneNumber(String phoneNumber) {
+    try {
+      selectUserByPhoneNumber.setString(1, phoneNumber);
+      return findUser(selectUserByPhoneNumber);
+    } catch (SQLException e) {
+      throw new StorageException("The user could not be read.", e);
+    }
+  }
+
+  @Override
+  public synchronized boolean isEmpty() {
+    try (ResultSet rows = selectAnyUser.executeQuery()) {
+      return !rows.next();
+    } catch (SQLException e) {
+      throw new StorageException("The users could not be read.", e);
+    }
+  }
+
+  @Override
+  public synchronized List<Iuser> findAllUsers() {
+    List<Iuser> allUsers = new ArrayList<>();
+    try (ResultSet rows = selectAllUsers.executeQuery()) {
+      while (rows.next()) {
+        allUsers.add(toUser(rows));
+      }
+    } catch (SQLException e) {
+      throw new StorageException("The users could not be read.", e);
+    }
+    return allUsers;
+  }
+
+  /*
+   * Runs a query for at most one user row and returns the user.
+   */
+  private Iuser findUser(PreparedStatement query) throws SQLException {
+    try (ResultSet rows = query.executeQuery()) {
+      return rows.next() ? toUser(rows) : null;
+    }
+  }
+
+  /*
+   * Returns the cached user of a row, or builds it with its items.
+   */
+  private Iuser toUser(ResultSet row) throws SQLException {
+    long key = row.getLong(1);
+    Iuser cached = users.get(key);
+    if (cached != null) {
+      return cached;
+    }
+    Iuser iuser;
+    if (row.getBoolean(2)) {
+      iuser = new Administrator(key, row.getString(3), row.getString(4), row.getString(5), row.getString(6));
+    } else {
+      Member member = new Member(key, row.getString(3), row.getString(4), row.getString(5), row.getString(6));
+      member.addCredits(row.getInt(7));
+      Member owner = loadItems(member);
+      if (owner != member) {
+        users.put(key, owner);
+        return owner; // The member is still alive through one of its items
+      }
+      iuser = member;
+    }
+    users.put(key, iuser);
+    return iuser;
+  }
+
+  /*
+   * Loads the items of a new member object. If one of the items is still
+   * cached, its owner is the member already in use and is returned instead.
+   */
+  private Member loadItems(Member member) throws SQLException {
+    List<Item> loaded = new ArrayList<>();
+    selectItemsByOwner.setLong(1, member.getKey());
+    try (ResultSet rows = selectItemsByOwner.executeQuery()) {
+      while (rows.next()) {
+        Item cached = items.get(rows.getLong(1));
+        if (cached != null && cached.getOwner() != null) {
+          return cached.getOwner();
+        }
+        loaded.add(toItem(rows));
+      }
+    }
+    for (Item item : loaded) {
+      member.restoreItem(item);
+      items.put(item.getKey(), item);
+    }
+    return member;
+  }
+
+  /*
+   * Builds an item from a row in the order of ITEM_COLUMNS.
+   */
+  private static Item toItem(ResultSet row) throws SQLException {
+    Item item = new Item(row.getLong(1), row.getString(3), row.getInt(4), row.getString(5),
+        CategoryEnum.valueOf(row.getString(6)));
+    long registrationDay = row.getLong(7);
+    if (!row.wasNull()) {
+      item.setDayOfRegistration(LocalDate.ofEpochDay(registrationDay));
+    }
+    return item;
+  }
+
+  @Override
+  public synchronized void addItem(Item item) {
+    try {
+      setItemColumns(insertItem, item);
+      insertItem.executeUpdate();
+    } catch (SQLException e) {
+      throw new StorageException("The item could not be stored.", e);
+    }
+    items.put(item.getKey(), item);
+  }
+
+  @Override
+  public synchronized void addItems(List<Item> newItems) {
+    inTransaction(() -> {
+      for (Item item : newItems) {
+        setItemColumns(insertItem, item);
+        insertItem.addBatch();
+      }
+      insertItem.executeBatch();
+    }, "The items could not be stored.");
+    for (Item item : newItems) {
+      items.put(item.getKey(), item);
+    }
+  }
+
+  /*
+   * Sets the columns of an item row in the order of ITEM_COLUMNS.
+   */
+  private static void setItemColumns(PreparedStatement statement, Item item) throws SQLException {
+    statement.setLong(1, item.getKey());
+    statement.setLong(2, item.getOwner().getKey());
+    statement.setString(3, item.getName());
+    statement.setInt(4, item.getcostPerDay());
+    statement.setString(5, item.getDescription());
+    statement.setString(6, item.getCategory().name());
+    if (item.getDayOfRegistration() == null) {
+      statement.setNull(7, Types.BIGINT);
+    } else {
+      statement.setLong(7, item.getDayOfRegistration().toEpochDay());
+    }
+  }
+
+  @Override
+  public synchronized void removeItem(Item item) {
+    inTransaction(() -> {
+      deleteContractsByItem.setLong(1, item.getKey());
+      deleteContractsByItem.executeUpdate();
+      deleteItem.setLong(1, item.getKey());
+      deleteItem.executeUpdate();
+    }, "The item could not be removed.");
+    items.remove(item.getKey());
+  }
+
+  @Override
+  public synchronized void updateItem(Item item) {
+    try {
+      updateItem.setString(1, item.getName());
+      updateItem.setInt(2, item.getcostPerDay());
+      updateItem.setString(3, item.getDescription());
+      updateItem.setString(4, item.getCategory().name());
+      updateItem.setLong(5, item.getKey());
+      updateItem.executeUpdate();
+    } catch (SQLException e) {
+      throw new StorageException("The item could not be updated.", e);
+    }
+  }
+
+  @Override
+  public synchronized Item findItemByKey(long key) {
+    Item cached = items.get(key);
+    if (cached != null) {
+      return cached;
+    }
+    try {
+      selectItemOwner.setLong(1, key);
+      long ownerKey;
+      try (ResultSet rows = selectItemOwner.executeQuery()) {
+        if (!rows.next()) {
+          return null;
+        }
+        ownerKey = rows.getLong(1);
+      }
+      findUserByKey(ownerKey); // Loads the owner with all its items
+      return items.get(key);
+    } catch (SQLException e) {
+      throw new StorageException("The item could not be read.", e);
+    }
+  }
+
+  @Override
+  public synchronized List<Item> findAllItems() {
+    List<Item> allItems = new ArrayList<>();
+    Map<Long, Long> missing = new HashMap<>(); // Item keys of items not in the cache, with their owners
+    List<Long> order = new ArrayList<>();
+    try (ResultSet rows = selectAllItemOwners.executeQuery()) {
+      while (rows.next()) {
+        long key = rows.getLong(1);
+        order.add(key);
+        if (items.get(key) == null) {
+          missing.put(key, rows.getLong(2));
+        }
+      }
+    } catch (SQLException e) {
+      throw new StorageException("The items could not be read.", e);
+    }
+    for (long ownerKey : missing.values()) {
+      findUserByKey(ownerKey); // Loads each owner once, the rest are then cached
+    }
+    for (long key : order) {
+      Item item = items.get(key);
+      if (item != null) {
+        allItems.add(item);
+      }
+    }
+    return allItems;
+  }
+
+  @Override
+  public synchronized Map<Long, CategoryEnum> loadItemCategories() {
+    Map<Long, CategoryEnum> categories = new LinkedHashMap<>();
+    try (ResultSet rows = selectAllItemCategories.executeQuery()) {
+      while (rows.next()) {
+        categories.put(rows.getLong(1), CategoryEnum.valueOf(rows.getString(2)));
+      }
+    } catch (SQLException e) {
+      throw new StorageException("The items could not be read.", e);
+    }
+    return categories;
+  }
+
+  @Override
+  public synchronized void loadItemTexts(ItemTextConsumer consumer) {
+    try (ResultSet rows = selectAllItemTexts.executeQuery()) {
+      while (rows.next()) {
+        consumer.accept(rows.getLong(1), rows.getString(2), rows.getString(3));
+      }
+    } catch (SQLException e) {
+      throw new StorageException("The items could not be read.", e);
+    }
+  }
+
+  @Override
+  public synchronized void addContract(Contract contract) {
+    try {
+      insertContract.setLong(1, contract.getContractKey());
+      insertContract.setLong(2, contract.getItem().getKey());
+      insertContract.setLong(3, contract.getLenderKey());
+      insertContract.setLong(4, contract.getBorrowerKey());
+      insertContract.setInt(5, contract.getStartDate().getEpochDay());
+      insertContract.setInt(6, contract.getEndDate().getEpochDay());
+      insertContract.executeUpdate();
+    } catch (SQLException e) {
+      throw new StorageException("The contract could not be stored.", e);
+    }
+  }
+
+  @Override
+  public synchronized void removeContract(Contract contract) {
+    try {
+      deleteContract.setLong(1, contract.getContractKey());
+      deleteContract.executeUpdate();
+    } catch (SQLException e) {
+      throw new StorageException("The contract could not be removed.", e);
+    }
+  }
+
+  @Override
+  public synchronized List<Contract> loadContracts() {
+    List<long[]> rows = new ArrayList<>();
+    try (ResultSet result = selectAllContracts.executeQuery()) {
+      while (result.next()) {
+        rows.add(new long[] {result.getLong(1), result.getLong(2), result.getLong(3), result.getInt(4),
+            result.getInt(5)});
+      }
+    } catch (SQLException e) {
+      throw new StorageException("The contracts could not be read.", e);
+    }
+    List<Contract> contracts = new ArrayList<>(rows.size());
+    for (long[] row : rows) {
+      Item item = findItemByKey(row[1]);
+      Iuser borrower = findUserByKey(row[2]);
+      if (item == null || !(borrower instanceof Member)) {
+        continue; // The borrower has been removed
+      }
+      contracts.add(new Contract(row[0], SimpleDate.ofEpochDay((int) row[3]), SimpleDate.ofEpochDay((int) row[4]),
+          item, item.getOwner(), (Member) borrower));
+    }
+    return contracts;
+  }
+
+  /*
+   * Statements run together in one transaction.
+   */
+  private interface SqlWork {
+    void run() throws SQLException;
+  }
+
+  /*
+   * Runs statements in one transaction and rolls them back if one fails.
+   */
+  private void inTransaction(SqlWork work, String failureMessage) {
+    runInTransaction(() -> {
+      try {
+        work.run();
+      } catch (SQLException e) {
+        throw new StorageException(failureMessage, e);
+      }
+      return null;
+    });
+  }
+
+  @Override
+  public synchronized <T> T runInTransaction(Supplier<T> changes) {
+    if (transactionDepth > 0) {
+      return changes.get(); // Part of the transaction already open
+    }
+    try {
+      connection.setAutoCommit(false);
+    } catch (SQLException e) {
+      throw new StorageException("The changes could not be started.", e);
+    }
+    transactionDepth++;
+    try {
+      T result = changes.get();
+      connection.commit();
+      return result;
+    } catch (SQLException e) {
+      rollback();
+      throw new StorageException("The changes could not be stored.", e);
+    } catch (RuntimeException e) {
+      rollback();
+      throw e;
+    } finally {
+      transactionDepth--;
+      try {
+        connection.setAutoCommit(true);
+      } catch (SQLException e) {
+        throw new StorageException("The changes could not be finished.", e);
+      }
+    }
+  }
+
+  /*
+   * Rolls back the open transaction. A failure to do so is left to the
+   * connection, which drops the changes when it closes.
+   */
+  private void rollback() {
+    try {
+      connection.rollback();
+    } catch (SQLException e) {
+      // The original failure is more useful to report
+    }
+  }
+
+  /**
+   * Closes the database connection.
+   */
+  @Override
+  public synchronized void close() {
+    try {
+      connection.close();
+    } catch (SQLException e) {
+      throw new StorageException("The database could not be closed.", e);
+    }
+  }
+
+  /*
+   * Maps IDs to soft references, so that entities nobody uses can be dropped.
+   */
+  private static final class IdentityCache<T> {
+    private final Map<Long, Entry<T>> entries = new HashMap<>();
+    private final ReferenceQueue<T> cleared = new ReferenceQueue<>();
+
+    T get(long key) {
+      removeCleared();
+      Entry<T> entry = entries.get(key);
+      return entry == null ? null : entry.get();
+    }
+
+    void put(long key, T value) {
+      removeCleared();
+      entries.put(key, new Entry<>(key, value, cleared));
+    }
+
+    void remove(long key) {
+      entries.remove(key);
+    }
+
+    private void removeCleared() {
+      Object reference;
+      while ((reference = cleared.poll()) != null) {
+        Entry<?> entry = (Entry<?>) reference;
+        entries.remove(entry.key, entry);
+      }
+    }
+
+    private static final class Entry<T> extends SoftReference<T> {
+      private final long key;
+
+      Entry(long key, T value, ReferenceQueue<T> queue) {
+        super(value, queue);
+        this.key = key;
+      }
+    }
+  }
+}
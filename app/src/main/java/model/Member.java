@@ -2,23 +2,34 @@ package model;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.UUID;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * Represents a member of the system.
+ *
+ * <p>A member can be read by many threads at once. Changes hold the register's
+ * lock shared and the member's own lock, always taken in that order. Credits
+ * are the exception: they are changed with compare-and-set on the balance, so
+ * transfers between unrelated members never wait for each other.
  */
 public class Member implements Iuser {
 
-  private String memberId; // Unique ID for the member
-  private String username; // Username of the member
-  private String password; // Password of the member
+  private final long memberKey; // Unique ID for the member
+  private String memberId; // Text form of the ID, created when first needed
+  private volatile String username; // Username of the member
+  private volatile String password; // Password of the member
   private String role; // Role of the member
-  private String email; // Email address of the member
-  private String phoneNumber; // Phone number of the member
+  private volatile String email; // Email address of the member
+  private volatile String phoneNumber; // Phone number of the member
 
-  private int credits;
-  private ArrayList<Item> ownedItems;
-  private ArrayList<Item> borrowedItems;
+  private final AtomicInteger credits = new AtomicInteger(); // Initialize with 0 credits
+  private final List<Item> ownedItems = new CopyOnWriteArrayList<>(); // Copied on change, so readers need no lock
+  private final List<Item> borrowedItems = new CopyOnWriteArrayList<>();
+  private volatile UserRegister register; // The register the member belongs to, if any
+  private volatile ContractParty partyView; // Read-only view handed out by contracts
 
   /**
    * Constructs a member with the specified username, password, email, and phone
@@ -30,33 +41,45 @@ public class Member implements Iuser {
    * @param phoneNumber The phone number of the member.
    */
   public Member(String username, String password, String email, String phoneNumber) {
+    this(EntityIds.next(), username, password, email, phoneNumber);
+  }
+
+  /**
+   * Constructs a member with an existing ID, used when the register is rebuilt.
+   *
+   * @param memberKey   The ID of the member.
+   * @param username    The username of the member.
+   * @param password    The password of the member.
+   * @param email       The email address of the member.
+   * @param phoneNumber The phone number of the member.
+   */
+  Member(long memberKey, String username, String password, String email, String phoneNumber) {
+    this.memberKey = memberKey;
     setUsername(username);
     setPassword(password);
     setEmail(email);
     setPhoneNumber(phoneNumber);
-    this.credits = 0; // Initialize with 0 credits
-    this.ownedItems = new ArrayList<>();
-    this.borrowedItems = new ArrayList<>();
     this.role = "Member";
-    this.memberId = createUniqueMemberId();
+    refreshPartyView();
   }
 
   /*
-   * Creates a unique member ID.
-   *
-   * @return The unique member ID.
+   * Overrides the getId() method from the IUser interface.
    */
-  private String createUniqueMemberId() {
-    String uuid = UUID.randomUUID().toString().replace("-", "");
-    return uuid.substring(0, 6);
+  @Override
+  public String getId() {
+    if (memberId == null) {
+      memberId = EntityIds.toDisplayString(memberKey);
+    }
+    return memberId;
   }
 
   /*
-   * Overrides the getId() method from the IUser interface.
+   * Overrides the getKey() method from the IUser interface.
    */
   @Override
-  public String getId() {
-    return memberId;
+  public long getKey() {
+    return memberKey;
   }
 
   /*
@@ -72,7 +95,11 @@ public class Member implements Iuser {
    */
   @Override
   public void setUsername(String username) {
-    this.username = username;
+    change(() -> {
+      this.username = username;
+      refreshPartyView();
+      recordUpdate();
+    });
   }
 
   /*
@@ -88,7 +115,10 @@ public class Member implements Iuser {
    */
   @Override
   public void setPassword(String password) {
-    this.password = password;
+    change(() -> {
+      this.password = password;
+      recordUpdate();
+    });
   }
 
   /*
@@ -104,7 +134,11 @@ public class Member implements Iuser {
    */
   @Override
   public void setEmail(String email) {
-    this.email = email;
+    change(() -> {
+      this.email = email;
+      refreshPartyView();
+      recordUpdate();
+    });
   }
 
   /*
@@ -120,7 +154,10 @@ public class Member implements Iuser {
    */
   @Override
   public void setPhoneNumber(String phoneNumber) {
-    this.phoneNumber = phoneNumber;
+    change(() -> {
+      this.phoneNumber = phoneNumber;
+      recordUpdate();
+    });
   }
 
   /*
@@ -131,13 +168,97 @@ public class Member implements Iuser {
     return role;
   }
 
+  /**
+   * Gets the read-only view of the member used by contracts.
+   *
+   * @return The party view of the member.
+   */
+  ContractParty getPartyView() {
+    return partyView;
+  }
+
+  /*
+   * Replaces the party view after the username or email has changed.
+   */
+  private void refreshPartyView() {
+    partyView = new ContractParty(memberKey, username, email);
+  }
+
+  /*
+   * Stores the profile of the member after a change.
+   */
+  private void recordUpdate() {
+    if (register != null) {
+      register.memberUpdated(this);
+    }
+  }
+
+  /*
+   * Runs a change of the member with the register's lock held shared and the
+   * member's own lock held.
+   */
+  private void change(Runnable change) {
+    UserRegister changedRegister = beginChange();
+    try {
+      synchronized (this) {
+        change.run();
+      }
+    } finally {
+      endChange(changedRegister);
+    }
+  }
+
+  /**
+   * Takes the register's lock shared, if the member is registered, before the
+   * member or one of its items changes.
+   *
+   * @return The register whose lock was taken, to pass to endChange, or null.
+   */
+  UserRegister beginChange() {
+    UserRegister changedRegister = register;
+    if (changedRegister != null) {
+      changedRegister.beginChange();
+    }
+    return changedRegister;
+  }
+
+  /**
+   * Releases the lock taken by beginChange.
+   *
+   * @param changedRegister The register returned by beginChange, or null.
+   */
+  static void endChange(UserRegister changedRegister) {
+    if (changedRegister != null) {
+      changedRegister.endChange();
+    }
+  }
+
+  /**
+   * Gets the register the member belongs to.
+   *
+   * @return The register, or null if the member is not registered.
+   */
+  UserRegister getRegister() {
+    return register;
+  }
+
+  /**
+   * Sets the register the member belongs to. Called by UserRegister when the
+   * member is added or removed.
+   *
+   * @param register The register, or null when the member is removed.
+   */
+  void setRegister(UserRegister register) {
+    this.register = register;
+  }
+
   /*
    * Gets credits for a Member.
    *
    * @return The credits of the Member.
    */
   public int getCredits() {
-    return credits;
+    return credits.get();
   }
 
   /*
@@ -146,16 +267,165 @@ public class Member implements Iuser {
    * @param credits The credits to add.
    */
   public void addCredits(int credits) {
-    this.credits += credits;
+    UserRegister changedRegister = beginChange();
+    try {
+      this.credits.addAndGet(credits);
+      recordCredits(credits);
+    } finally {
+      endChange(changedRegister);
+    }
   }
 
   /*
-   * Deducts credits from a Member.
+   * Deducts credits from a Member, even if the balance becomes negative.
    *
    * @param credits The credits to deduct.
    */
   public void deductCredits(int credits) {
-    this.credits -= credits;
+    addCredits(-credits);
+  }
+
+  /**
+   * Deducts credits from the member if the balance covers them. The check and
+   * the deduction are one atomic step, so two deductions can never both spend
+   * the same credits.
+   *
+   * @param credits The credits to deduct, not negative.
+   * @return True if the credits were deducted, false if the balance is too low.
+   */
+  public boolean tryDeductCredits(int credits) {
+    UserRegister changedRegister = beginChange();
+    try {
+      int balance;
+      do {
+        balance = this.credits.get();
+        if (balance < credits) {
+          return false;
+        }
+      } while (!this.credits.compareAndSet(balance, balance - credits));
+      recordCredits(-credits);
+      return true;
+    } finally {
+      endChange(changedRegister);
+    }
+  }
+
+  /**
+   * Moves credits from this member to another if this member's balance covers
+   * them. The credits leave this member atomically before they reach the
+   * receiver, so they can be spent only once. No lock of either member is
+   * taken, so transfers cannot deadlock, whatever order the members are in.
+   * The repository stores both balances in one transaction.
+   *
+   * @param receiver The member receiving the credits.
+   * @param credits  The credits to move, not negative.
+   * @return True if the credits were moved, false if the balance is too low.
+   */
+  public boolean transferCredits(Member receiver, int credits) {
+    UserRegister changedRegister = beginChange(); // A snapshot sees the transfer whole or not at all
+    try {
+      Supplier<Boolean> transfer = () -> {
+        if (!tryDeductCredits(credits)) {
+          return false;
+        }
+        receiver.addCredits(credits);
+        return true;
+      };
+      // The repository stores both balances or neither
+      return changedRegister == null ? transfer.get() : changedRegister.inTransaction(transfer);
+    } finally {
+      endChange(changedRegister);
+    }
+  }
+
+  /**
+   * Moves credits from this member to the owner of an item, as transferCredits
+   * does, if the item still has an owner in this member's register. The owner
+   * is checked and paid with the owner's lock held, and the owner cannot be
+   * removed while the register's lock is held shared, so the item is not
+   * deleted and the owner not removed in between. If the check fails nothing
+   * is deducted.
+   *
+   * @param item    The item whose owner receives the credits.
+   * @param credits The credits to move, not negative.
+   * @return True if the credits were moved, false if the item has no owner in
+   *         the register or the balance is too low.
+   */
+  public boolean transferCreditsToOwner(Item item, int credits) {
+    UserRegister changedRegister = beginChange();
+    try {
+      Member owner = item.getOwner();
+      if (owner == null) {
+        return false;
+      }
+      synchronized (owner) { // Items are deleted with their owner's lock held
+        if (item.getOwner() != owner || owner.getRegister() != changedRegister) {
+          return false;
+        }
+        return transferCredits(owner, credits);
+      }
+    } finally {
+      endChange(changedRegister);
+    }
+  }
+
+  /**
+   * Signs a contract for this member as the borrower: books its dates on the
+   * item, moves its cost to the owner of the item and adds the item to the
+   * borrowed items, all or nothing. The owner is checked and paid with the
+   * owner's lock held, as in transferCreditsToOwner. The repository stores the
+   * booking and the payment in one transaction and the journal records them as
+   * one record, so neither is ever stored without the other.
+   *
+   * @param contract The contract, with this member as the borrower.
+   * @return True if the contract was signed, false if its dates are taken, the
+   *         item has no owner in the register or the balance is too low.
+   */
+  public boolean borrow(Contract contract) {
+    Item item = contract.getItem();
+    int cost = contract.getCost();
+    UserRegister changedRegister = beginChange();
+    try {
+      Member owner = item.getOwner();
+      if (owner == null) {
+        return false;
+      }
+      synchronized (owner) { // Items are deleted with their owner's lock held
+        if (item.getOwner() != owner || owner.getRegister() != changedRegister) {
+          return false;
+        }
+        Supplier<Boolean> signing = () -> {
+          if (!item.tryAddContract(contract)) {
+            return false;
+          }
+          boolean paid = false;
+          try {
+            paid = transferCredits(owner, cost);
+            if (paid) {
+              addBorrowedItem(item);
+            }
+            return paid;
+          } finally {
+            if (!paid) {
+              item.deleteContract(contract); // Free the dates again
+            }
+          }
+        };
+        return changedRegister == null ? signing.get() : changedRegister.changeAtomically(signing);
+      }
+    } finally {
+      endChange(changedRegister);
+    }
+  }
+
+  /*
+   * Stores the credits after a change of the given amount.
+   */
+  private void recordCredits(int amount) {
+    UserRegister currentRegister = register;
+    if (currentRegister != null) {
+      currentRegister.creditsChanged(this, amount);
+    }
   }
 
   /*
@@ -184,19 +454,39 @@ public class Member implements Iuser {
    * @return True if the item was deleted, false otherwise.
    */
   public boolean deleteItem(String itemId) {
-    boolean itemDeleted = false;
-    for (Item item : ownedItems) {
-      if (item.getId().equals(itemId)) {
-        ArrayList<Contract> itemContracts = item.getAllContracts();
-        for (Contract contract : itemContracts) {
-          item.deleteContract(contract);
+    return deleteItem(EntityIds.parse(itemId));
+  }
+
+  /**
+   * Deletes an item from a member.
+   *
+   * @param itemKey The numeric ID of the item to delete.
+   *
+   * @return True if the item was deleted, false otherwise.
+   */
+  boolean deleteItem(long itemKey) {
+    UserRegister changedRegister = beginChange();
+    try {
+      synchronized (this) {
+        for (Item item : ownedItems) {
+          if (item.getKey() == itemKey) {
+            ArrayList<Contract> itemContracts = item.getAllContracts();
+            for (Contract contract : itemContracts) {
+              item.deleteContract(contract);
+            }
+            ownedItems.remove(item);
+            if (register != null) {
+              register.removeItemFromCatalog(item);
+            }
+            item.setOwner(null);
+            return true;
+          }
         }
-        ownedItems.remove(item);
-        itemDeleted = true;
-        return itemDeleted;
+        return false;
       }
+    } finally {
+      endChange(changedRegister);
     }
-    return itemDeleted;
   }
 
 
@@ -215,11 +505,64 @@ public class Member implements Iuser {
    * @param item The item to add.
    */
   public void addItem(Item item) {
-    ownedItems.add(item);
-    TimeTracker itemTimeTracker = new TimeTracker();
-    LocalDate currentDate = itemTimeTracker.getCurrentDate();
-    item.setDayOfRegistration(currentDate);
-    addCredits(100);
+    change(() -> {
+      item.setDayOfRegistration(LocalDate.now());
+      restoreItem(item);
+      addCredits(100);
+    });
+  }
+
+  /**
+   * Adds several items registered on the same day, with the credits for adding
+   * them. The items are cataloged together and the credits are added at once.
+   *
+   * @param items             The items to add.
+   * @param dayOfRegistration The registration date of the items.
+   */
+  void addItems(List<Item> items, LocalDate dayOfRegistration) {
+    change(() -> {
+      for (Item item : items) {
+        item.setDayOfRegistration(dayOfRegistration);
+        item.setOwner(this);
+      }
+      ownedItems.addAll(items); // One copy of the list for all items
+      if (register != null) {
+        register.addItemsToCatalog(items);
+      }
+      addCredits(100 * items.size());
+    });
+  }
+
+  /**
+   * Adds an item to a Member without a new registration date or the credits for
+   * adding it. Used when the register is rebuilt.
+   *
+   * @param item The item to add.
+   */
+  void restoreItem(Item item) {
+    change(() -> {
+      ownedItems.add(item);
+      item.setOwner(this);
+      if (register != null) {
+        register.addItemToCatalog(item);
+      }
+    });
+  }
+
+  /**
+   * Adds several items to a Member at once without a new registration date or
+   * the credits for adding them, and without cataloging them. Used by the
+   * register when it is rebuilt from a snapshot and catalogs them itself.
+   *
+   * @param items The items to add.
+   */
+  void restoreItems(List<Item> items) {
+    change(() -> {
+      for (Item item : items) {
+        item.setOwner(this);
+      }
+      ownedItems.addAll(items); // One copy of the list for all items
+    });
   }
 
   /**
@@ -227,10 +570,10 @@ public class Member implements Iuser {
    *
    * @param item The item to be added to the list of borrowed items.
    */
-  public void addBorrowedItem(Item item) {
+  public synchronized void addBorrowedItem(Item item) {
     // Check if the item is already in the list of borrowed items for some other date.
     for (Item borrowedItem : borrowedItems) {
-      if (borrowedItem.getId().equals(item.getId())) {
+      if (borrowedItem.getKey() == item.getKey()) {
         return;
       }
     }
@@ -245,8 +588,9 @@ public class Member implements Iuser {
    * @return The item with the specified ID.
    */
   public Item getItemById(String id) {
+    long itemKey = EntityIds.parse(id);
     for (Item item : ownedItems) {
-      if (item.getId().equals(id)) {
+      if (item.getKey() == itemKey) {
         return item;
       }
     }
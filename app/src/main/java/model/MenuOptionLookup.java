@@ -0,0 +1,57 @@
+package model;
+
+import java.lang.reflect.Array;
+
+/**
+ * Finds the option of a menu by its number in constant time. Menu options are
+ * numbered from -1 (Back) upwards with few gaps, so they are kept in an array
+ * indexed by option number instead of being compared one by one. A lookup
+ * never changes once built, so one per menu can be shared by all sessions.
+ *
+ * @param <E> The enum of the menu options.
+ */
+public final class MenuOptionLookup<E extends Enum<E> & MenuOption> {
+  private final E[] optionsByNumber; // The option with each number, offset by the lowest number
+  private final int lowestNumber;
+
+  /**
+   * Builds the lookup of a menu.
+   *
+   * @param menu The enum class of the menu options.
+   * @throws IllegalArgumentException if two options have the same number.
+   */
+  @SuppressWarnings("unchecked")
+  public MenuOptionLookup(Class<E> menu) {
+    E[] options = menu.getEnumConstants();
+    int lowest = 0;
+    int highest = 0;
+    for (E option : options) {
+      lowest = Math.min(lowest, option.getOptionNumber());
+      highest = Math.max(highest, option.getOptionNumber());
+    }
+    lowestNumber = lowest;
+    optionsByNumber = (E[]) Array.newInstance(menu, highest - lowest + 1);
+    for (E option : options) {
+      int index = option.getOptionNumber() - lowestNumber;
+      if (optionsByNumber[index] != null) {
+        throw new IllegalArgumentException("Two options of " + menu.getSimpleName() + " have number "
+            + option.getOptionNumber());
+      }
+      optionsByNumber[index] = option;
+    }
+  }
+
+  /**
+   * Finds the option with a number.
+   *
+   * @param optionNumber The number entered by the user.
+   * @return The option, or null if the menu has no option with that number.
+   */
+  public E find(int optionNumber) {
+    int index = optionNumber - lowestNumber;
+    if (index < 0 || index >= optionsByNumber.length) {
+      return null;
+    }
+    return optionsByNumber[index];
+  }
+}
@@ -0,0 +1,63 @@
+package model;
+
+/**
+ * A reminder about a contract for one member: its loan ends tomorrow, it ended
+ * and the item should be back, or their item is available again.
+ */
+public class Notification {
+  private final NotificationKind kind;
+  private final ContractParty recipient;
+  private final String contractId;
+  private final String message;
+
+  /**
+   * Constructs a notification.
+   *
+   * @param kind      The kind of reminder.
+   * @param recipient The member to notify.
+   * @param contract  The contract the reminder is about.
+   * @param date      The date the reminder is about.
+   */
+  Notification(NotificationKind kind, ContractParty recipient, Contract contract, SimpleDate date) {
+    this.kind = kind;
+    this.recipient = recipient;
+    this.contractId = contract.getContractId();
+    this.message = kind.formatMessage(contract.getItem().getName(), date);
+  }
+
+  /**
+   * Gets the kind of reminder.
+   *
+   * @return The kind.
+   */
+  public NotificationKind getKind() {
+    return kind;
+  }
+
+  /**
+   * Gets the member to notify.
+   *
+   * @return The recipient, as it was when the reminder was made.
+   */
+  public ContractParty getRecipient() {
+    return recipient;
+  }
+
+  /**
+   * Gets the ID of the contract the reminder is about.
+   *
+   * @return The contract ID.
+   */
+  public String getContractId() {
+    return contractId;
+  }
+
+  /**
+   * Gets the text of the reminder.
+   *
+   * @return The message.
+   */
+  public String getMessage() {
+    return message;
+  }
+}
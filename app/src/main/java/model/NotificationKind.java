@@ -0,0 +1,27 @@
+package model;
+
+/**
+ * The kinds of reminders sent about contracts.
+ */
+public enum NotificationKind {
+  ENDING_TOMORROW("Your loan of %s ends tomorrow, %s."),
+  OVERDUE("Your loan of %s ended on %s, please return it."),
+  BECAME_AVAILABLE("Your item %s is available again since %s.");
+
+  private final String messageFormat;
+
+  NotificationKind(String messageFormat) {
+    this.messageFormat = messageFormat;
+  }
+
+  /**
+   * Formats the message of a reminder of this kind.
+   *
+   * @param itemName The name of the item.
+   * @param date     The date the reminder is about.
+   * @return The message.
+   */
+  String formatMessage(String itemName, SimpleDate date) {
+    return String.format(messageFormat, itemName, date);
+  }
+}
@@ -0,0 +1,308 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Sends reminders about contracts in the background. A generator thread looks
+ * at the current day at a fixed interval and, for every day that has started
+ * since it last looked, reads the contracts ending around that day from the
+ * contract register:
+ *
+ * <ul>
+ * <li>the borrower of a contract ending tomorrow is reminded of it;</li>
+ * <li>the borrower of a contract that ended yesterday is asked to return the
+ * item;</li>
+ * <li>the lender of that item is told it is available again, unless another
+ * contract has already started.</li>
+ * </ul>
+ *
+ * <p>Reminders go through a bounded queue to a delivery thread, which takes
+ * everything waiting, groups it by recipient and hands each recipient's
+ * reminders to the sink in one call. When the queue is full the generator
+ * waits a short while and then drops the reminder, counting it, so a slow
+ * sink cannot hold up the generator forever. The menus never wait for the
+ * pipeline: they only move the clock, which the generator reads.
+ *
+ * <p>The last day checked can be kept in a file, written after the reminders
+ * of each new day are queued. A pipeline started with that file goes on from
+ * the day after it, so restarting the system on the same day, or on a day
+ * before one the clock had been moved to, sends no reminder twice.
+ */
+public class NotificationPipeline implements Closeable {
+  private static final int QUEUE_CAPACITY = 4096;
+  private static final int MAX_BATCH = 512; // Reminders taken from the queue per delivery round
+  private static final long OFFER_TIMEOUT_MILLIS = 1000;
+  private static final long POLL_TIMEOUT_MILLIS = 100;
+
+  private final ContractRegister contractRegister;
+  private final IntSupplier currentDay;
+  private final NotificationSink sink;
+  private final long checkIntervalMillis;
+  private final Path lastCheckedDayFile; // Keeps lastCheckedDay across restarts, or null
+  private final BlockingQueue<Notification> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+  private final ScheduledExecutorService generator;
+  private final Thread deliverer;
+  private final AtomicLong delivered = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private int lastCheckedDay; // Only used by the generator thread
+  private volatile boolean generatorStopped;
+
+  /**
+   * Constructs a pipeline. Nothing runs until it is started.
+   *
+   * @param contractRegister    The contracts to send reminders about.
+   * @param currentDay          Gives the current epoch day.
+   * @param sink                Delivers the reminders.
+   * @param checkIntervalMillis How often to look at the current day, in
+   *                            milliseconds.
+   */
+  public NotificationPipeline(ContractRegister contractRegister, IntSupplier currentDay, NotificationSink sink,
+      long checkIntervalMillis) {
+    this(contractRegister, currentDay, sink, checkIntervalMillis, null, currentDay.getAsInt() - 1);
+  }
+
+  /**
+   * Constructs a pipeline that keeps the last day checked in a file, and goes
+   * on from the day after the one in the file if it exists. Nothing runs until
+   * it is started.
+   *
+   * @param contractRegister    The contracts to send reminders about.
+   * @param currentDay          Gives the current epoch day.
+   * @param sink                Delivers the reminders.
+   * @param checkIntervalMillis How often to look at the current day, in
+   *                            milliseconds.
+   * @param lastCheckedDayFile  The file keeping the last day checked, created
+   *                            when needed.
+   * @throws IOException if the file exists but cannot be read.
+   */
+  public NotificationPipeline(ContractRegister contractRegister, IntSupplier currentDay, NotificationSink sink,
+      long checkIntervalMillis, Path lastCheckedDayFile) throws IOException {
+    this(contractRegister, currentDay, sink, checkIntervalMillis, lastCheckedDayFile,
+        Files.exists(lastCheckedDayFile) ? readLastCheckedDay(lastCheckedDayFile) : currentDay.getAsInt() - 1);
+  }
+
+  /*
+   * Constructs a pipeline that checks the days after the given one first.
+   */
+  private NotificationPipeline(ContractRegister contractRegister, IntSupplier currentDay, NotificationSink sink,
+      long checkIntervalMillis, Path lastCheckedDayFile, int lastCheckedDay) {
+    this.contractRegister = contractRegister;
+    this.currentDay = currentDay;
+    this.sink = sink;
+    this.checkIntervalMillis = checkIntervalMillis;
+    this.lastCheckedDayFile = lastCheckedDayFile;
+    this.lastCheckedDay = lastCheckedDay;
+    this.generator = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "notification-generator"));
+    this.deliverer = daemon(this::deliverUntilStopped, "notification-deliverer");
+  }
+
+  /*
+   * Reads the last day checked, written by a pipeline before a restart.
+   */
+  private static int readLastCheckedDay(Path file) throws IOException {
+    String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+    try {
+      return Integer.parseInt(text);
+    } catch (NumberFormatException e) {
+      throw new IOException("The file " + file + " does not hold a day.", e);
+    }
+  }
+
+  /*
+   * Creates a thread that does not keep the process alive.
+   */
+  private static Thread daemon(Runnable runnable, String name) {
+    Thread thread = new Thread(runnable, name);
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  /**
+   * Starts the generator and the delivery thread.
+   */
+  public void start() {
+    deliverer.start();
+    generator.scheduleWithFixedDelay(this::checkNewDays, 0, checkIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Checks the days that have started since the last check one more time,
+   * delivers every reminder still in the queue and stops both threads.
+   *
+   * @throws IOException if interrupted while waiting for the threads.
+   */
+  @Override
+  public void close() throws IOException {
+    generator.shutdown();
+    try {
+      if (generator.awaitTermination(checkIntervalMillis + OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+        checkNewDays(); // The generator has stopped, so this thread may take over its state
+      } else {
+        generator.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while stopping the notifications", e);
+    } finally {
+      generatorStopped = true;
+    }
+    try {
+      deliverer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while stopping the notifications", e);
+    }
+  }
+
+  /**
+   * Gets the number of reminders handed to the sink.
+   *
+   * @return The number of reminders delivered.
+   */
+  public long getDelivered() {
+    return delivered.get();
+  }
+
+  /**
+   * Gets the number of reminders dropped because the queue stayed full.
+   *
+   * @return The number of reminders dropped.
+   */
+  public long getDropped() {
+    return dropped.get();
+  }
+
+  /**
+   * Gets the number of reminders the sink failed to deliver.
+   *
+   * @return The number of reminders lost to sink errors.
+   */
+  public long getFailed() {
+    return failed.get();
+  }
+
+  /*
+   * Generates the reminders of every day that has started since the last
+   * check. Runs on the generator thread.
+   */
+  private void checkNewDays() {
+    int today = currentDay.getAsInt();
+    if (lastCheckedDay >= today) {
+      return;
+    }
+    while (lastCheckedDay < today) {
+      lastCheckedDay++;
+      generate(lastCheckedDay);
+    }
+    saveLastCheckedDay();
+  }
+
+  /*
+   * Writes the last day checked to its file, replacing the file in one step so
+   * that a crash leaves the old or the new day. If it cannot be written, the
+   * reminders of the days since the last write may be sent again after a
+   * restart.
+   */
+  private void saveLastCheckedDay() {
+    if (lastCheckedDayFile == null) {
+      return;
+    }
+    Path temporaryFile = lastCheckedDayFile.resolveSibling(lastCheckedDayFile.getFileName() + ".tmp");
+    try {
+      Files.write(temporaryFile, Integer.toString(lastCheckedDay).getBytes(StandardCharsets.UTF_8));
+      Files.move(temporaryFile, lastCheckedDayFile, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      // Tried again after the next new day
+    }
+  }
+
+  /*
+   * Generates the reminders due on one day.
+   */
+  private void generate(int day) {
+    SimpleDate tomorrow = SimpleDate.ofEpochDay(day + 1);
+    for (Contract contract : contractRegister.getContractsEndingBetween(tomorrow, tomorrow)) {
+      publish(new Notification(NotificationKind.ENDING_TOMORROW, contract.getBorrower(), contract, tomorrow));
+    }
+    SimpleDate yesterday = SimpleDate.ofEpochDay(day - 1);
+    SimpleDate today = SimpleDate.ofEpochDay(day);
+    for (Contract contract : contractRegister.getContractsEndingBetween(yesterday, yesterday)) {
+      publish(new Notification(NotificationKind.OVERDUE, contract.getBorrower(), contract, yesterday));
+      if (!contract.getItem().hasTimeConflict(day, day)) {
+        publish(new Notification(NotificationKind.BECAME_AVAILABLE, contract.getLender(), contract, today));
+      }
+    }
+  }
+
+  /*
+   * Puts a reminder in the queue, waiting a short while if it is full.
+   */
+  private void publish(Notification notification) {
+    try {
+      if (!queue.offer(notification, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+        dropped.incrementAndGet();
+      }
+    } catch (InterruptedException e) {
+      dropped.incrementAndGet();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /*
+   * Delivers reminders until the generator has stopped and the queue is empty.
+   * Runs on the delivery thread.
+   */
+  private void deliverUntilStopped() {
+    List<Notification> batch = new ArrayList<>(MAX_BATCH);
+    while (!generatorStopped || !queue.isEmpty()) {
+      try {
+        Notification first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+      } catch (InterruptedException e) {
+        return;
+      }
+      queue.drainTo(batch, MAX_BATCH - 1);
+      deliver(batch);
+      batch.clear();
+    }
+  }
+
+  /*
+   * Hands the reminders of a batch to the sink, one call per recipient.
+   */
+  private void deliver(List<Notification> batch) {
+    Map<Long, List<Notification>> byRecipient = new LinkedHashMap<>();
+    for (Notification notification : batch) {
+      byRecipient.computeIfAbsent(notification.getRecipient().getKey(), key -> new ArrayList<>()).add(notification);
+    }
+    for (List<Notification> notifications : byRecipient.values()) {
+      try {
+        sink.deliver(notifications.get(0).getRecipient(), notifications);
+        delivered.addAndGet(notifications.size());
+      } catch (IOException | RuntimeException e) {
+        failed.addAndGet(notifications.size()); // The sink is not retried, the next reminders may get through
+      }
+    }
+  }
+}
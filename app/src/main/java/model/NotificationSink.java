@@ -0,0 +1,21 @@
+package model;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Delivers reminders, for example by mail or to a file. The notification
+ * pipeline calls the sink from its own thread only, with all pending reminders
+ * of one member at a time.
+ */
+public interface NotificationSink {
+
+  /**
+   * Delivers a batch of reminders to one member.
+   *
+   * @param recipient     The member to notify.
+   * @param notifications The reminders, oldest first, all for the recipient.
+   * @throws IOException if the reminders could not be delivered.
+   */
+  void deliver(ContractParty recipient, List<Notification> notifications) throws IOException;
+}
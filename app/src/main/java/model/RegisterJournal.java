@@ -0,0 +1,485 @@
+package model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records every change of a UserRegister in a write-ahead log and rebuilds the
+ * register from the log on startup. Users, items and contracts are recorded
+ * with their full state when they are added or changed; credits are recorded
+ * as the amount added or deducted, so replaying the log gives the same
+ * balances without repeating side effects such as the bonus for adding an
+ * item. Changes that must be kept all or none, such as a booking and its
+ * payment, are written as one record holding the records of each change, so
+ * that a crash keeps or loses them whole.
+ *
+ * <p>Every time the log has grown by the snapshot interval, and when the
+ * journal is closed, a snapshot of the whole register is saved. Startup then
+ * loads the snapshot and replays only the part of the log written after it.
+ * Snapshots are taken after a change has finished, with the register's lock
+ * held exclusively, so that the register matches the log up to its end.
+ */
+public class RegisterJournal implements Closeable {
+  private static final String LOG_FILE_NAME = "register.wal";
+  private static final String SNAPSHOT_FILE_NAME = "register.snapshot";
+  private static final long SNAPSHOT_INTERVAL_BYTES = Long.getLong("stufflending.snapshotInterval", 8L << 20);
+
+  private static final byte MEMBER_ADDED = 1;
+  private static final byte ADMINISTRATOR_ADDED = 2;
+  private static final byte USER_REMOVED = 3;
+  private static final byte MEMBER_UPDATED = 4;
+  private static final byte ITEM_ADDED = 5;
+  private static final byte ITEM_UPDATED = 6;
+  private static final byte ITEM_DELETED = 7;
+  private static final byte CONTRACT_ADDED = 8;
+  private static final byte CONTRACT_DELETED = 9;
+  private static final byte CREDITS_CHANGED = 10;
+  private static final byte TRANSACTION = 11;
+
+  private final UserRegister register;
+  private final WriteAheadLog log;
+  private final Path snapshotFile;
+  private volatile long snapshotLogLength; // Length of the log contained in the last snapshot
+  private volatile long nextSnapshotLogLength; // Length of the log at which to save the next snapshot
+  private final ThreadLocal<List<byte[]>> batch = new ThreadLocal<>(); // Records held back by a thread, or null
+
+  /*
+   * Constructs a journal writing to an open log.
+   */
+  private RegisterJournal(UserRegister register, WriteAheadLog log, Path snapshotFile, long snapshotLogLength) {
+    this.register = register;
+    this.log = log;
+    this.snapshotFile = snapshotFile;
+    this.snapshotLogLength = snapshotLogLength;
+    this.nextSnapshotLogLength = snapshotLogLength + SNAPSHOT_INTERVAL_BYTES;
+  }
+
+  /**
+   * Opens the journal in a data directory, loads the latest snapshot and the
+   * rest of the log into the register and attaches the journal to the register
+   * so that later changes are recorded.
+   *
+   * @param register The register to rebuild, which must be empty.
+   * @param dataDir  The directory holding the snapshot and log files.
+   * @return The journal.
+   * @throws IOException if the snapshot or log cannot be read or opened.
+   */
+  public static RegisterJournal open(UserRegister register, Path dataDir) throws IOException {
+    Path snapshotFile = dataDir.resolve(SNAPSHOT_FILE_NAME);
+    long snapshotLogLength = RegisterSnapshot.load(register, snapshotFile);
+    WriteAheadLog log = WriteAheadLog.open(dataDir.resolve(LOG_FILE_NAME), snapshotLogLength,
+        record -> apply(register, record));
+    RegisterJournal journal = new RegisterJournal(register, log, snapshotFile, snapshotLogLength);
+    register.setJournal(journal);
+    return journal;
+  }
+
+  /**
+   * Saves a snapshot of the register now. Changes to the register wait until
+   * the snapshot is saved.
+   *
+   * @throws IOException if the snapshot cannot be written.
+   */
+  public void saveSnapshot() throws IOException {
+    register.lockExclusively();
+    try {
+      long logLength = log.getLength();
+      RegisterSnapshot.write(register, logLength, snapshotFile);
+      snapshotLogLength = logLength;
+      nextSnapshotLogLength = logLength + SNAPSHOT_INTERVAL_BYTES;
+    } finally {
+      register.unlockExclusively();
+    }
+  }
+
+  /**
+   * Gets the number of batches forced to disk since the journal was opened.
+   *
+   * @return The number of batches.
+   */
+  public long getBatchCount() {
+    return log.getBatchCount();
+  }
+
+  /**
+   * Saves a snapshot if anything was recorded since the last one, and closes
+   * the log file.
+   *
+   * @throws IOException if the snapshot cannot be written or the file cannot
+   *                     be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      if (log.getLength() > snapshotLogLength) {
+        saveSnapshot();
+      }
+    } finally {
+      log.close();
+    }
+  }
+
+  /*
+   * Holds back the records of the following changes made by this thread until
+   * the batch is finished or discarded, so that they are written with a single
+   * wait for the disk. Changes made by other threads meanwhile are recorded as
+   * usual.
+   */
+  void startBatch() {
+    batch.set(new ArrayList<>());
+  }
+
+  /*
+   * Appends the records held back since startBatch and waits until they are on
+   * disk.
+   */
+  void finishBatch() {
+    List<byte[]> records = batch.get();
+    batch.remove();
+    log.appendAll(records);
+  }
+
+  /*
+   * Appends the records held back since startBatch as one record and waits
+   * until it is on disk. A crash keeps all the changes of the batch or none.
+   */
+  void finishBatchAtomically() {
+    List<byte[]> records = batch.get();
+    batch.remove();
+    if (records.size() < 2) {
+      log.appendAll(records);
+      return;
+    }
+    append(out -> {
+      out.writeByte(TRANSACTION);
+      out.writeInt(records.size());
+      for (byte[] record : records) {
+        out.writeInt(record.length);
+        out.write(record);
+      }
+    });
+  }
+
+  /*
+   * Drops the records held back since startBatch, for changes that failed and
+   * were undone.
+   */
+  void discardBatch() {
+    batch.remove();
+  }
+
+  /*
+   * Records that a user was added to the register.
+   */
+  void userAdded(Iuser iuser) {
+    if (iuser instanceof Member) {
+      Member member = (Member) iuser;
+      append(out -> {
+        out.writeByte(MEMBER_ADDED);
+        writeUser(out, member);
+        out.writeInt(member.getCredits());
+      });
+    } else {
+      append(out -> {
+        out.writeByte(ADMINISTRATOR_ADDED);
+        writeUser(out, iuser);
+      });
+    }
+  }
+
+  /*
+   * Records that a user was removed from the register.
+   */
+  void userRemoved(Iuser iuser) {
+    append(out -> {
+      out.writeByte(USER_REMOVED);
+      out.writeLong(iuser.getKey());
+    });
+  }
+
+  /*
+   * Records the new username, password, email or phone number of a member.
+   */
+  void memberUpdated(Member member) {
+    append(out -> {
+      out.writeByte(MEMBER_UPDATED);
+      writeUser(out, member);
+    });
+  }
+
+  /*
+   * Records the credits added to a member; negative when deducted.
+   */
+  void creditsChanged(Member member, int amount) {
+    append(out -> {
+      out.writeByte(CREDITS_CHANGED);
+      out.writeLong(member.getKey());
+      out.writeInt(amount);
+    });
+  }
+
+  /*
+   * Records that an item was added to its owner.
+   */
+  void itemAdded(Item item) {
+    append(out -> {
+      out.writeByte(ITEM_ADDED);
+      out.writeLong(item.getOwner().getKey());
+      writeItem(out, item);
+      LocalDate dayOfRegistration = item.getDayOfRegistration();
+      out.writeLong(dayOfRegistration == null ? Long.MIN_VALUE : dayOfRegistration.toEpochDay());
+    });
+  }
+
+  /*
+   * Records the new name, cost, description or category of an item.
+   */
+  void itemUpdated(Item item) {
+    append(out -> {
+      out.writeByte(ITEM_UPDATED);
+      writeItem(out, item);
+    });
+  }
+
+  /*
+   * Records that an item was deleted by its owner.
+   */
+  void itemDeleted(Item item) {
+    append(out -> {
+      out.writeByte(ITEM_DELETED);
+      out.writeLong(item.getKey());
+    });
+  }
+
+  /*
+   * Records a new contract.
+   */
+  void contractAdded(Contract contract) {
+    append(out -> {
+      out.writeByte(CONTRACT_ADDED);
+      out.writeLong(contract.getContractKey());
+      out.writeLong(contract.getItem().getKey());
+      out.writeLong(contract.getLenderKey());
+      out.writeLong(contract.getBorrowerKey());
+      out.writeInt(contract.getStartDate().getEpochDay());
+      out.writeInt(contract.getEndDate().getEpochDay());
+    });
+  }
+
+  /*
+   * Records that a contract was deleted.
+   */
+  void contractDeleted(Contract contract) {
+    append(out -> {
+      out.writeByte(CONTRACT_DELETED);
+      out.writeLong(contract.getItem().getKey());
+      out.writeLong(contract.getContractKey());
+    });
+  }
+
+  /*
+   * Writes the fields shared by all users.
+   */
+  private static void writeUser(DataOutputStream out, Iuser iuser) throws IOException {
+    out.writeLong(iuser.getKey());
+    out.writeUTF(iuser.getUsername());
+    out.writeUTF(iuser.getPassword());
+    out.writeUTF(iuser.getEmail());
+    out.writeUTF(iuser.getPhoneNumber());
+  }
+
+  /*
+   * Writes the editable fields of an item.
+   */
+  private static void writeItem(DataOutputStream out, Item item) throws IOException {
+    out.writeLong(item.getKey());
+    out.writeUTF(item.getName());
+    out.writeInt(item.getcostPerDay());
+    out.writeUTF(item.getDescription());
+    out.writeUTF(item.getCategory().name());
+  }
+
+  /*
+   * Writes a record with the given writer and appends it to the log.
+   */
+  private void append(RecordWriter writer) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      writer.write(out);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e); // Not thrown by a byte array stream
+    }
+    List<byte[]> records = batch.get();
+    if (records != null) {
+      records.add(bytes.toByteArray());
+      return;
+    }
+    log.append(bytes.toByteArray());
+  }
+
+  /*
+   * Saves a snapshot if the log has grown by the snapshot interval. Called by
+   * the register after a change, when the calling thread holds no part of the
+   * register's lock.
+   */
+  void saveSnapshotIfDue() {
+    if (log.getLength() < nextSnapshotLogLength) {
+      return;
+    }
+    register.lockExclusively();
+    try {
+      if (log.getLength() >= nextSnapshotLogLength) { // Another thread may have saved one meanwhile
+        saveSnapshot();
+      }
+    } catch (IOException e) {
+      // The log still holds every change, so try again after another interval
+      nextSnapshotLogLength = log.getLength() + SNAPSHOT_INTERVAL_BYTES;
+    } finally {
+      register.unlockExclusively();
+    }
+  }
+
+  /*
+   * Writes the fields of one record.
+   */
+  private interface RecordWriter {
+    void write(DataOutputStream out) throws IOException;
+  }
+
+  /*
+   * Applies one record to the register during replay. The journal is not yet
+   * attached, so nothing is recorded again. Records referring to users or items
+   * that no longer exist are skipped.
+   */
+  private static void apply(UserRegister register, DataInput in) throws IOException {
+    byte type = in.readByte();
+    switch (type) {
+      case MEMBER_ADDED: {
+        Member member = new Member(in.readLong(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF());
+        member.addCredits(in.readInt());
+        register.addIuser(member);
+        break;
+      }
+      case ADMINISTRATOR_ADDED:
+        register.addIuser(new Administrator(in.readLong(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF()));
+        break;
+      case USER_REMOVED: {
+        Iuser iuser = register.getIuserByKey(in.readLong());
+        if (iuser != null) {
+          register.removeIuser(iuser);
+        }
+        break;
+      }
+      case MEMBER_UPDATED: {
+        Member member = findMember(register, in.readLong());
+        String username = in.readUTF();
+        String password = in.readUTF();
+        String email = in.readUTF();
+        String phoneNumber = in.readUTF();
+        if (member != null) {
+          register.changeUsername(member, username);
+          member.setPassword(password);
+          register.changeEmail(member, email);
+          register.changePhoneNumber(member, phoneNumber);
+        }
+        break;
+      }
+      case CREDITS_CHANGED: {
+        Member member = findMember(register, in.readLong());
+        int amount = in.readInt();
+        if (member != null) {
+          member.addCredits(amount);
+        }
+        break;
+      }
+      case ITEM_ADDED: {
+        Member owner = findMember(register, in.readLong());
+        Item item = new Item(in.readLong(), in.readUTF(), in.readInt(), in.readUTF(),
+            CategoryEnum.valueOf(in.readUTF()));
+        long dayOfRegistration = in.readLong();
+        if (dayOfRegistration != Long.MIN_VALUE) {
+          item.setDayOfRegistration(LocalDate.ofEpochDay(dayOfRegistration));
+        }
+        if (owner != null) {
+          owner.restoreItem(item);
+        }
+        break;
+      }
+      case ITEM_UPDATED: {
+        Item item = register.getItemByKey(in.readLong());
+        String name = in.readUTF();
+        int costPerDay = in.readInt();
+        String description = in.readUTF();
+        CategoryEnum category = CategoryEnum.valueOf(in.readUTF());
+        if (item != null) {
+          item.setName(name);
+          item.setcostPerDay(costPerDay);
+          item.setDescription(description);
+          item.setCategory(category);
+        }
+        break;
+      }
+      case ITEM_DELETED: {
+        Item item = register.getItemByKey(in.readLong());
+        if (item != null) {
+          item.getOwner().deleteItem(item.getKey());
+        }
+        break;
+      }
+      case CONTRACT_ADDED: {
+        long contractKey = in.readLong();
+        Item item = register.getItemByKey(in.readLong());
+        Member lender = findMember(register, in.readLong());
+        Member borrower = findMember(register, in.readLong());
+        SimpleDate startDate = SimpleDate.ofEpochDay(in.readInt());
+        SimpleDate endDate = SimpleDate.ofEpochDay(in.readInt());
+        if (item != null && lender != null && borrower != null) {
+          // Older logs may hold overlapping contracts booked by racing sessions, the first one wins
+          if (item.tryAddContract(new Contract(contractKey, startDate, endDate, item, lender, borrower))) {
+            borrower.addBorrowedItem(item);
+          } else {
+            register.contractDropped();
+          }
+        }
+        break;
+      }
+      case CONTRACT_DELETED: {
+        Item item = register.getItemByKey(in.readLong());
+        Contract contract = register.getContractRegister().getContractByKey(in.readLong());
+        if (item != null && contract != null) {
+          item.deleteContract(contract);
+        }
+        break;
+      }
+      case TRANSACTION: {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+          byte[] record = new byte[in.readInt()];
+          in.readFully(record);
+          apply(register, new DataInputStream(new ByteArrayInputStream(record)));
+        }
+        break;
+      }
+      default:
+        throw new IOException("Unknown journal record type " + type + ".");
+    }
+  }
+
+  /*
+   * Finds a registered member by key during replay.
+   */
+  private static Member findMember(UserRegister register, long key) {
+    Iuser iuser = register.getIuserByKey(key);
+    return iuser instanceof Member ? (Member) iuser : null;
+  }
+}
@@ -0,0 +1,228 @@
+package model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Stores the users, items and contracts of a UserRegister. The register checks
+ * the rules, such as unique usernames, and tells the repository about every
+ * change; the repository only stores and finds. An implementation must return
+ * the same object for the same ID as long as the object is in use, so that
+ * members, items and contracts keep referring to each other.
+ *
+ * <p>Implementations must allow lookups from many threads at the same time as
+ * changes. The register never makes two changes to the same user at once, and
+ * adds, removes and re-keys users one at a time.
+ */
+public interface RegisterRepository {
+
+  /**
+   * Receives the text of stored items one at a time.
+   */
+  @FunctionalInterface
+  interface ItemTextConsumer {
+    /**
+     * Receives the text of one item.
+     *
+     * @param itemKey     The numeric ID of the item.
+     * @param name        The name of the item.
+     * @param description The description of the item.
+     */
+    void accept(long itemKey, String name, String description);
+  }
+
+  /**
+   * Stores a new user.
+   *
+   * @param iuser The user.
+   */
+  void addUser(Iuser iuser);
+
+  /**
+   * Stores several new users at once.
+   *
+   * @param iusers The users.
+   */
+  void addUsers(List<? extends Iuser> iusers);
+
+  /**
+   * Removes a user and the items the user owns.
+   *
+   * @param iuser The user.
+   */
+  void removeUser(Iuser iuser);
+
+  /**
+   * Stores the current profile and credits of a user.
+   *
+   * @param iuser The user.
+   */
+  void updateUser(Iuser iuser);
+
+  /**
+   * Moves a user to a new username. Called before the user is changed.
+   *
+   * @param iuser       The user.
+   * @param newUsername The new username.
+   */
+  void changeUsername(Iuser iuser, String newUsername);
+
+  /**
+   * Moves a user to a new email address. Called before the user is changed.
+   *
+   * @param iuser    The user.
+   * @param newEmail The new email address.
+   */
+  void changeEmail(Iuser iuser, String newEmail);
+
+  /**
+   * Moves a user to a new phone number. Called before the user is changed.
+   *
+   * @param iuser          The user.
+   * @param newPhoneNumber The new phone number.
+   */
+  void changePhoneNumber(Iuser iuser, String newPhoneNumber);
+
+  /**
+   * Finds a user by ID.
+   *
+   * @param key The ID of the user.
+   * @return The user, or null if not found.
+   */
+  Iuser findUserByKey(long key);
+
+  /**
+   * Finds a user by username.
+   *
+   * @param username The username.
+   * @return The user, or null if not found.
+   */
+  Iuser findUserByUsername(String username);
+
+  /**
+   * Finds a user by email address, ignoring case.
+   *
+   * @param email The email address.
+   * @return The user, or null if not found.
+   */
+  Iuser findUserByEmail(String email);
+
+  /**
+   * Finds a user by phone number.
+   *
+   * @param phoneNumber The phone number.
+   * @return The user, or null if not found.
+   */
+  Iuser findUserByPhoneNumber(String phoneNumber);
+
+  /**
+   * Checks if no users are stored.
+   *
+   * @return True if there are no users.
+   */
+  boolean isEmpty();
+
+  /**
+   * Finds all users, in the order they were added.
+   *
+   * @return The users.
+   */
+  List<Iuser> findAllUsers();
+
+  /**
+   * Stores a new item of a member.
+   *
+   * @param item The item, with its owner set.
+   */
+  void addItem(Item item);
+
+  /**
+   * Stores several new items at once.
+   *
+   * @param items The items, with their owners set.
+   */
+  void addItems(List<Item> items);
+
+  /**
+   * Removes an item.
+   *
+   * @param item The item.
+   */
+  void removeItem(Item item);
+
+  /**
+   * Stores the current name, cost, description and category of an item.
+   *
+   * @param item The item.
+   */
+  void updateItem(Item item);
+
+  /**
+   * Finds an item by ID.
+   *
+   * @param key The ID of the item.
+   * @return The item, or null if not found.
+   */
+  Item findItemByKey(long key);
+
+  /**
+   * Finds all items, in the order of their IDs.
+   *
+   * @return The items.
+   */
+  List<Item> findAllItems();
+
+  /**
+   * Loads the category of every stored item when the register is created, to
+   * build the category index without loading the items themselves.
+   *
+   * @return The category of each item, by the ID of the item.
+   */
+  Map<Long, CategoryEnum> loadItemCategories();
+
+  /**
+   * Reads the name and description of every stored item when the register is
+   * created, to build the search index without loading the items themselves.
+   * Each item is passed on as it is read, so the texts are never all held at
+   * once.
+   *
+   * @param consumer Receives the text of each item, in the order of the IDs.
+   */
+  void loadItemTexts(ItemTextConsumer consumer);
+
+  /**
+   * Runs changes that belong together, such as the two balances of a credit
+   * transfer, so that they are stored all or none. Changes of other threads
+   * wait until the changes are stored. Runs nested in another such call the
+   * changes become part of the outer one.
+   *
+   * @param <T>     The type of the result.
+   * @param changes The changes.
+   * @return The result of the changes.
+   */
+  <T> T runInTransaction(Supplier<T> changes);
+
+  /**
+   * Stores a new contract.
+   *
+   * @param contract The contract.
+   */
+  void addContract(Contract contract);
+
+  /**
+   * Removes a contract.
+   *
+   * @param contract The contract.
+   */
+  void removeContract(Contract contract);
+
+  /**
+   * Loads the stored contracts when the register is created. The register
+   * keeps the contracts in memory from then on.
+   *
+   * @return The contracts, or an empty list if the repository keeps no
+   *         contracts of its own.
+   */
+  List<Contract> loadContracts();
+}
@@ -0,0 +1,258 @@
+package model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Reads and writes compact binary snapshots of a UserRegister: every user,
+ * item and contract, and the length of the journal log the snapshot contains.
+ * A snapshot is written to a temporary file and moved into place, so a crash
+ * leaves the previous snapshot intact. It is loaded by memory-mapping the file
+ * and decoding it in one pass, and is checked against a CRC32 checksum at its
+ * end.
+ */
+final class RegisterSnapshot {
+  private static final int MAGIC = 0x534c5353; // "SLSS"
+  private static final int VERSION = 1;
+  private static final int CHECKSUM_BYTES = 4;
+  private static final byte ADMINISTRATOR = 0;
+  private static final byte MEMBER = 1;
+  private static final long NO_DATE = Long.MIN_VALUE;
+
+  private RegisterSnapshot() {
+  }
+
+  /**
+   * Writes a snapshot of a register. The register must not change while the
+   * snapshot is written.
+   *
+   * @param register  The register.
+   * @param logLength The length of the journal log the register state matches.
+   * @param file      The snapshot file, replaced when the snapshot is complete.
+   * @throws IOException if the snapshot cannot be written.
+   */
+  static void write(UserRegister register, long logLength, Path file) throws IOException {
+    Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      CRC32 crc = new CRC32();
+      OutputStream channelStream = Channels.newOutputStream(channel);
+      DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+          new BufferedOutputStream(channelStream, 1 << 16), crc));
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(logLength);
+      writeUsers(out, register);
+      writeItems(out, register);
+      writeContracts(out, register);
+      out.flush();
+      new DataOutputStream(channelStream).writeInt((int) crc.getValue());
+      channel.force(true);
+    }
+    Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /*
+   * Writes all users, administrators and members alike.
+   */
+  private static void writeUsers(DataOutputStream out, UserRegister register) throws IOException {
+    List<Iuser> users = register.getListOfAllUsers();
+    out.writeInt(users.size());
+    for (Iuser iuser : users) {
+      out.writeByte(iuser instanceof Member ? MEMBER : ADMINISTRATOR);
+      out.writeLong(iuser.getKey());
+      writeString(out, iuser.getUsername());
+      writeString(out, iuser.getPassword());
+      writeString(out, iuser.getEmail());
+      writeString(out, iuser.getPhoneNumber());
+      if (iuser instanceof Member) {
+        out.writeInt(((Member) iuser).getCredits());
+      }
+    }
+  }
+
+  /*
+   * Writes all cataloged items with the key of their owner.
+   */
+  private static void writeItems(DataOutputStream out, UserRegister register) throws IOException {
+    List<Item> items = register.getAllItems();
+    out.writeInt(items.size());
+    for (Item item : items) {
+      out.writeLong(item.getOwner().getKey());
+      out.writeLong(item.getKey());
+      writeString(out, item.getName());
+      out.writeInt(item.getcostPerDay());
+      writeString(out, item.getDescription());
+      out.writeByte(item.getCategory().ordinal());
+      LocalDate dayOfRegistration = item.getDayOfRegistration();
+      out.writeLong(dayOfRegistration == null ? NO_DATE : dayOfRegistration.toEpochDay());
+    }
+  }
+
+  /*
+   * Writes all contracts as keys and epoch days. Every borrower is registered,
+   * since removing a member cancels its bookings.
+   */
+  private static void writeContracts(DataOutputStream out, UserRegister register) throws IOException {
+    Collection<Contract> contracts = register.getContractRegister().getAllContracts();
+    out.writeInt(contracts.size());
+    for (Contract contract : contracts) {
+      out.writeLong(contract.getContractKey());
+      out.writeLong(contract.getItem().getKey());
+      out.writeLong(contract.getLenderKey());
+      out.writeLong(contract.getBorrowerKey());
+      out.writeInt(contract.getStartDate().getEpochDay());
+      out.writeInt(contract.getEndDate().getEpochDay());
+    }
+  }
+
+  /*
+   * Writes a string as its UTF-8 length and bytes.
+   */
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Loads a snapshot into an empty register.
+   *
+   * @param register The register to fill.
+   * @param file     The snapshot file.
+   * @return The length of the journal log the snapshot contains, or 0 if there
+   *         is no snapshot.
+   * @throws IOException if the snapshot cannot be read or is damaged.
+   */
+  static long load(UserRegister register, Path file) throws IOException {
+    if (!Files.exists(file)) {
+      return 0;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE || size < 16 + CHECKSUM_BYTES) {
+        throw new IOException("The snapshot " + file + " has an invalid size.");
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      checkChecksum(buffer, file);
+      buffer.limit((int) size - CHECKSUM_BYTES);
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+        throw new IOException("The snapshot " + file + " has an unknown format.");
+      }
+      long logLength = buffer.getLong();
+      new Reader(buffer).readInto(register);
+      return logLength;
+    } catch (RuntimeException e) {
+      throw new IOException("The snapshot " + file + " is damaged.", e);
+    }
+  }
+
+  /*
+   * Compares the checksum at the end of the snapshot with the bytes before it.
+   */
+  private static void checkChecksum(MappedByteBuffer buffer, Path file) throws IOException {
+    int checksumOffset = buffer.capacity() - CHECKSUM_BYTES;
+    CRC32 crc = new CRC32();
+    crc.update(buffer.duplicate().limit(checksumOffset));
+    if ((int) crc.getValue() != buffer.getInt(checksumOffset)) {
+      throw new IOException("The snapshot " + file + " is damaged.");
+    }
+  }
+
+  /*
+   * Decodes the users, items and contracts of a mapped snapshot.
+   */
+  private static final class Reader {
+    private final MappedByteBuffer buffer;
+    private byte[] stringBytes = new byte[64]; // Reused for every string
+
+    Reader(MappedByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    void readInto(UserRegister register) {
+      readUsers(register);
+      readItems(register);
+      readContracts(register);
+    }
+
+    private void readUsers(UserRegister register) {
+      int count = buffer.getInt();
+      List<Iuser> users = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        byte kind = buffer.get();
+        long key = buffer.getLong();
+        String username = readString();
+        String password = readString();
+        String email = readString();
+        String phoneNumber = readString();
+        if (kind == MEMBER) {
+          Member member = new Member(key, username, password, email, phoneNumber);
+          member.addCredits(buffer.getInt());
+          users.add(member);
+        } else {
+          users.add(new Administrator(key, username, password, email, phoneNumber));
+        }
+      }
+      register.restoreUsers(users);
+    }
+
+    private void readItems(UserRegister register) {
+      CategoryEnum[] categories = CategoryEnum.values();
+      int count = buffer.getInt();
+      Map<Member, List<Item>> itemsByOwner = new LinkedHashMap<>();
+      for (int i = 0; i < count; i++) {
+        Member owner = (Member) register.getIuserByKey(buffer.getLong());
+        Item item = new Item(buffer.getLong(), readString(), buffer.getInt(), readString(), categories[buffer.get()]);
+        long dayOfRegistration = buffer.getLong();
+        if (dayOfRegistration != NO_DATE) {
+          item.setDayOfRegistration(LocalDate.ofEpochDay(dayOfRegistration));
+        }
+        itemsByOwner.computeIfAbsent(owner, key -> new ArrayList<>()).add(item);
+      }
+      register.restoreItems(itemsByOwner);
+    }
+
+    private void readContracts(UserRegister register) {
+      int count = buffer.getInt();
+      List<Contract> contracts = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        long contractKey = buffer.getLong();
+        Item item = register.getItemByKey(buffer.getLong());
+        Member lender = (Member) register.getIuserByKey(buffer.getLong());
+        Member borrower = (Member) register.getIuserByKey(buffer.getLong());
+        SimpleDate startDate = SimpleDate.ofEpochDay(buffer.getInt());
+        SimpleDate endDate = SimpleDate.ofEpochDay(buffer.getInt());
+        contracts.add(new Contract(contractKey, startDate, endDate, item, lender, borrower));
+      }
+      register.restoreContracts(contracts); // Overlapping ones are counted and left out
+    }
+
+    private String readString() {
+      int length = buffer.getInt();
+      if (length > stringBytes.length) {
+        stringBytes = new byte[Math.max(length, stringBytes.length * 2)];
+      }
+      buffer.get(stringBytes, 0, length);
+      return new String(stringBytes, 0, length, StandardCharsets.UTF_8);
+    }
+  }
+}
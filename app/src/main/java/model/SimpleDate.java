@@ -3,15 +3,20 @@ package model;
 /**
  * Represents a date with day, month, and year components.
  * Once created, the date cannot be modified, ensuring immutability.
+ * The date is stored as the number of days since 1970-01-01 (the epoch day),
+ * so comparisons and day arithmetic take constant time. Hot paths can use the
+ * static int based methods to work with epoch days without allocating dates.
  */
-public class SimpleDate {
-  private final int day;
-  private final int month;
-  private final int year;
+public class SimpleDate implements Comparable<SimpleDate> {
+  private static final int DAYS_PER_ERA = 146097; // Days in a 400 year Gregorian cycle
+  private static final int DAYS_FROM_ERA_START_TO_EPOCH = 719468; // Days from 0000-03-01 to 1970-01-01
+
+  private final int epochDay;
 
   /**
    * Constructs a SimpleDate with specified day, month, and year.
    *
+   * @param day   The day of the month.
    * @param month The month of the year. Should be in range 1-12.
    * @param year  The year.
    * @throws IllegalArgumentException if the provided date is invalid.
@@ -21,9 +26,74 @@ public class SimpleDate {
       throw new IllegalArgumentException("Invalid date provided.");
     }
 
-    this.day = day;
-    this.month = month;
-    this.year = year;
+    this.epochDay = toEpochDay(day, month, year);
+  }
+
+  /*
+   * Constructs a SimpleDate from an epoch day, which is always valid.
+   */
+  private SimpleDate(int epochDay) {
+    this.epochDay = epochDay;
+  }
+
+  /**
+   * Creates a SimpleDate from an epoch day.
+   *
+   * @param epochDay The number of days since 1970-01-01.
+   * @return The date.
+   */
+  public static SimpleDate ofEpochDay(int epochDay) {
+    return new SimpleDate(epochDay);
+  }
+
+  /**
+   * Converts a valid day, month and year to an epoch day in constant time.
+   *
+   * @param day   The day of the month.
+   * @param month The month of the year, 1-12.
+   * @param year  The year.
+   * @return The number of days since 1970-01-01.
+   */
+  public static int toEpochDay(int day, int month, int year) {
+    // Count years from March so that the leap day is the last day of the year
+    int marchYear = month <= 2 ? year - 1 : year;
+    int era = Math.floorDiv(marchYear, 400);
+    int yearOfEra = marchYear - era * 400;
+    int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * DAYS_PER_ERA + dayOfEra - DAYS_FROM_ERA_START_TO_EPOCH;
+  }
+
+  /**
+   * Gets the number of days between two epoch days.
+   *
+   * @param firstEpochDay  The first epoch day.
+   * @param secondEpochDay The second epoch day.
+   * @return The number of days between the two epoch days.
+   */
+  public static int daysBetween(int firstEpochDay, int secondEpochDay) {
+    return Math.abs(firstEpochDay - secondEpochDay);
+  }
+
+  /**
+   * Determines if an epoch day is within a range of epoch days, inclusive.
+   *
+   * @param epochDay      The epoch day to check.
+   * @param startEpochDay The first epoch day of the range.
+   * @param endEpochDay   The last epoch day of the range.
+   * @return True if the epoch day is within the range, false otherwise.
+   */
+  public static boolean isInRange(int epochDay, int startEpochDay, int endEpochDay) {
+    return epochDay >= startEpochDay && epochDay <= endEpochDay;
+  }
+
+  /**
+   * Gets the number of days since 1970-01-01.
+   *
+   * @return The epoch day of this date.
+   */
+  public int getEpochDay() {
+    return epochDay;
   }
 
   /**
@@ -32,7 +102,9 @@ public class SimpleDate {
    * @return The day of the month.
    */
   public int getDay() {
-    return day;
+    int dayOfYear = marchDayOfYear();
+    int marchMonth = (5 * dayOfYear + 2) / 153;
+    return dayOfYear - (153 * marchMonth + 2) / 5 + 1;
   }
 
   /**
@@ -41,7 +113,8 @@ public class SimpleDate {
    * @return The month of the year.
    */
   public int getMonth() {
-    return month;
+    int marchMonth = (5 * marchDayOfYear() + 2) / 153;
+    return marchMonth < 10 ? marchMonth + 3 : marchMonth - 9;
   }
 
   /**
@@ -50,7 +123,27 @@ public class SimpleDate {
    * @return The year.
    */
   public int getYear() {
-    return year;
+    int shifted = epochDay + DAYS_FROM_ERA_START_TO_EPOCH;
+    int era = Math.floorDiv(shifted, DAYS_PER_ERA);
+    int yearOfEra = yearOfEra(shifted - era * DAYS_PER_ERA);
+    return yearOfEra + era * 400 + (getMonth() <= 2 ? 1 : 0);
+  }
+
+  /*
+   * Gets the day of the year, counted from the first of March.
+   */
+  private int marchDayOfYear() {
+    int shifted = epochDay + DAYS_FROM_ERA_START_TO_EPOCH;
+    int dayOfEra = shifted - Math.floorDiv(shifted, DAYS_PER_ERA) * DAYS_PER_ERA;
+    int yearOfEra = yearOfEra(dayOfEra);
+    return dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+  }
+
+  /*
+   * Gets the year within a 400 year era, counted from March, of a day of the era.
+   */
+  private static int yearOfEra(int dayOfEra) {
+    return (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / (DAYS_PER_ERA - 1)) / 365;
   }
 
   /**
@@ -109,44 +202,17 @@ public class SimpleDate {
    * @return The number of days between this date and the provided date.
    */
   public int daysBetween(SimpleDate otherDate) {
-    return Math.abs(totalDaysFromYearZero() - otherDate.totalDaysFromYearZero());
+    return daysBetween(epochDay, otherDate.epochDay);
   }
 
   /**
-   * Gets the total number of days from year zero to this date.
+   * Gets the date a number of days after this date.
    *
-   * @return The total number of days from year zero to this date.
+   * @param days The number of days to add, may be negative.
+   * @return The resulting date.
    */
-  private int totalDaysFromYearZero() {
-    int totalDays = 0;
-
-    // Add days for the years
-    for (int i = 0; i < year; i++) {
-      totalDays += isLeapYear(i) ? 366 : 365;
-    }
-
-    // Add days for the months
-    for (int i = 1; i < month; i++) {
-      switch (i) {
-        case 2:
-          totalDays += isLeapYear(year) ? 29 : 28;
-          break;
-        case 4:
-        case 6:
-        case 9:
-        case 11:
-          totalDays += 30;
-          break;
-        default:
-          totalDays += 31;
-          break;
-      }
-    }
-
-    // Add days for the current month
-    totalDays += day;
-
-    return totalDays;
+  public SimpleDate plusDays(int days) {
+    return new SimpleDate(epochDay + days);
   }
 
   /**
@@ -156,13 +222,7 @@ public class SimpleDate {
    * @return True if this date is before the provided date, false otherwise.
    */
   public boolean isBefore(SimpleDate other) {
-    if (this.year != other.year) {
-      return this.year < other.year;
-    }
-    if (this.month != other.month) {
-      return this.month < other.month;
-    }
-    return this.day < other.day;
+    return this.epochDay < other.epochDay;
   }
 
   /**
@@ -172,7 +232,7 @@ public class SimpleDate {
    * @return True if this date is after the provided date, false otherwise.
    */
   public boolean isAfter(SimpleDate other) {
-    return other.isBefore(this);
+    return this.epochDay > other.epochDay;
   }
 
   /**
@@ -183,11 +243,40 @@ public class SimpleDate {
    * @return True if this date is within the range, false otherwise.
    */
   public boolean isInRange(SimpleDate startDate, SimpleDate endDate) {
-    return !this.isBefore(startDate) && !this.isAfter(endDate);
+    return isInRange(epochDay, startDate.epochDay, endDate.epochDay);
+  }
+
+  /**
+   * Compares this date to another date chronologically.
+   *
+   * @param other The other date to compare to.
+   * @return A negative number, zero or a positive number if this date is before,
+   *         equal to or after the other date.
+   */
+  @Override
+  public int compareTo(SimpleDate other) {
+    return Integer.compare(epochDay, other.epochDay);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof SimpleDate)) {
+      return false;
+    }
+    return epochDay == ((SimpleDate) other).epochDay;
+  }
+
+  @Override
+  public int hashCode() {
+    return epochDay;
   }
 
+  @Override
   public String toString() {
-    return String.format("%d/%d/%d", day, month, year);
+    return String.format("%d/%d/%d", getDay(), getMonth(), getYear());
   }
 
 }
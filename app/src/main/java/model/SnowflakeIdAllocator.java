@@ -0,0 +1,56 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocates Snowflake style IDs: 41 bits of milliseconds since 2023-01-01, 10
+ * bits of node number and 12 bits of sequence number within the millisecond.
+ * IDs from one node are strictly increasing. The clock and sequence share one
+ * atomic value, so allocation never blocks. When more than 4096 IDs are needed
+ * within a millisecond, the allocator borrows the next millisecond instead of
+ * waiting for it.
+ */
+public class SnowflakeIdAllocator implements IdAllocator {
+  private static final long EPOCH_MILLIS = 1672531200000L; // 2023-01-01T00:00:00Z
+  private static final int NODE_BITS = 10;
+  private static final int SEQUENCE_BITS = 12;
+  private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+  /**
+   * The highest node number that can be used.
+   */
+  public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+
+  private final long node;
+  private final AtomicLong lastTimeAndSequence = new AtomicLong();
+
+  /**
+   * Constructs an allocator for a node.
+   *
+   * @param node The node number, 0 to MAX_NODE, unique among the processes
+   *             sharing the data.
+   * @throws IllegalArgumentException if the node number is out of range.
+   */
+  public SnowflakeIdAllocator(int node) {
+    if (node < 0 || node > MAX_NODE) {
+      throw new IllegalArgumentException("Node must be between 0 and " + MAX_NODE + ".");
+    }
+    this.node = node;
+  }
+
+  @Override
+  public long nextId() {
+    long timeAndSequence;
+    while (true) {
+      long last = lastTimeAndSequence.get();
+      long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+      // A new millisecond restarts the sequence, otherwise count on from the last ID
+      timeAndSequence = now > last ? now : last + 1;
+      if (lastTimeAndSequence.compareAndSet(last, timeAndSequence)) {
+        break;
+      }
+    }
+    long millis = timeAndSequence >>> SEQUENCE_BITS;
+    return (millis << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | (timeAndSequence & SEQUENCE_MASK);
+  }
+}
@@ -0,0 +1,18 @@
+package model;
+
+/**
+ * Thrown when a repository cannot read or write its storage.
+ */
+public class StorageException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Constructs an exception with a message and the underlying cause.
+   *
+   * @param message The message.
+   * @param cause   The underlying cause.
+   */
+  public StorageException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -7,14 +7,15 @@ import java.time.LocalDate;
  */
 public class TimeTracker {
   private LocalDate systemStartDate = LocalDate.now();
-  private int daysElapsed = 0;
+  private int systemStartEpochDay = (int) systemStartDate.toEpochDay();
+  private volatile int daysElapsed = 0; // Read by the notification pipeline
 
   /**
    * Sets the system start date.
    *
    * @param daysToAdd represents how many days we want to add to the start date.
    */
-  public void advanceDay(int daysToAdd) {
+  public synchronized void advanceDay(int daysToAdd) {
     daysElapsed += daysToAdd; // Just adds one day at a time
   }
 
@@ -27,6 +28,16 @@ public class TimeTracker {
     return systemStartDate.plusDays(daysElapsed);
   }
 
+  /**
+   * Gets the current date as the number of days since 1970-01-01, without
+   * creating a date object.
+   *
+   * @return The current epoch day.
+   */
+  public int getCurrentEpochDay() {
+    return systemStartEpochDay + daysElapsed;
+  }
+
   /**
    * Returns the number of days elapsed since the start date.
    *
@@ -1,28 +1,205 @@
 package model;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 /**
  * The UserRegister class represents a collection of Iuser objects and provides
- * methods to manage them.
+ * methods to manage them. The users, items and contracts are kept by a
+ * RegisterRepository; the register checks the rules, keeps the contract,
+ * category and search indexes and tells the repository and the journal about
+ * every change.
+ *
+ * <p>The register can be used by many threads at once. Lookups and listings
+ * take no lock. Changes to members, items and contracts share the register's
+ * lock, and are kept apart from other changes to the same member or item by
+ * that member's or item's own lock. Adding and removing users, changing a
+ * username, email address or phone number, and saving a snapshot take the
+ * register's lock exclusively, so the uniqueness checks and the snapshot see
+ * no other change in progress.
  */
 
 public class UserRegister {
 
-  private ArrayList<Iuser> iusers;
-  private Map<String, Iuser> emailToUserMap;
-  private Map<String, Iuser> phoneToUserMap;
+  private RegisterRepository repository; // Stores the users, items and contracts
+  private ContractRegister contractRegister; // All contracts of all items
+  private ItemCategoryIndex categoryIndex; // The ids of all items, by category
+  private volatile ItemSearchIndex searchIndex; // The ids of all items by their words, or null until the first search
+  private volatile RegisterJournal journal; // Records changes, or null if they are not recorded
+  private final AtomicInteger droppedContracts = new AtomicInteger(); // Overlapping contracts left out when rebuilt
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
   /**
-   * Constructs a new UserRegister object with an empty list of users and empty
-   * maps for email and phone number to user mapping.
+   * Constructs a new UserRegister object that keeps all users, items and
+   * contracts in memory.
    */
   public UserRegister() {
-    this.iusers = new ArrayList<>();
-    this.emailToUserMap = new HashMap<>();
-    this.phoneToUserMap = new HashMap<>();
+    this(new InMemoryRegisterRepository());
+  }
+
+  /**
+   * Constructs a new UserRegister object on top of a repository, and loads the
+   * stored contracts into the contract register and the stored items into the
+   * category index. The search index is built by the first search.
+   *
+   * @param repository The repository storing the users, items and contracts.
+   */
+  public UserRegister(RegisterRepository repository) {
+    this.repository = repository;
+    this.contractRegister = new ContractRegister();
+    this.categoryIndex = new ItemCategoryIndex();
+    repository.loadItemCategories().forEach(categoryIndex::add);
+    for (Contract contract : repository.loadContracts()) {
+      restoreContract(contract);
+    }
+  }
+
+  /*
+   * Adds a stored contract to its item, its borrower and the contract index.
+   * A contract overlapping one of the item restored before it is left out and
+   * counted.
+   */
+  private void restoreContract(Contract contract) {
+    Item item = getItemByKey(contract.getItem().getKey());
+    Iuser borrower = getIuserByKey(contract.getBorrowerKey());
+    if (item == null || !(borrower instanceof Member)) {
+      return;
+    }
+    if (!item.restoreContract(contract)) {
+      contractDropped();
+      return;
+    }
+    contractRegister.addContract(contract);
+    ((Member) borrower).addBorrowedItem(item);
+  }
+
+  /**
+   * Adds the users read from a snapshot to an empty register in one step: the
+   * repository stores them together and nothing is journaled. Called by
+   * RegisterSnapshot.
+   *
+   * @param iusers The users, unique as they were when the snapshot was saved.
+   */
+  void restoreUsers(List<Iuser> iusers) {
+    beginExclusiveChange();
+    try {
+      repository.addUsers(iusers);
+      for (Iuser iuser : iusers) {
+        attach(iuser);
+      }
+    } finally {
+      endExclusiveChange();
+    }
+  }
+
+  /**
+   * Adds the items read from a snapshot to their owners and catalogs them in
+   * one step, without a journal record, registration date or credits for
+   * adding them. The search index is left to the first search. Called by
+   * RegisterSnapshot.
+   *
+   * @param itemsByOwner The items of each registered member.
+   */
+  void restoreItems(Map<Member, List<Item>> itemsByOwner) {
+    beginExclusiveChange();
+    try {
+      List<Item> items = new ArrayList<>();
+      for (Map.Entry<Member, List<Item>> entry : itemsByOwner.entrySet()) {
+        entry.getKey().restoreItems(entry.getValue());
+        items.addAll(entry.getValue());
+      }
+      repository.addItems(items); // One call, so the repository can make room for all of them at once
+      for (Item item : items) {
+        categoryIndex.add(item.getKey(), item.getCategory());
+      }
+    } finally {
+      endExclusiveChange();
+    }
+  }
+
+  /**
+   * Adds the contracts read from a snapshot to their items, borrowers and the
+   * contract index, without storing or journaling them. Older snapshots may
+   * hold overlapping contracts booked by racing sessions; the first one wins
+   * and the others are left out and counted. Called by RegisterSnapshot.
+   *
+   * @param contracts The contracts, whose items and members are registered.
+   */
+  void restoreContracts(List<Contract> contracts) {
+    beginExclusiveChange();
+    try {
+      for (Contract contract : contracts) {
+        Item item = contract.getItem(); // Already the registered item, no need to look it up
+        if (item.restoreContract(contract)) {
+          contractRegister.addContract(contract);
+          ((Member) getIuserByKey(contract.getBorrowerKey())).addBorrowedItem(item);
+        } else {
+          contractDropped();
+        }
+      }
+    } finally {
+      endExclusiveChange();
+    }
+  }
+
+  /**
+   * Counts a stored contract left out while the register is rebuilt, because
+   * it overlaps a contract of the same item that was restored before it.
+   * Called by the journal during replay.
+   */
+  void contractDropped() {
+    droppedContracts.incrementAndGet();
+  }
+
+  /**
+   * Gets the number of stored contracts left out while the register was
+   * rebuilt because they overlap an earlier contract of the same item. Such
+   * contracts could be booked by racing sessions before bookings were checked
+   * atomically.
+   *
+   * @return The number of contracts left out.
+   */
+  public int getDroppedContractCount() {
+    return droppedContracts.get();
+  }
+
+  /*
+   * Connects a member loaded by the repository to this register, so that its
+   * changes are stored.
+   */
+  private <T extends Iuser> T attach(T iuser) {
+    if (iuser instanceof Member && ((Member) iuser).getRegister() == null) {
+      ((Member) iuser).setRegister(this);
+    }
+    return iuser;
+  }
+
+  /*
+   * Connects the owner of an item loaded by the repository to this register.
+   */
+  private Item attach(Item item) {
+    if (item != null) {
+      attach(item.getOwner());
+    }
+    return item;
+  }
+
+  /**
+   * Check if username is unique.
+   *
+   * @param username user username
+   * @return boolean
+   */
+  public boolean isUsernameUnique(String username) {
+    return repository.findUserByUsername(username) == null;
   }
 
   /**
@@ -32,7 +209,7 @@ public class UserRegister {
    * @return boolean
    */
   public boolean isEmailUnique(String email) {
-    return !emailToUserMap.containsKey(email.toLowerCase());
+    return repository.findUserByEmail(email) == null;
   }
 
   /**
@@ -42,28 +219,218 @@ public class UserRegister {
    * @return boolean
    */
   public boolean isPhoneNumberUnique(String phoneNumber) {
-    return !phoneToUserMap.containsKey(phoneNumber);
+    return repository.findUserByPhoneNumber(phoneNumber) == null;
   }
 
   /**
    * Adds a iuser to the register.
-   * Ensures uniqueness of email and phone.
+   * Ensures uniqueness of id, username, email and phone.
    *
    * @param iuser The iuser to add.
    * @return true if the iuser was added, false otherwise.
    */
   public boolean addIuser(Iuser iuser) {
-    String emailKey = iuser.getEmail().toLowerCase();
-    String phoneKey = iuser.getPhoneNumber();
-
-    // Check if the email and phone are unique
-    if (isEmailUnique(emailKey) && isPhoneNumberUnique(phoneKey)) {
-      iusers.add(iuser);
-      emailToUserMap.put(emailKey, iuser); // Add to email map
-      phoneToUserMap.put(phoneKey, iuser); // Add to phone map
+    beginExclusiveChange();
+    try {
+      // Check if the id, username, email and phone are unique
+      if (repository.findUserByKey(iuser.getKey()) == null && isUsernameUnique(iuser.getUsername())
+          && isEmailUnique(iuser.getEmail()) && isPhoneNumberUnique(iuser.getPhoneNumber())) {
+        repository.addUser(iuser);
+        if (journal != null) {
+          journal.userAdded(iuser);
+        }
+        if (iuser instanceof Member) {
+          Member member = (Member) iuser;
+          member.setRegister(this);
+          List<Item> items = member.getOwnedItems();
+          if (!items.isEmpty()) {
+            addItemsToCatalog(items); // Items added before the member was registered
+          }
+        }
+        return true;
+      }
+      return false;
+    } finally {
+      endExclusiveChange();
+    }
+  }
+
+  /**
+   * Adds new members and new items of existing members in bulk. The caller has
+   * checked that the members are unique, within changeExclusively so that the
+   * check still holds. The members are stored together, the
+   * items of all members are cataloged together, and the journal waits for the
+   * disk once for the whole import.
+   *
+   * @param newMembers        The new members, with the items they bring.
+   * @param newItems          New items of members that are already registered.
+   * @param dayOfRegistration The registration date of all items.
+   */
+  void importMembersAndItems(List<Member> newMembers, Map<Member, List<Item>> newItems,
+      LocalDate dayOfRegistration) {
+    beginExclusiveChange();
+    if (journal != null) {
+      journal.startBatch();
+    }
+    try {
+      repository.addUsers(newMembers);
+      List<Item> broughtItems = new ArrayList<>();
+      for (Member member : newMembers) {
+        if (journal != null) {
+          journal.userAdded(member);
+        }
+        member.setRegister(this);
+        broughtItems.addAll(member.getOwnedItems());
+      }
+      if (!broughtItems.isEmpty()) {
+        addItemsToCatalog(broughtItems);
+      }
+      for (Map.Entry<Member, List<Item>> entry : newItems.entrySet()) {
+        entry.getKey().addItems(entry.getValue(), dayOfRegistration);
+      }
+    } finally {
+      try {
+        if (journal != null) {
+          journal.finishBatch();
+        }
+      } finally {
+        endExclusiveChange();
+      }
+    }
+  }
+
+  /**
+   * Books several items for one borrower, all or nothing. The bookings are
+   * checked together: every item must be cataloged and have an owner, the
+   * dates must be in order and free, bookings of the same item in the batch
+   * must not overlap each other, and the borrower must have credits for the
+   * combined cost. If any booking fails a check, nothing is booked. Otherwise
+   * all contracts are made, the borrower pays once and every lender is paid
+   * once. The repository stores the batch in one transaction and the journal
+   * records it as one record. If making the contracts fails partway, those
+   * already made are deleted and the credits moved back before the exception
+   * is passed on, and the journal records none of the batch. No other change
+   * can come in between the checks and the bookings.
+   *
+   * @param borrower The member borrowing the items.
+   * @param requests The bookings.
+   * @return A report of the contracts made or the bookings rejected.
+   */
+  public BookingReport signContracts(Member borrower, List<BookingRequest> requests) {
+    beginExclusiveChange();
+    try {
+      List<String> rejectedBookings = new ArrayList<>();
+      long totalCost = checkBookings(borrower, requests, rejectedBookings);
+      if (!rejectedBookings.isEmpty()) {
+        return new BookingReport(new ArrayList<>(), totalCost, rejectedBookings);
+      }
+      List<Contract> contracts = new ArrayList<>(requests.size());
+      changeAtomically(() -> makeContracts(borrower, requests, (int) totalCost, contracts));
+      return new BookingReport(contracts, totalCost, rejectedBookings);
+    } finally {
+      endExclusiveChange();
+    }
+  }
+
+  /*
+   * Checks a batch of bookings, adding a description of every failed check to
+   * the rejected bookings. Returns the combined cost.
+   */
+  private long checkBookings(Member borrower, List<BookingRequest> requests, List<String> rejectedBookings) {
+    if (getIuserByKey(borrower.getKey()) != borrower) {
+      rejectedBookings.add("The borrower is not a registered member");
+    }
+    if (requests.isEmpty()) {
+      rejectedBookings.add("There is nothing to book");
+    }
+    long totalCost = 0;
+    Map<Long, List<Integer>> requestsByItem = new HashMap<>(); // The positions of the requests of each item
+    for (int i = 0; i < requests.size(); i++) {
+      BookingRequest request = requests.get(i);
+      Item item = request.getItem();
+      String problem = null;
+      if (getItemByKey(item.getKey()) != item || item.getOwner() == null) {
+        problem = "the item is not available for borrowing";
+      } else if (request.getEndDate().isBefore(request.getStartDate())) {
+        problem = "the return date is before the start date";
+      } else if (item.hasTimeConflict(request.getStartDate(), request.getEndDate())) {
+        problem = "the item is already booked on these dates, it is free for them from "
+            + item.findNextFreeStartDate(request.getStartDate(),
+                request.getStartDate().daysBetween(request.getEndDate()));
+      }
+      if (problem != null) {
+        rejectedBookings.add("Booking " + (i + 1) + ": " + problem);
+        continue;
+      }
+      totalCost += request.getCost();
+      requestsByItem.computeIfAbsent(item.getKey(), key -> new ArrayList<>()).add(i);
+    }
+    for (List<Integer> sameItem : requestsByItem.values()) {
+      sameItem.sort(Comparator.comparingInt(i -> requests.get(i).getStartDate().getEpochDay()));
+      // A booking overlaps an earlier starting one if it starts before the last of them ends, not only the previous
+      SimpleDate latestEnd = null;
+      for (int i : sameItem) {
+        BookingRequest request = requests.get(i);
+        if (latestEnd != null && !request.getStartDate().isAfter(latestEnd)) {
+          rejectedBookings.add("Booking " + (i + 1)
+              + ": the dates overlap another booking of the same item in the batch");
+        }
+        if (latestEnd == null || request.getEndDate().isAfter(latestEnd)) {
+          latestEnd = request.getEndDate();
+        }
+      }
+    }
+    if (totalCost > borrower.getCredits()) {
+      rejectedBookings.add("The bookings cost " + totalCost + " credits, the borrower has " + borrower.getCredits());
+    }
+    return totalCost;
+  }
+
+  /*
+   * Makes the contracts of a checked batch, adding them to the given list,
+   * takes the combined cost from the borrower and pays every lender once. If
+   * a step throws, undoes the steps before it and clears the list.
+   */
+  private boolean makeContracts(Member borrower, List<BookingRequest> requests, int totalCost,
+      List<Contract> contracts) {
+    Map<Member, Integer> paymentsByLender = new LinkedHashMap<>();
+    Map<Member, Integer> paidLenders = new LinkedHashMap<>();
+    boolean deducted = false;
+    boolean made = false;
+    try {
+      for (BookingRequest request : requests) {
+        Item item = request.getItem();
+        Member lender = item.getOwner();
+        Contract contract = new Contract(request.getStartDate(), request.getEndDate(), item, lender, borrower);
+        item.addContract(contract); // Cannot conflict, no other change runs meanwhile
+        contracts.add(contract);
+        paymentsByLender.merge(lender, contract.getCost(), Integer::sum);
+      }
+      borrower.deductCredits(totalCost);
+      deducted = true;
+      for (Map.Entry<Member, Integer> payment : paymentsByLender.entrySet()) {
+        payment.getKey().addCredits(payment.getValue());
+        paidLenders.put(payment.getKey(), payment.getValue());
+      }
+      for (Contract contract : contracts) {
+        borrower.addBorrowedItem(contract.getItem()); // Last, as it cannot be undone
+      }
+      made = true;
       return true;
+    } finally {
+      if (!made) {
+        for (Map.Entry<Member, Integer> payment : paidLenders.entrySet()) {
+          payment.getKey().deductCredits(payment.getValue());
+        }
+        if (deducted) {
+          borrower.addCredits(totalCost);
+        }
+        for (Contract contract : contracts) {
+          contract.getItem().deleteContract(contract);
+        }
+        contracts.clear();
+      }
     }
-    return false;
   }
 
   /**
@@ -73,65 +440,437 @@ public class UserRegister {
    * @return true if the iuser was removed, false otherwise.
    */
   public boolean removeIuser(Iuser iuser) {
-    if (iusers.remove(iuser)) { // If the user is successfully removed from the list
-      emailToUserMap.remove(iuser.getEmail().toLowerCase()); // Remove from email map
-      phoneToUserMap.remove(iuser.getPhoneNumber()); // Remove from phone map
+    beginExclusiveChange();
+    try {
+      if (repository.findUserByKey(iuser.getKey()) != iuser) {
+        return false;
+      }
+      if (iuser instanceof Member) {
+        Member member = (Member) iuser;
+        // The member's bookings of other items are cancelled and journaled, so
+        // the dates are free again in the register, after replay and in a snapshot
+        for (Contract contract : contractRegister.getContractsByBorrower(member.getKey())) {
+          if (contract.getItem().getOwner() != member) {
+            contract.getItem().deleteContract(contract);
+          }
+        }
+        for (Item item : member.getOwnedItems()) {
+          for (Contract contract : item.getAllContracts()) {
+            contractRegister.removeContract(contract);
+          }
+          categoryIndex.remove(item.getKey());
+          removeFromSearchIndex(item);
+        }
+      }
+      repository.removeUser(iuser); // Also removes the items of the user
+      if (iuser instanceof Member) {
+        ((Member) iuser).setRegister(null);
+      }
+      if (journal != null) {
+        journal.userRemoved(iuser);
+      }
       return true;
+    } finally {
+      endExclusiveChange();
     }
-    return false;
   }
 
   /**
-   * Finds a iuser by their ID.
+   * Finds a iuser by their ID using the id index.
    *
    * @param id The ID of the iuser.
    * @return The iuser, or null if not found.
    */
   public Iuser getIuserById(String id) {
-    for (Iuser iuser : iusers) {
-      if (iuser.getId().equals(id)) {
-        return iuser;
+    return getIuserByKey(EntityIds.parse(id));
+  }
+
+  /**
+   * Finds a iuser by their numeric ID using the id index.
+   *
+   * @param key The numeric ID of the iuser.
+   * @return The iuser, or null if not found.
+   */
+  public Iuser getIuserByKey(long key) {
+    return attach(repository.findUserByKey(key));
+  }
+
+  /**
+   * Changes the username of a registered iuser and keeps the username index up
+   * to date.
+   *
+   * @param iuser       The iuser whose username is changed.
+   * @param newUsername The new username.
+   * @return true if the username was changed, false if it is already taken.
+   */
+  public boolean changeUsername(Iuser iuser, String newUsername) {
+    beginExclusiveChange();
+    try {
+      if (newUsername.equals(iuser.getUsername())) {
+        return true;
+      }
+      if (!isUsernameUnique(newUsername)) {
+        return false;
       }
+      repository.changeUsername(iuser, newUsername);
+      iuser.setUsername(newUsername);
+      return true;
+    } finally {
+      endExclusiveChange();
     }
-    return null;
   }
 
   /**
-   * Finds a iuser by their username.
+   * Changes the email address of a registered iuser if no other iuser has it,
+   * and keeps the email index up to date.
    *
-   * @param username The username of the iuser.
+   * @param iuser    The iuser whose email address is changed.
+   * @param newEmail The new email address.
+   * @return true if the email address was changed, false if it is already
+   *         taken.
+   */
+  public boolean changeEmail(Iuser iuser, String newEmail) {
+    beginExclusiveChange();
+    try {
+      Iuser holder = repository.findUserByEmail(newEmail);
+      if (holder != null && holder != iuser) {
+        return false;
+      }
+      repository.changeEmail(iuser, newEmail);
+      iuser.setEmail(newEmail);
+      return true;
+    } finally {
+      endExclusiveChange();
+    }
+  }
+
+  /**
+   * Changes the phone number of a registered iuser if no other iuser has it,
+   * and keeps the phone number index up to date.
+   *
+   * @param iuser          The iuser whose phone number is changed.
+   * @param newPhoneNumber The new phone number.
+   * @return true if the phone number was changed, false if it is already
+   *         taken.
+   */
+  public boolean changePhoneNumber(Iuser iuser, String newPhoneNumber) {
+    beginExclusiveChange();
+    try {
+      Iuser holder = repository.findUserByPhoneNumber(newPhoneNumber);
+      if (holder != null && holder != iuser) {
+        return false;
+      }
+      repository.changePhoneNumber(iuser, newPhoneNumber);
+      iuser.setPhoneNumber(newPhoneNumber);
+      return true;
+    } finally {
+      endExclusiveChange();
+    }
+  }
+
+  /**
+   * Takes the register's lock shared, before a member, item or contract is
+   * changed. Called by Member and Item, before they take their own lock.
+   */
+  void beginChange() {
+    lock.readLock().lock();
+  }
+
+  /**
+   * Releases the lock taken by beginChange, then saves a snapshot if one is due
+   * and this was the outermost change.
+   */
+  void endChange() {
+    lock.readLock().unlock();
+    saveSnapshotIfDue();
+  }
+
+  /*
+   * Takes the register's lock exclusively, before users are added or removed or
+   * a unique key changes.
+   */
+  private void beginExclusiveChange() {
+    lock.writeLock().lock();
+  }
+
+  /*
+   * Releases the lock taken by beginExclusiveChange, then saves a snapshot if
+   * one is due and this was the outermost change.
+   */
+  private void endExclusiveChange() {
+    lock.writeLock().unlock();
+    saveSnapshotIfDue();
+  }
+
+  /**
+   * Runs changes to several members or items so that the repository stores
+   * them all or none. Called by Member for credit transfers.
+   *
+   * @param <T>     The type of the result.
+   * @param changes The changes.
+   * @return The result of the changes.
+   */
+  <T> T inTransaction(Supplier<T> changes) {
+    return repository.runInTransaction(changes);
+  }
+
+  /**
+   * Runs changes that must be stored all or none, such as a booking and its
+   * payment. The repository runs them in one transaction and the journal
+   * records them as one record, which a crash keeps or loses whole. If the
+   * changes report that they failed, or throw, the journal records none of
+   * them; they must have undone what they changed in memory first. Called by
+   * signContracts and Member with the locks the changes need already held.
+   *
+   * @param changes The changes, returning false if they failed and were
+   *                undone.
+   * @return The result of the changes.
+   */
+  boolean changeAtomically(Supplier<Boolean> changes) {
+    RegisterJournal currentJournal = journal;
+    if (currentJournal == null) {
+      return repository.runInTransaction(changes);
+    }
+    currentJournal.startBatch();
+    boolean changed = false;
+    try {
+      changed = repository.runInTransaction(changes);
+      return changed;
+    } finally {
+      if (changed) {
+        currentJournal.finishBatchAtomically();
+      } else {
+        currentJournal.discardBatch();
+      }
+    }
+  }
+
+  /**
+   * Runs a change that first checks the register, with the register's lock
+   * held exclusively so that no other change comes in between. Used by
+   * BulkImporter.
+   *
+   * @param <T>    The type of the result.
+   * @param change The checks and the change.
+   * @return The result of the change.
+   */
+  <T> T changeExclusively(Supplier<T> change) {
+    beginExclusiveChange();
+    try {
+      return change.get();
+    } finally {
+      endExclusiveChange();
+    }
+  }
+
+  /**
+   * Takes the register's lock exclusively, so that no change is in progress.
+   * Used by RegisterJournal while it saves a snapshot.
+   */
+  void lockExclusively() {
+    lock.writeLock().lock();
+  }
+
+  /**
+   * Releases the lock taken by lockExclusively.
+   */
+  void unlockExclusively() {
+    lock.writeLock().unlock();
+  }
+
+  /*
+   * Lets the journal save a snapshot if the log has grown enough. Only done
+   * when the thread holds no part of the lock, since a shared lock cannot be
+   * turned into an exclusive one.
+   */
+  private void saveSnapshotIfDue() {
+    RegisterJournal currentJournal = journal;
+    if (currentJournal != null && lock.getReadHoldCount() == 0 && !lock.isWriteLockedByCurrentThread()) {
+      currentJournal.saveSnapshotIfDue();
+    }
+  }
+
+  /**
+   * Finds a iuser by username using the username index.
+   *
+   * @param username The username.
    * @return The iuser, or null if not found.
    */
+  Iuser getIuserByUsername(String username) {
+    return attach(repository.findUserByUsername(username));
+  }
+
+  /**
+   * Validates login credentials using the username index.
+   *
+   * @param username The username of the iuser.
+   * @param password The password of the iuser.
+   * @return The id of the iuser, or "-1" if the credentials do not match.
+   */
   public String validateLoginCredentials(String username, String password) {
-    String existingIuserId = "-1"; // -1 is returned if the username and password do not match any member in the
-                                   // system.
-    for (Iuser user : iusers) {
-      if (user.getUsername().equals(username) && user.getPassword().equals(password)) {
-        existingIuserId = user.getId(); // Username and password match a member in the system.
+    Iuser user = attach(repository.findUserByUsername(username));
+    if (user != null && user.getPassword().equals(password)) {
+      return user.getId(); // Username and password match a member in the system.
+    }
+    return "-1"; // Username and password did not match any member in the system.
+  }
+
+  /**
+   * Adds an item to the catalog. Called by Member when an item is added to a
+   * registered member.
+   *
+   * @param item The item to add.
+   */
+  void addItemToCatalog(Item item) {
+    repository.addItem(item);
+    itemCataloged(item);
+  }
+
+  /**
+   * Adds several items of a member to the catalog at once. Called by Member.
+   *
+   * @param items The items to add.
+   */
+  void addItemsToCatalog(List<Item> items) {
+    repository.addItems(items);
+    for (Item item : items) {
+      itemCataloged(item);
+    }
+  }
+
+  /*
+   * Records a cataloged item and indexes the contracts it already has.
+   */
+  private void itemCataloged(Item item) {
+    categoryIndex.add(item.getKey(), item.getCategory());
+    ItemSearchIndex currentSearchIndex = searchIndex;
+    if (currentSearchIndex != null) {
+      currentSearchIndex.add(item.getKey(), item.getName(), item.getDescription());
+    }
+    if (journal != null) {
+      journal.itemAdded(item);
+    }
+    if (!item.hasContracts()) {
+      return; // The common case, also when a snapshot is loaded
+    }
+    for (Contract contract : item.getAllContracts()) {
+      contractRegister.addContract(contract); // Contracts added before the item was cataloged
+      repository.addContract(contract);
+      if (journal != null) {
+        journal.contractAdded(contract);
+      }
+    }
+  }
+
+  /**
+   * Removes an item from the catalog. Called by Member when an item of a
+   * registered member is deleted.
+   *
+   * @param item The item to remove.
+   */
+  void removeItemFromCatalog(Item item) {
+    for (Contract contract : item.getAllContracts()) {
+      contractRegister.removeContract(contract);
+    }
+    repository.removeItem(item);
+    categoryIndex.remove(item.getKey());
+    removeFromSearchIndex(item);
+    if (journal != null) {
+      journal.itemDeleted(item);
+    }
+  }
+
+  /**
+   * Stores the profile of a member after a change. Called by Member.
+   *
+   * @param member The member.
+   */
+  void memberUpdated(Member member) {
+    repository.updateUser(member);
+    if (journal != null) {
+      journal.memberUpdated(member);
+    }
+  }
+
+  /**
+   * Stores the credits of a member after a change. Called by Member.
+   *
+   * @param member The member.
+   * @param amount The credits added, negative when deducted.
+   */
+  void creditsChanged(Member member, int amount) {
+    repository.updateUser(member);
+    if (journal != null) {
+      journal.creditsChanged(member, amount);
+    }
+  }
+
+  /**
+   * Stores an item after a change to its name, cost, description or category.
+   * Called by Item.
+   *
+   * @param item The item.
+   */
+  void itemUpdated(Item item) {
+    repository.updateItem(item);
+    categoryIndex.move(item.getKey(), item.getCategory());
+    ItemSearchIndex currentSearchIndex = searchIndex;
+    if (currentSearchIndex != null) {
+      currentSearchIndex.update(item.getKey(), item.getName(), item.getDescription());
+    }
+    if (journal != null) {
+      journal.itemUpdated(item);
+    }
+  }
+
+  /**
+   * Indexes and stores a new contract of a cataloged item. Called by Item.
+   * If the contract cannot be stored it is taken out of the index again
+   * before the exception is passed on.
+   *
+   * @param contract The contract.
+   */
+  void contractAdded(Contract contract) {
+    contractRegister.addContract(contract);
+    boolean stored = false;
+    try {
+      repository.addContract(contract);
+      if (journal != null) {
+        journal.contractAdded(contract);
+      }
+      stored = true;
+    } finally {
+      if (!stored) {
+        contractRegister.removeContract(contract); // The item frees the dates again
       }
     }
-    return existingIuserId; // Username and password did not match any member in the system.
   }
 
   /**
-   * Finds a iuser by their username.
+   * Removes a deleted contract of a cataloged item. Called by Item.
+   *
+   * @param contract The contract.
+   */
+  void contractRemoved(Contract contract) {
+    contractRegister.removeContract(contract);
+    repository.removeContract(contract);
+    if (journal != null) {
+      journal.contractDeleted(contract);
+    }
+  }
+
+  /**
+   * Finds the owner of an item using the item catalog.
    *
    * @param id the id of the item we want to find the owner of.
-   * @return The iuser, or null if not found.
+   * @return The owner, or null if not found.
    */
   public Member getOwnerByItemId(String id) {
-    for (Iuser iuser : iusers) {
-      if (iuser instanceof Member) {
-        Member member = (Member) iuser;
-        ArrayList<Item> oneMemberItems = member.getOwnedItems();
-        for (Item item : oneMemberItems) {
-          if (item.getId().equals(id)) {
-            return member;
-          }
-        }
-      }
+    Item item = getItemById(id);
+    if (item == null) {
+      return null;
     }
-    return null;
+    return item.getOwner();
   }
 
   /**
@@ -140,51 +879,158 @@ public class UserRegister {
    * @return ArrayList of all items.
    */
   public ArrayList<Item> getAllItems() {
-    ArrayList<Item> allItems = new ArrayList<>();
-    for (Iuser iuser : iusers) {
-      // Check if iuser is a member.
-      if (iuser instanceof Member) {
-        Member member = (Member) iuser;
-        ArrayList<Item> oneMemberItems = member.getOwnedItems();
-        for (Item item : oneMemberItems) {
-          allItems.add(item);
-        }
+    ArrayList<Item> items = new ArrayList<>(repository.findAllItems());
+    for (Item item : items) {
+      attach(item);
+    }
+    return items;
+  }
+
+  /**
+   * Returns the items in one category, found with the category index.
+   *
+   * @param category The category.
+   * @return ArrayList of the items in the category.
+   */
+  public ArrayList<Item> getItemsInCategory(CategoryEnum category) {
+    ArrayList<Item> items = new ArrayList<>();
+    for (long key : categoryIndex.getItemKeys(category)) {
+      Item item = getItemByKey(key);
+      if (item != null) {
+        items.add(item); // Not deleted since the ids were read
       }
     }
-    return allItems;
+    return items;
   }
 
   /**
-   * Gets one item based on id.
+   * Counts the items in one category using the category index.
    *
-   * @param id The id of the item to get.
-   * @return Item matching id.
+   * @param category The category.
+   * @return The number of items in the category.
    */
-  public Item getItemById(String id) {
-    ArrayList<Item> allItems = getAllItems();
-    Item item = null;
-    for (Item oneItem : allItems) {
-      if (oneItem.getId().equals(id)) {
-        item = oneItem;
+  public int getNumberOfItemsInCategory(CategoryEnum category) {
+    return categoryIndex.count(category);
+  }
+
+  /*
+   * Takes an item out of the search index, if the index has been built.
+   */
+  private void removeFromSearchIndex(Item item) {
+    ItemSearchIndex currentSearchIndex = searchIndex;
+    if (currentSearchIndex != null) {
+      currentSearchIndex.remove(item.getKey());
+    }
+  }
+
+  /*
+   * Gets the search index, building it from the catalog on first use. Loading
+   * a large register does not wait for it, only the first search does. It is
+   * built with the register's lock held exclusively, so that no item changes
+   * while its text is read; every change after that updates the index.
+   */
+  private ItemSearchIndex searchIndex() {
+    ItemSearchIndex currentSearchIndex = searchIndex;
+    if (currentSearchIndex != null) {
+      return currentSearchIndex;
+    }
+    beginExclusiveChange();
+    try {
+      if (searchIndex == null) {
+        ItemSearchIndex newSearchIndex = new ItemSearchIndex();
+        repository.loadItemTexts(newSearchIndex::add);
+        searchIndex = newSearchIndex;
       }
+      return searchIndex;
+    } finally {
+      endExclusiveChange();
     }
-    return item;
   }
 
   /**
-   * Gets all items in the system as an arraylist.
+   * Searches the names and descriptions of the items using the search index.
    *
-   * @return ArrayList of all contracts.
+   * @param query      The words to search for; the end of a word may be left
+   *                   out.
+   * @param maxResults The largest number of items to return.
+   * @return ArrayList of the items matching every word, the best matches
+   *         first.
    */
-  public ArrayList<Contract> getAllContracts() {
-    ArrayList<Contract> allContracts = new ArrayList<>();
-    ArrayList<Item> allItems = getAllItems();
-    for (Item item : allItems) {
-      for (Contract contract : item.getAllContracts()) {
-        allContracts.add(contract);
+  public ArrayList<Item> searchItems(String query, int maxResults) {
+    ArrayList<Item> items = new ArrayList<>();
+    for (long key : searchIndex().search(query, maxResults)) {
+      Item item = getItemByKey(key);
+      if (item != null) {
+        items.add(item); // Not deleted since the search
       }
     }
-    return allContracts;
+    return items;
+  }
+
+  /**
+   * Gets one item based on id using the item catalog.
+   *
+   * @param id The id of the item to get.
+   * @return Item matching id, or null if not found.
+   */
+  public Item getItemById(String id) {
+    return getItemByKey(EntityIds.parse(id));
+  }
+
+  /**
+   * Gets one item based on its numeric id using the item catalog.
+   *
+   * @param key The numeric id of the item to get.
+   * @return Item matching the id, or null if not found.
+   */
+  public Item getItemByKey(long key) {
+    return attach(repository.findItemByKey(key));
+  }
+
+  /**
+   * Gets all contracts in the system as an arraylist.
+   *
+   * @return ArrayList of all contracts.
+   */
+  public ArrayList<Contract> getAllContracts() {
+    return new ArrayList<>(contractRegister.getAllContracts());
+  }
+
+  /**
+   * Gets the contract register holding all contracts and their indexes.
+   *
+   * @return The contract register.
+   */
+  public ContractRegister getContractRegister() {
+    return contractRegister;
+  }
+
+  /**
+   * Gets the journal recording changes to the register.
+   *
+   * @return The journal, or null if changes are not recorded.
+   */
+  RegisterJournal getJournal() {
+    return journal;
+  }
+
+  /**
+   * Sets the journal recording changes to the register. Called by
+   * RegisterJournal once the register has been rebuilt from it.
+   *
+   * @param journal The journal, or null to stop recording.
+   */
+  void setJournal(RegisterJournal journal) {
+    this.journal = journal;
+  }
+
+  /**
+   * Checks if the register has no users.
+   *
+   * @return True if there are no users.
+   */
+  public boolean isEmpty() {
+    return repository.isEmpty();
   }
 
   /**
@@ -193,7 +1039,11 @@ public class UserRegister {
    * @return ArrayList of all Members (a copy of the internal list).
    */
   public ArrayList<Iuser> getListOfAllUsers() {
-    return new ArrayList<>(iusers);
+    ArrayList<Iuser> users = new ArrayList<>(repository.findAllUsers());
+    for (Iuser iuser : users) {
+      attach(iuser);
+    }
+    return users;
   }
 
 }
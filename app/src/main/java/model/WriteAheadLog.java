@@ -0,0 +1,325 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log file of records with group commit. Each record is stored
+ * as its length, a CRC32 checksum and the record bytes. Appending threads hand
+ * their records to a flusher thread and wait until they are on disk; the
+ * flusher writes everything that has queued up while the previous batch was
+ * being forced, and then forces the whole batch with a single
+ * FileChannel.force call. A torn record at the end of the file, left by a crash
+ * during a write, is cut off when the log is opened. Replay can start at an
+ * offset, so that records already contained in a snapshot are skipped.
+ */
+public class WriteAheadLog implements Closeable {
+  private static final int RECORD_HEADER_BYTES = 8; // Length and checksum
+
+  /**
+   * Reads one record during replay.
+   */
+  public interface RecordHandler {
+
+    /**
+     * Handles one record.
+     *
+     * @param record The record bytes.
+     * @throws IOException if the record cannot be read.
+     */
+    void handle(DataInput record) throws IOException;
+  }
+
+  private final FileChannel channel;
+  private final Object lock = new Object();
+  private final Thread flusher;
+  private List<byte[]> pending = new ArrayList<>();
+  private long appendedRecords; // Records handed to the log so far
+  private long durableRecords; // Records forced to disk so far
+  private long batches; // Number of force calls so far
+  private long length; // Length of the file up to the last record on disk
+  private boolean closed;
+  private IOException failure;
+
+  /*
+   * Constructs a log around an open channel positioned at the end of the last
+   * complete record.
+   */
+  private WriteAheadLog(FileChannel channel, long length) {
+    this.channel = channel;
+    this.length = length;
+    this.flusher = new Thread(this::flushLoop, "wal-flusher");
+    this.flusher.setDaemon(true);
+    this.flusher.start();
+  }
+
+  /**
+   * Opens a log file, creating it if needed, and passes every complete record in
+   * it to the handler in the order they were appended.
+   *
+   * @param file    The log file.
+   * @param handler Handles each record.
+   * @return The log, ready for appending after the last complete record.
+   * @throws IOException if the file cannot be read or opened.
+   */
+  public static WriteAheadLog open(Path file, RecordHandler handler) throws IOException {
+    return open(file, 0, handler);
+  }
+
+  /**
+   * Opens a log file, creating it if needed, and passes every complete record
+   * from an offset on to the handler in the order they were appended.
+   *
+   * @param file        The log file.
+   * @param startOffset The offset of the first record to replay, as returned by
+   *                    getLength when the records before it were saved
+   *                    elsewhere.
+   * @param handler     Handles each record.
+   * @return The log, ready for appending after the last complete record.
+   * @throws IOException if the file cannot be read or opened, or is shorter
+   *                     than the offset.
+   */
+  public static WriteAheadLog open(Path file, long startOffset, RecordHandler handler) throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      if (channel.size() < startOffset) {
+        throw new IOException("The log " + file + " is shorter than expected.");
+      }
+      long validLength = replay(channel, startOffset, handler);
+      if (validLength < channel.size()) {
+        channel.truncate(validLength); // Cut off a torn record from a crash
+      }
+      channel.position(validLength);
+      return new WriteAheadLog(channel, validLength);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /*
+   * Reads records from an offset until the end of the file or the first
+   * incomplete or damaged record.
+   *
+   * @return The length of the file up to the end of the last complete record.
+   */
+  private static long replay(FileChannel channel, long startOffset, RecordHandler handler) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(
+        channel.position(startOffset))));
+    long fileLength = channel.size();
+    long validLength = startOffset;
+    CRC32 crc = new CRC32();
+    while (fileLength - validLength >= RECORD_HEADER_BYTES) {
+      int length = in.readInt();
+      int checksum = in.readInt();
+      if (length < 0 || length > fileLength - validLength - RECORD_HEADER_BYTES) {
+        break;
+      }
+      byte[] record = new byte[length];
+      try {
+        in.readFully(record);
+      } catch (EOFException e) {
+        break;
+      }
+      crc.reset();
+      crc.update(record, 0, length);
+      if ((int) crc.getValue() != checksum) {
+        break;
+      }
+      handler.handle(new DataInputStream(new ByteArrayInputStream(record)));
+      validLength += RECORD_HEADER_BYTES + length;
+    }
+    return validLength;
+  }
+
+  /**
+   * Appends a record and waits until it is on disk. Records appended by
+   * different threads at the same time are forced together.
+   *
+   * @param record The record bytes.
+   * @throws UncheckedIOException if the log could not be written.
+   * @throws IllegalStateException if the log is closed.
+   */
+  public void append(byte[] record) {
+    appendAll(Collections.singletonList(record));
+  }
+
+  /**
+   * Appends several records and waits once until all of them are on disk, so a
+   * bulk change costs a few forces instead of one per record.
+   *
+   * @param records The record bytes, in order.
+   * @throws UncheckedIOException if the log could not be written.
+   * @throws IllegalStateException if the log is closed.
+   */
+  public void appendAll(List<byte[]> records) {
+    if (records.isEmpty()) {
+      return;
+    }
+    boolean interrupted = false;
+    synchronized (lock) {
+      if (closed) {
+        throw new IllegalStateException("The log is closed.");
+      }
+      checkFailure();
+      pending.addAll(records);
+      appendedRecords += records.size();
+      long ticket = appendedRecords;
+      lock.notifyAll();
+      while (durableRecords < ticket && failure == null) {
+        try {
+          lock.wait();
+        } catch (InterruptedException e) {
+          interrupted = true; // The record is already queued, so keep waiting for it
+        }
+      }
+      if (durableRecords < ticket) {
+        checkFailure();
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /*
+   * Throws if the flusher has failed. Must be called holding the lock.
+   */
+  private void checkFailure() {
+    if (failure != null) {
+      throw new UncheckedIOException("The log could not be written.", failure);
+    }
+  }
+
+  /*
+   * Writes and forces batches of pending records until the log is closed.
+   */
+  private void flushLoop() {
+    while (true) {
+      List<byte[]> batch;
+      long batchEnd;
+      synchronized (lock) {
+        while (pending.isEmpty() && !closed) {
+          try {
+            lock.wait();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+        }
+        if (pending.isEmpty()) {
+          return; // Closed and nothing left to write
+        }
+        batch = pending;
+        pending = new ArrayList<>();
+        batchEnd = appendedRecords;
+      }
+      try {
+        long batchLength = writeBatch(batch);
+        channel.force(false);
+        synchronized (lock) {
+          durableRecords = batchEnd;
+          length += batchLength;
+          batches++;
+          lock.notifyAll();
+        }
+      } catch (IOException e) {
+        synchronized (lock) {
+          failure = e;
+          lock.notifyAll();
+        }
+        return;
+      }
+    }
+  }
+
+  /*
+   * Writes a batch of records with their headers in one buffer.
+   */
+  private long writeBatch(List<byte[]> batch) throws IOException {
+    int size = 0;
+    for (byte[] record : batch) {
+      size += RECORD_HEADER_BYTES + record.length;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    CRC32 crc = new CRC32();
+    for (byte[] record : batch) {
+      crc.reset();
+      crc.update(record, 0, record.length);
+      buffer.putInt(record.length);
+      buffer.putInt((int) crc.getValue());
+      buffer.put(record);
+    }
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    return size;
+  }
+
+  /**
+   * Gets the number of batches forced to disk since the log was opened.
+   *
+   * @return The number of batches.
+   */
+  public long getBatchCount() {
+    synchronized (lock) {
+      return batches;
+    }
+  }
+
+  /**
+   * Gets the length of the log up to the last record on disk. Once append has
+   * returned, the length includes the appended record.
+   *
+   * @return The length in bytes.
+   */
+  public long getLength() {
+    synchronized (lock) {
+      return length;
+    }
+  }
+
+  /**
+   * Writes the records still queued, stops the flusher and closes the file.
+   *
+   * @throws IOException if the file cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      lock.notifyAll();
+    }
+    try {
+      flusher.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    channel.close();
+  }
+}
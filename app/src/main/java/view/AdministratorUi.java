@@ -12,12 +12,13 @@ import model.MenuOption;
  */
 
 public class AdministratorUi {
+  private final Terminal terminal = Terminal.current(); // Bound when the view is created
 
   /*
    * Displays general menu options.
    */
   public void showMenuSelectOptionMessage() {
-    System.out.println("Please select an option from the menu: ");
+    terminal.println("Please select an option from the menu: ");
   }
 
   /**
@@ -25,7 +26,7 @@ public class AdministratorUi {
    */
   public void showMainMenuMessage() {
     for (MenuOption action : AdminMenuAction.values()) {
-      System.out.println(action.getOptionNumber() + ". " + action.getDescription());
+      terminal.println(action.getOptionNumber() + ". " + action.getDescription());
     }
   }
 
@@ -33,7 +34,91 @@ public class AdministratorUi {
    * Displays the message for advancing the day count.
    */
   public void showAdvanceDayMessage() {
-    System.out.println("The day count has been advanced by one day.");
+    terminal.println("The day count has been advanced by one day.");
+  }
+
+  /**
+   * Asks for the file to import members and items from.
+   */
+  public void showImportFileMessage() {
+    terminal.println("Enter the path of a CSV or JSON Lines (.jsonl) file to import: ");
+  }
+
+  /**
+   * Displays that the import file could not be read.
+   *
+   * @param path the path that was entered
+   */
+  public void showImportFailedMessage(String path) {
+    terminal.println("The file " + path + " could not be read. Nothing was imported.");
+  }
+
+  /**
+   * Displays a row of the import file that was not imported.
+   *
+   * @param description the line number and the reason
+   */
+  public void showImportRejectedRow(String description) {
+    terminal.println("Skipped - " + description);
+  }
+
+  /**
+   * Displays how many more rows were not imported than were listed.
+   *
+   * @param count the number of rejected rows not listed
+   */
+  public void showMoreImportRejectedRows(int count) {
+    terminal.println("... and " + count + " more skipped rows.");
+  }
+
+  /**
+   * Displays the outcome of an import.
+   *
+   * @param rows          the number of rows read
+   * @param members       the number of members added
+   * @param items         the number of items added
+   * @param rejected      the number of rows skipped
+   * @param seconds       the time the import took
+   * @param rowsPerSecond the number of rows handled per second
+   */
+  public void showImportReport(int rows, int members, int items, int rejected, double seconds, long rowsPerSecond) {
+    terminal.println("Imported " + members + " members and " + items + " items from " + rows + " rows ("
+        + rejected + " skipped) in " + String.format("%.2f", seconds) + " s, " + rowsPerSecond + " rows/s.");
+  }
+
+  /**
+   * Displays that only files in one directory can be imported or exported.
+   *
+   * @param directory the directory
+   */
+  public void showFileOutsideDirectoryMessage(String directory) {
+    terminal.println("Only files in " + directory + " can be imported or exported in this session.");
+  }
+
+  /**
+   * Asks for the file to export the contracts to.
+   */
+  public void showExportFileMessage() {
+    terminal.println("Enter the path of the file to export the contracts to (NDJSON): ");
+  }
+
+  /**
+   * Displays that the contracts were exported.
+   *
+   * @param contracts the number of contracts written
+   * @param path      the path of the file
+   */
+  public void showExportSuccessMessage(long contracts, String path) {
+    terminal.println("Exported " + contracts + " contracts to " + path + ".");
+  }
+
+  /**
+   * Displays that the export file could not be written.
+   *
+   * @param path the path that was entered
+   */
+  public void showExportFailedMessage(String path) {
+    terminal.println("The file " + path + " could not be written.");
   }
 
   /**
@@ -46,7 +131,7 @@ public class AdministratorUi {
    * @param numberOfItems the number of items the member has
    */
   public void displayMemberSimpleInfo(String username, String email, int credits, int numberOfItems) {
-    System.out.println("Username: " + username + "\nEmail: " + email
+    terminal.println("Username: " + username + "\nEmail: " + email
         + "\nCredits: " + credits + "\nNumber of items: " + numberOfItems
         + "\n**********************************\n");
   }
@@ -60,7 +145,7 @@ public class AdministratorUi {
    * @param credits  the number of credits the member has
    */
   public void displayMemberVerboseInfo(String username, String email, int credits) {
-    System.out.println("Username: " + username + "\nEmail: " + email
+    terminal.println("Username: " + username + "\nEmail: " + email
         + "\nCredits: " + credits + "\nItems: ");
   }
 }
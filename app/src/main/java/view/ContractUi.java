@@ -14,82 +14,93 @@ import model.Contract;
  * and contract status.
  */
 public class ContractUi {
+  private final Terminal terminal = Terminal.current(); // Bound when the view is created
 
   /*
    * Displays item not found message.
    */
   public void showItemNotFoundMessage() {
-    System.out.println("Item not found!");
+    terminal.println("Item not found!");
   }
 
   /*
    * Displays not enough credits message.
    */
   public void showNotEnoughCreditsMessage() {
-    System.out.println("Not enough credits!");
+    terminal.println("Not enough credits!");
   }
 
   /*
    * Displays member not found message.
    */
   public void showMemberNotFoundMessage() {
-    System.out.println("Member not found!");
+    terminal.println("Member not found!");
   }
 
   /*
    * Displays time conflict message.
    */
   public void showTimeConflictMessage() {
-    System.out.println("Time conflict with an existing contract!");
+    terminal.println("Time conflict with an existing contract!");
+  }
+
+  /**
+   * Displays the first date from which the item is free for the requested
+   * period.
+   *
+   * @param nextFreeStartDate the first free start date
+   */
+  public void showNextFreeStartDateMessage(String nextFreeStartDate) {
+    terminal.println("The item is free for that period from " + nextFreeStartDate + ".");
   }
 
   /*
    * Displays enter start day message.
    */
   public void showEnterStartDateDayMessage() {
-    System.out.println("Enter the day of the start date: ");
+    terminal.println("Enter the day of the start date: ");
   }
 
   /*
    * Displays enter start month message.
    */
   public void showEnterStartDateMonthMessage() {
-    System.out.println("Enter the month of the start date: ");
+    terminal.println("Enter the month of the start date: ");
   }
 
   /*
    * Displays enter start year message.
    */
   public void showEnterStartDateYearMessage() {
-    System.out.println("Enter the year of the start date: ");
+    terminal.println("Enter the year of the start date: ");
   }
 
   /*
    * Displays enter return day message.
    */
   public void showEnterReturnDateDayMessage() {
-    System.out.println("Enter the day of the return date: ");
+    terminal.println("Enter the day of the return date: ");
   }
 
   /*
    * Displays enter return month message.
    */
   public void showEnterReturnDateMonthMessage() {
-    System.out.println("Enter the month of the return date: ");
+    terminal.println("Enter the month of the return date: ");
   }
 
   /*
    * Displays enter return year message.
    */
   public void showEnterReturnDateYearMessage() {
-    System.out.println("Enter the year of the return date: ");
+    terminal.println("Enter the year of the return date: ");
   }
 
   /*
    * Shows contract just created message.
    */
   public void showCreatedContractMessage() {
-    System.out.println("Contract created!");
+    terminal.println("Contract created!");
   }
 
   /**
@@ -98,18 +109,27 @@ public class ContractUi {
    * @param contract the contract to be displayed
    */
   public void showContract(Contract contract) {
-    System.out.println("Contract ID: " + contract.getContractId() + "\nStart date: "
+    terminal.println("Contract ID: " + contract.getContractId() + "\nStart date: "
         + contract.getStartDate().toString() + "\nEnd date: " + contract.getEndDate().toString()
         + "\nItem name: " + contract.getItem().getName() 
         + "\nLender name: " + contract.getLender().getUsername() + "\nBorrower name: "
         + contract.getBorrower().getUsername() + "\n-----------------------------------\n");
   }
 
+  /**
+   * Asks the user whether to show the next page of contracts.
+   *
+   * @param moreChoice the input that shows the next page
+   */
+  public void showMoreContractsMessage(char moreChoice) {
+    terminal.println("Enter " + moreChoice + " to show more contracts, or anything else to go back.");
+  }
+
   /**
    * Prints a message to the console indicating that the start date is invalid.
    */
   public void showInvalidStartDateMessage() {
-    System.out.println("Invalid start date! Please enter a valid start date.");
+    terminal.println("Invalid start date! Please enter a valid start date.");
   }
 
   /**
@@ -117,21 +137,21 @@ public class ContractUi {
    * The message prompts the user to enter a valid day.
    */
   public void showInvalidDayMessage() {
-    System.out.println("Invalid day! Please enter a valid day.");
+    terminal.println("Invalid day! Please enter a valid day.");
   }
 
   /**
    * Displays a message to the user indicating that the entered month is invalid.
    */
   public void showInvalidMonthMessage() {
-    System.out.println("Invalid month! Please enter a valid month.");
+    terminal.println("Invalid month! Please enter a valid month.");
   }
 
   /**
    * Displays a message to the user indicating that the entered year is invalid.
    */
   public void showInvalidYearMessage() {
-    System.out.println("Invalid year! Please enter a valid year.");
+    terminal.println("Invalid year! Please enter a valid year.");
   }
 
   /**
@@ -139,11 +159,55 @@ public class ContractUi {
    * passed and prompts them to enter a valid start date.
    */
   public void showStartDatePassedMessage() {
-    System.out.println("Start date has already passed! Please enter a valid start date.");
+    terminal.println("Start date has already passed! Please enter a valid start date.");
   }
 
   public void showReturnDateBeforeStartDateMessage() {
-    System.out.println("Return date is before start date! Please enter a valid return date.");
+    terminal.println("Return date is before start date! Please enter a valid return date.");
+  }
+
+  /**
+   * Asks for the next item of a batch booking.
+   *
+   * @param doneChoice the input that ends the batch
+   */
+  public void showEnterBatchItemMessage(char doneChoice) {
+    terminal.println("Enter the ID of an item to add to the booking, or " + doneChoice + " when done: ");
+  }
+
+  /**
+   * Confirms that a booking was added to the batch.
+   *
+   * @param bookings the number of bookings in the batch so far
+   */
+  public void showBookingAddedMessage(int bookings) {
+    terminal.println("Added to the booking, " + bookings + " item(s) so far.");
+  }
+
+  /**
+   * Displays that every booking of a batch was made.
+   *
+   * @param contracts the number of contracts created
+   * @param totalCost the combined cost of the contracts
+   */
+  public void showBatchBookedMessage(int contracts, long totalCost) {
+    terminal.println(contracts + " contract(s) created for " + totalCost + " credits in total!");
+  }
+
+  /**
+   * Displays that a batch was rejected and nothing was booked.
+   */
+  public void showBatchRejectedMessage() {
+    terminal.println("Nothing was booked, because:");
+  }
+
+  /**
+   * Displays why a booking of a batch was rejected.
+   *
+   * @param rejectedBooking the description of the rejected booking
+   */
+  public void showRejectedBookingMessage(String rejectedBooking) {
+    terminal.println("  " + rejectedBooking);
   }
 
 }
@@ -1,52 +1,92 @@
 package view;
 
-import java.util.Scanner;
-
 /**
  * Represents the general user interface of the system.
  */
 public class GeneralUi {
-
   /**
-   * Scanner object used for user input.
+   * Terminal used for user input and output, bound when the view is created.
    */
-  Scanner scanner = new Scanner(System.in, "UTF-8");
+  private final Terminal terminal = Terminal.current();
 
   /**
    * Displays a welcome message to the user.
    */
   public void showWelcomeMessage() {
-    System.out.println("Welcome to the Stuff Lending System!");
+    terminal.println("Welcome to the Stuff Lending System!");
   }
 
   /**
    * Prints a message asking the user to try again.
    */
   public void tryAgainMessage() {
-    System.out.println("Please try again.");
+    terminal.println("Please try again.");
+  }
+
+  /**
+   * Tells the user that saved data could not be loaded and changes will not be
+   * saved.
+   *
+   * @param reason The reason the data could not be loaded.
+   */
+  public void showStorageUnavailableMessage(String reason) {
+    terminal.println("Saved data could not be loaded (" + reason + "). Changes will not be saved.");
+  }
+
+  /**
+   * Tells the operator that saved contracts were left out when the data was
+   * loaded, because they overlap an earlier booking of the same item.
+   *
+   * @param count The number of contracts left out.
+   */
+  public void showDroppedContractsMessage(int count) {
+    terminal.println(count + " saved contract(s) overlapped an earlier booking of the same item and were left out.");
+  }
+
+  /**
+   * Tells the operator that the server accepts connections.
+   *
+   * @param address        The address the server listens on.
+   * @param port           The port the server listens on.
+   * @param virtualThreads True if sessions run on virtual threads.
+   */
+  public void showServerStartedMessage(String address, int port, boolean virtualThreads) {
+    terminal.println("Serving the Stuff Lending System on " + address + " port " + port + ", one "
+        + (virtualThreads ? "virtual" : "platform") + " thread per session.");
   }
 
   public void showCurrentDate(String date) {
-    System.out.println("Current date: " + date);
+    terminal.println("Current date: " + date);
+  }
+
+  /**
+   * Displays a message, such as the reason an input was not accepted.
+   *
+   * @param message The message.
+   */
+  public void showMessage(String message) {
+    terminal.println(message);
   }
 
   /**
    * Returns pressed characters from the keyboard.
+   *
+   * @throws SessionClosedException if the user enters 0 to quit or the input
+   *                                has ended.
    */
   public String getInput() {
-    String input = scanner.nextLine();
+    String input = terminal.readLine();
     if ("0".equals(input)) {
-      System.out.println("Quitting...");
-      scanner.close(); // Close scanner before exiting
-      System.exit(0); // Quit requested
+      terminal.println("Quitting...");
+      throw new SessionClosedException(); // Quit requested
     }
     return input;
   }
 
   /**
-   * Closes the scanner object used for user input.
+   * Sends any output not yet shown to the user.
    */
-  public void closeScanner() {
-    scanner.close();
+  public void flushOutput() {
+    terminal.flush();
   }
 }
@@ -6,12 +6,13 @@ import model.CategoryEnum;
  * Represents the user interface of the item.
  */
 public class ItemUi {
+  private final Terminal terminal = Terminal.current(); // Bound when the view is created
 
   /**
    * Displays a message indicating that a new item is being added.
    */
   public void showAddingItemMessage() {
-    System.out.println("Adding a new Item: ");
+    terminal.println("Adding a new Item: ");
   }
 
   /**
@@ -19,14 +20,14 @@ public class ItemUi {
    * like to add.
    */
   public void showAddItemNameMessage() {
-    System.out.println("Please enter the name of the item you would like to add:");
+    terminal.println("Please enter the name of the item you would like to add:");
   }
 
   /**
    * Displays a message asking the user to enter the cost of the item to be added.
    */
   public void showAddItemCostMessage() {
-    System.out.println("Please enter the credit cost of the item you would like to add:");
+    terminal.println("Please enter the credit cost of the item you would like to add:");
   }
 
   /**
@@ -34,7 +35,7 @@ public class ItemUi {
    * would like to add.
    */
   public void showAddItemDescriptionMessage() {
-    System.out.println("Please enter the description of the item you would like to add:");
+    terminal.println("Please enter the description of the item you would like to add:");
   }
 
   /**
@@ -43,10 +44,10 @@ public class ItemUi {
    * followed by a list of available categories.
    */
   public void showAddItemCategoryMessage() {
-    System.out.println("Please enter the category number of the item you would like to add:");
-    System.out.println("Categories:");
+    terminal.println("Please enter the category number of the item you would like to add:");
+    terminal.println("Categories:");
     for (int i = 1; i < CategoryEnum.values().length; i++) {
-      System.out.println(i + ". " + CategoryEnum.values()[i].toString());
+      terminal.println(i + ". " + CategoryEnum.values()[i].toString());
     }
   }
 
@@ -56,14 +57,14 @@ public class ItemUi {
    * @param newItem the name of the newly added item
    */
   public void showSuccesfullyAddedItem(String newItem) {
-    System.out.println("Item successfully added.");
+    terminal.println("Item successfully added.");
   }
 
   /**
    * Prints a message to the console indicating that all items will be displayed.
    */
   public void showListAllItemsMessage() {
-    System.out.println("My items: ");
+    terminal.println("My items: ");
   }
 
   /**
@@ -71,7 +72,7 @@ public class ItemUi {
    * like to edit.
    */
   public void showEditItemMessage() {
-    System.out.println("Please enter the id of the item you would like to edit:");
+    terminal.println("Please enter the id of the item you would like to edit:");
   }
 
   /**
@@ -79,7 +80,7 @@ public class ItemUi {
    * would like to edit.
    */
   public void showEditItemNameMessage() {
-    System.out.println("Please enter the new name of the item you would like to edit:");
+    terminal.println("Please enter the new name of the item you would like to edit:");
   }
 
   /**
@@ -87,7 +88,7 @@ public class ItemUi {
    * successfully edited.
    */
   public void showSuccesfullyEditedItemName() {
-    System.out.println("Item name successfully edited.");
+    terminal.println("Item name successfully edited.");
   }
 
   /**
@@ -95,7 +96,7 @@ public class ItemUi {
    * they would like to edit.
    */
   public void showEditItemCostMessage() {
-    System.out.println("Please enter the new credit cost of the item you would like to edit:");
+    terminal.println("Please enter the new credit cost of the item you would like to edit:");
   }
 
   /**
@@ -103,7 +104,7 @@ public class ItemUi {
    * successfully edited.
    */
   public void showSuccesfullyEditedItemCost() {
-    System.out.println("Item cost successfully edited.");
+    terminal.println("Item cost successfully edited.");
   }
 
   /**
@@ -111,7 +112,7 @@ public class ItemUi {
    * they would like to edit.
    */
   public void showEditItemDescriptionMessage() {
-    System.out.println("Please enter the new description of the item you would like to edit:");
+    terminal.println("Please enter the new description of the item you would like to edit:");
   }
 
   /**
@@ -119,7 +120,7 @@ public class ItemUi {
    * successfully edited.
    */
   public void showSuccesfullyEditedItemDescription() {
-    System.out.println("Item description successfully edited.");
+    terminal.println("Item description successfully edited.");
   }
 
   /**
@@ -127,10 +128,10 @@ public class ItemUi {
    * they would like to edit.
    */
   public void showEditItemCategoryMessage() {
-    System.out.println("Please enter the new category number of the item you would like to edit:");
-    System.out.println("Categories:");
+    terminal.println("Please enter the new category number of the item you would like to edit:");
+    terminal.println("Categories:");
     for (int i = 1; i < CategoryEnum.values().length; i++) {
-      System.out.println(i + ". " + CategoryEnum.values()[i].toString());
+      terminal.println(i + ". " + CategoryEnum.values()[i].toString());
     }
   }
 
@@ -138,35 +139,35 @@ public class ItemUi {
    * Displays item category sucessfully edited message.
    */
   public void showSuccesfullyEditedItemCategory() {
-    System.out.println("Item category successfully edited.");
+    terminal.println("Item category successfully edited.");
   }
 
   /*
    * Displays delete item message.
    */
   public void showDeleteItemMessage() {
-    System.out.println("Please enter the id of the item you would like to delete:");
+    terminal.println("Please enter the id of the item you would like to delete:");
   }
 
   /*
    * Displays item sucessfully deleted message.
    */
   public void showSuccesfullyDeletedItem(String itemId) {
-    System.out.println("Item successfully deleted: " + itemId);
+    terminal.println("Item successfully deleted: " + itemId);
   }
 
   /*
    * Displays item does not exist message.
    */
   public void showItemDoesNotExistMessage(String itemId) {
-    System.out.println("Item " + itemId + " does not exist.");
+    terminal.println("Item " + itemId + " does not exist.");
   }
 
   /*
    * Displays item does not belong to user message.
    */
   public void showBorrowItemMessage() {
-    System.out.println("Please enter the id of the item you would like to borrow:");
+    terminal.println("Please enter the id of the item you would like to borrow:");
   }
 
   /**
@@ -186,7 +187,7 @@ public class ItemUi {
     if (isAvaliabile == true) {
       avaliability = "Avaliable";
     }
-    System.out.println("Item ID: " + itemId + "\nItem name: " + itemName + "\nItem cost per day: " + itemCostPerDay
+    terminal.println("Item ID: " + itemId + "\nItem name: " + itemName + "\nItem cost per day: " + itemCostPerDay
         + "\nItem description: " + itemDescription
         + "\nItem category: " + itemCategory
         + "\nItem avaliability: " + avaliability
@@ -198,7 +199,7 @@ public class ItemUi {
    * The item name must be at least 3 characters long.
    */
   public void showItemNameTooShortMessage(int minItemNameLength) {
-    System.out.println("Item name must be at least " + minItemNameLength + " characters long.");
+    terminal.println("Item name must be at least " + minItemNameLength + " characters long.");
   }
 
   /**
@@ -206,7 +207,7 @@ public class ItemUi {
    * 1 and 1000.
    */
   public void showInvalidItemCostMessage(int minItemCost, int maxItemCost) {
-    System.out.println("Item cost must be between " + minItemCost + " and " + maxItemCost + ".");
+    terminal.println("Item cost must be between " + minItemCost + " and " + maxItemCost + ".");
   }
 
   /**
@@ -215,7 +216,7 @@ public class ItemUi {
    * The minimum length for an item description is 10 characters.
    */
   public void showItemDescriptionTooShortMessage(int minItemDescriptionLength) {
-    System.out.println("Item description must be at least " + minItemDescriptionLength + " characters long.");
+    terminal.println("Item description must be at least " + minItemDescriptionLength + " characters long.");
   }
 
   /**
@@ -224,7 +225,58 @@ public class ItemUi {
    * The message prompts the user to enter a valid category number.
    */
   public void showInvalidItemCategoryMessage() {
-    System.out.println("Invalid category. Please enter a valid category number.");
+    terminal.println("Invalid category. Please enter a valid category number.");
+  }
+
+  /**
+   * Asks the user to choose a category to browse.
+   */
+  public void showBrowseCategoryMessage() {
+    terminal.println("Please enter the number of the category you would like to browse:");
+  }
+
+  /**
+   * Displays a category that can be browsed, with the number of items in it.
+   *
+   * @param categoryNumber The number to enter to browse the category.
+   * @param category       The category.
+   * @param numberOfItems  The number of items in the category.
+   */
+  public void showCategoryWithNumberOfItems(int categoryNumber, CategoryEnum category, int numberOfItems) {
+    terminal.println(categoryNumber + ". " + category + " (" + numberOfItems + " items)");
+  }
+
+  /**
+   * Displays the heading of the items in a category.
+   *
+   * @param category      The category.
+   * @param numberOfItems The number of items in the category.
+   */
+  public void showItemsInCategoryMessage(CategoryEnum category, int numberOfItems) {
+    terminal.println(numberOfItems + " items in category " + category + ":");
+  }
+
+  /**
+   * Asks the user for the words to search for.
+   */
+  public void showSearchItemsMessage() {
+    terminal.println("Please enter the words to search for in the names and descriptions of the items:");
+  }
+
+  /**
+   * Displays the heading of the search results.
+   *
+   * @param numberOfItems The number of items shown.
+   * @param maxResults    The largest number of items shown.
+   */
+  public void showSearchResultsMessage(int numberOfItems, int maxResults) {
+    if (numberOfItems == 0) {
+      terminal.println("No items match your search.");
+    } else if (numberOfItems == maxResults) {
+      terminal.println("The " + numberOfItems + " best matching items:");
+    } else {
+      terminal.println(numberOfItems + " items match your search:");
+    }
   }
 
 }
@@ -9,33 +9,34 @@ package view;
  */
 
 public class RegisterUi {
+  private final Terminal terminal = Terminal.current(); // Bound when the view is created
 
   /**
    * Displays a message to prompt the user for registration.
    */
   public void showRegistrationMessage() {
-    System.out.println("Registration:");
+    terminal.println("Registration:");
   }
 
   /**
    * Displays a message asking the user to enter a username for registration.
    */
   public void showRegistrationUsernameMessage() {
-    System.out.println("Please enter a username:");
+    terminal.println("Please enter a username:");
   }
 
   /**
    * Displays a message asking the user to enter a password for registration.
    */
   public void showRegistrationPasswordMessage() {
-    System.out.println("Please enter a password:");
+    terminal.println("Please enter a password:");
   }
 
   /**
    * Displays a message asking the user to enter their email for registration.
    */
   public void showRegistrationEmailMessage() {
-    System.out.println("Please enter your email:");
+    terminal.println("Please enter your email:");
   }
 
   /**
@@ -43,18 +44,26 @@ public class RegisterUi {
    * registration.
    */
   public void showRegistrationPhoneNumberMessage() {
-    System.out.println("Please enter your phone number:");
+    terminal.println("Please enter your phone number:");
   }
 
   /**
    * Displays a message indicating that the registration was successful.
    */
   public void showRegistrationSuccessMessage() {
-    System.out.println("Registration successful!");
+    terminal.println("Registration successful!");
   }
 
   public void showRegistrationUsernameTooShortMessage(int minLength) {
-    System.out.println("Registration failed. Username must be at least " + minLength + " characters long.");
+    terminal.println("Registration failed. Username must be at least " + minLength + " characters long.");
+  }
+
+  /**
+   * Displays a message indicating that the registration failed because the
+   * username is already taken.
+   */
+  public void showRegistrationUsernameTakenMessage() {
+    terminal.println("Registration failed. Username is already taken.");
   }
 
   /**
@@ -64,7 +73,7 @@ public class RegisterUi {
    * @param length The minimum length required for the password.
    */
   public void showRegistrationPasswordTooShortMessage(int length) {
-    System.out.println("Registration failed. Password must be at least " + length + " characters long.");
+    terminal.println("Registration failed. Password must be at least " + length + " characters long.");
   }
 
   /**
@@ -72,7 +81,7 @@ public class RegisterUi {
    * to a non-unique phone number or email.
    */
   public void showRegistrationFailureNonUniqueMessage() {
-    System.out.println("Registration faied. Username, phone number or email already exists.");
+    terminal.println("Registration faied. Username, phone number or email already exists.");
   }
 
   /**
@@ -80,7 +89,7 @@ public class RegisterUi {
    * email format.
    */
   public void showRegistrationInvalidEmailMessage() {
-    System.out.println("Registration failed. Invalid email format.");
+    terminal.println("Registration failed. Invalid email format.");
   }
 
   /**
@@ -88,6 +97,6 @@ public class RegisterUi {
    * to an invalid phone number.
    */
   public void showRegistrationInvalidPhoneNumberMessage() {
-    System.out.println("Registration failed. Invalid phone number.");
+    terminal.println("Registration failed. Invalid phone number.");
   }
 }
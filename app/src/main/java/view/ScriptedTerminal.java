@@ -0,0 +1,72 @@
+package view;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * A terminal without a user: the input is a fixed list of lines and the output
+ * is rendered and then discarded. Lets a session run the real menus and
+ * controllers headless, for example under load.
+ *
+ * <p>The time each line is asked for is recorded. Since a script never waits
+ * before answering, the time between two reads is the time the system took to
+ * handle the input in between.
+ */
+public class ScriptedTerminal extends Terminal {
+  private final List<String> input;
+  private final long[] readTimes;
+  private int linesRead;
+
+  /**
+   * Constructs a terminal answering with the given lines, in order. Once they
+   * are used up the session is closed, as when a connection ends.
+   *
+   * @param input The lines to enter.
+   */
+  public ScriptedTerminal(List<String> input) {
+    super(InputStream.nullInputStream(), OutputStream.nullOutputStream());
+    this.input = List.copyOf(input);
+    this.readTimes = new long[this.input.size() + 1]; // The last read finds the script used up
+  }
+
+  /**
+   * Renders the output written so far and returns the next line of the script.
+   *
+   * @return The line.
+   * @throws SessionClosedException if the script is used up.
+   */
+  @Override
+  public String readLine() {
+    flush();
+    if (linesRead == readTimes.length) {
+      throw new SessionClosedException();
+    }
+    readTimes[linesRead] = System.nanoTime();
+    if (linesRead == input.size()) {
+      linesRead++;
+      throw new SessionClosedException();
+    }
+    return input.get(linesRead++);
+  }
+
+  /**
+   * Gets the number of lines asked for so far, counting the read that found
+   * the script used up.
+   *
+   * @return The number of reads.
+   */
+  public int getLinesRead() {
+    return linesRead;
+  }
+
+  /**
+   * Gets the time a line was asked for.
+   *
+   * @param line The index of the line in the script.
+   * @return The value of System.nanoTime() when the line was asked for.
+   */
+  public long getReadTime(int line) {
+    return readTimes[line];
+  }
+}
@@ -0,0 +1,9 @@
+package view;
+
+/**
+ * Thrown when the user quits or the input of a session ends, to leave the
+ * menus and end the session.
+ */
+public class SessionClosedException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,118 @@
+package view;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The text input and output of one session: the console when the system runs
+ * on its own, or a network connection in server mode.
+ *
+ * <p>Each session binds its terminal to the thread running it, and the view
+ * classes created on that thread read and write through it. Output is buffered
+ * and sent when input is read, so a menu goes out in one write.
+ */
+public class Terminal implements Closeable {
+  private static final Terminal CONSOLE = new Terminal(System.in, System.out);
+  private static final ThreadLocal<Terminal> CURRENT = new ThreadLocal<>();
+
+  private final BufferedReader in;
+  private final PrintStream out;
+
+  /**
+   * Constructs a terminal reading and writing UTF-8 text.
+   *
+   * @param in  The stream to read input from.
+   * @param out The stream to write output to.
+   */
+  public Terminal(InputStream in, OutputStream out) {
+    this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    this.out = new PrintStream(new BufferedOutputStream(out), false, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Gets the terminal bound to the current thread, or the console if none is
+   * bound.
+   *
+   * @return The terminal.
+   */
+  public static Terminal current() {
+    Terminal terminal = CURRENT.get();
+    return terminal == null ? CONSOLE : terminal;
+  }
+
+  /**
+   * Binds a terminal to the current thread, or removes the binding.
+   *
+   * @param terminal The terminal, or null to use the console again.
+   */
+  public static void bind(Terminal terminal) {
+    if (terminal == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(terminal);
+    }
+  }
+
+  /**
+   * Writes a line of text.
+   *
+   * @param text The text.
+   */
+  public void println(String text) {
+    out.println(text);
+  }
+
+  /**
+   * Writes text without ending the line.
+   *
+   * @param text The text.
+   */
+  public void print(String text) {
+    out.print(text);
+  }
+
+  /**
+   * Sends the output written so far.
+   */
+  public void flush() {
+    out.flush();
+  }
+
+  /**
+   * Sends the output written so far and reads a line of input.
+   *
+   * @return The line, without the line ending.
+   * @throws SessionClosedException if the input has ended or cannot be read.
+   */
+  public String readLine() {
+    out.flush();
+    String line;
+    try {
+      line = in.readLine();
+    } catch (IOException e) {
+      throw new SessionClosedException();
+    }
+    if (line == null) {
+      throw new SessionClosedException();
+    }
+    return line;
+  }
+
+  /**
+   * Sends the output written so far and closes the input.
+   *
+   * @throws IOException if the input cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    out.flush();
+    in.close();
+  }
+}
@@ -1,31 +1,28 @@
 package view;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Scanner;
-
 /**
  * This class is responsible for displaying the menu options for the user.
  */
 public class Ui {
-  Scanner scanner = new Scanner(System.in, StandardCharsets.UTF_8);
+  private final Terminal terminal = Terminal.current(); // Bound when the view is created
 
   public void tryAgainMessage() {
-    System.out.println("Invalid. Please try again.");
+    terminal.println("Invalid. Please try again.");
   }
 
   /**
    * Returns pressed characters from the keyboard.
    */
   public String getInput() {
-    String input = scanner.next();
-    System.out.println("You entered: " + input);
+    String input = terminal.readLine().trim();
+    terminal.println("You entered: " + input);
     return input;
   }
 
   /*
-   * Closes the input scanner.
+   * Sends any output not yet shown to the user.
    */
-  public void closeScanner() {
-    scanner.close();
+  public void flushOutput() {
+    terminal.flush();
   }
 }
@@ -6,12 +6,13 @@ import model.MenuOption;
  * This class is responsible for displaying the menu options for the user.
  */
 public class UserMenuUi {
+  private final Terminal terminal = Terminal.current(); // Bound when the view is created
 
   /*
    * Displays the menu options for the user.
    */
   public void showMenuSelectOptionMessage() {
-    System.out.println("Choose one of the following options and enter the number of the option you want to select.");
+    terminal.println("Choose one of the following options and enter the number of the option you want to select.");
   }
 
   /**
@@ -21,7 +22,7 @@ public class UserMenuUi {
    */
   public void showMenuOptions(MenuOption[] actions) {
     for (MenuOption action : actions) {
-      System.out.println(action.getOptionNumber() + ". " + action.getDescription());
+      terminal.println(action.getOptionNumber() + ". " + action.getDescription());
     }
   }
 
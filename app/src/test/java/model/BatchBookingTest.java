@@ -0,0 +1,149 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests booking several items in one batch with UserRegister.signContracts:
+ * a batch is booked and paid for whole, or not at all.
+ */
+public class BatchBookingTest {
+  private static final int FIRST_DAY = 20_000;
+  private static final int CREDITS = 1_000;
+
+  @Test
+  public void booksTheWholeBatchAndPaysEachLenderOnce() {
+    UserRegister register = new UserRegister();
+    Member firstOwner = member(register, 1);
+    Member secondOwner = member(register, 2);
+    Member borrower = member(register, 3);
+    Item drill = item(firstOwner, "Drill");
+    Item saw = item(firstOwner, "Saw");
+    Item kayak = item(secondOwner, "Kayak");
+    int firstOwnerCredits = firstOwner.getCredits();
+    int secondOwnerCredits = secondOwner.getCredits();
+
+    BookingReport report = register.signContracts(borrower, Arrays.asList(booking(drill, 0, 2), booking(saw, 1, 3),
+        booking(kayak, 0, 4), booking(drill, 5, 6)));
+
+    assertTrue(report.isBooked(), "Rejected: " + report.getRejectedBookings());
+    assertEquals(4, report.getContracts().size());
+    assertEquals(4, register.getContractRegister().size());
+    assertEquals(2, drill.getAllContracts().size());
+    long firstOwnerCost = drill.getAllContracts().get(0).getCost() + drill.getAllContracts().get(1).getCost()
+        + saw.getAllContracts().get(0).getCost();
+    assertEquals(firstOwnerCredits + firstOwnerCost, firstOwner.getCredits());
+    assertEquals(secondOwnerCredits + kayak.getAllContracts().get(0).getCost(), secondOwner.getCredits());
+    assertEquals(CREDITS - report.getTotalCost(), borrower.getCredits());
+    assertEquals(3, borrower.getBorrowedItems().size());
+  }
+
+  @Test
+  public void rejectsTheBatchIfTwoOfItsBookingsOverlap() {
+    UserRegister register = new UserRegister();
+    Member owner = member(register, 1);
+    Member borrower = member(register, 2);
+    Item drill = item(owner, "Drill");
+    Item saw = item(owner, "Saw");
+
+    // The third booking overlaps the first one, not the second one just before it
+    BookingReport report = register.signContracts(borrower, Arrays.asList(booking(drill, 0, 10), booking(drill, 2, 3),
+        booking(drill, 5, 6), booking(saw, 0, 1)));
+
+    assertFalse(report.isBooked());
+    List<String> rejected = report.getRejectedBookings();
+    assertEquals(2, rejected.size(), "Rejected: " + rejected);
+    assertTrue(rejected.get(0).startsWith("Booking 2:"), rejected.get(0));
+    assertTrue(rejected.get(1).startsWith("Booking 3:"), rejected.get(1));
+    assertNothingBooked(register, borrower, drill, saw);
+  }
+
+  @Test
+  public void rejectsTheBatchIfOneItemIsTakenOrCreditsAreShort() {
+    UserRegister register = new UserRegister();
+    Member owner = member(register, 1);
+    Member borrower = member(register, 2);
+    Item drill = item(owner, "Drill");
+    Item saw = item(owner, "Saw");
+    Member other = member(register, 3);
+    assertTrue(register.signContracts(other, Arrays.asList(booking(saw, 3, 4))).isBooked());
+
+    BookingReport taken = register.signContracts(borrower, Arrays.asList(booking(drill, 0, 1), booking(saw, 4, 5)));
+    Item yacht = new Item("Yacht", CREDITS, "Too expensive", CategoryEnum.VEHICLE);
+    owner.addItem(yacht);
+    BookingReport tooExpensive = register.signContracts(borrower, Arrays.asList(booking(drill, 0, 1),
+        booking(yacht, 0, 5)));
+
+    assertFalse(taken.isBooked());
+    assertTrue(taken.getRejectedBookings().get(0).startsWith("Booking 2: the item is already booked"));
+    assertFalse(tooExpensive.isBooked());
+    assertTrue(tooExpensive.getRejectedBookings().get(0).startsWith("The bookings cost"));
+    assertEquals(0, drill.getAllContracts().size());
+    assertEquals(1, saw.getAllContracts().size());
+    assertEquals(1, register.getContractRegister().size());
+    assertEquals(CREDITS, borrower.getCredits());
+  }
+
+  @Test
+  public void undoesTheBatchIfStoringAContractFails() {
+    UserRegister register = new UserRegister(new InMemoryRegisterRepository() {
+      private int contractsStored;
+
+      @Override
+      public void addContract(Contract contract) {
+        if (++contractsStored == 2) {
+          throw new IllegalStateException("Storage failed");
+        }
+        super.addContract(contract);
+      }
+    });
+    Member owner = member(register, 1);
+    Member borrower = member(register, 2);
+    Item drill = item(owner, "Drill");
+    Item saw = item(owner, "Saw");
+    int ownerCredits = owner.getCredits();
+
+    assertThrows(IllegalStateException.class, () -> register.signContracts(borrower,
+        Arrays.asList(booking(drill, 0, 1), booking(saw, 0, 1))));
+
+    assertNothingBooked(register, borrower, drill, saw);
+    assertEquals(ownerCredits, owner.getCredits());
+  }
+
+  /*
+   * Checks that a rejected or undone batch left no contract and no payment.
+   */
+  private static void assertNothingBooked(UserRegister register, Member borrower, Item... items) {
+    for (Item item : items) {
+      assertEquals(0, item.getAllContracts().size(), "Contracts of " + item.getName());
+      assertFalse(item.hasTimeConflict(FIRST_DAY, FIRST_DAY + 10));
+    }
+    assertEquals(0, register.getContractRegister().size());
+    assertEquals(CREDITS, borrower.getCredits());
+    assertEquals(0, borrower.getBorrowedItems().size());
+  }
+
+  private static Member member(UserRegister register, int n) {
+    Member member = new Member("member" + n, "password", "member" + n + "@example.com", "070000000" + n);
+    register.addIuser(member);
+    member.addCredits(CREDITS - member.getCredits());
+    return member;
+  }
+
+  private static Item item(Member owner, String name) {
+    Item item = new Item(name, 10, "A " + name.toLowerCase(), CategoryEnum.TOOL);
+    owner.addItem(item);
+    return item;
+  }
+
+  private static BookingRequest booking(Item item, int firstDay, int lastDay) {
+    return new BookingRequest(item, SimpleDate.ofEpochDay(FIRST_DAY + firstDay),
+        SimpleDate.ofEpochDay(FIRST_DAY + lastDay));
+  }
+}
@@ -0,0 +1,66 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Stress test for bookings of one item racing each other. Threads try to book
+ * overlapping dates of the same item at the same moment, and exactly one of
+ * them must get the item, in the item and in the contract register alike.
+ */
+public class ItemBookingConcurrencyTest {
+  private static final int THREADS = 8;
+  private static final int ROUNDS = 200;
+  private static final int FIRST_DAY = 20_000;
+
+  @Test
+  public void exactlyOneOverlappingBookingWins() throws Exception {
+    UserRegister register = new UserRegister();
+    Member owner = new Member("owner", "password", "owner@example.com", "0700000001");
+    register.addIuser(owner);
+    List<Member> borrowers = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      Member borrower = new Member("borrower" + t, "password", "borrower" + t + "@example.com", "07100000" + t);
+      register.addIuser(borrower);
+      borrowers.add(borrower);
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      for (int round = 0; round < ROUNDS; round++) {
+        Item item = new Item("Item " + round, 1, "Contested item", CategoryEnum.values()[0]);
+        owner.addItem(item);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+          // Every booking starts on a different day, and all of them share the last day
+          Contract contract = new Contract(SimpleDate.ofEpochDay(FIRST_DAY + t),
+              SimpleDate.ofEpochDay(FIRST_DAY + THREADS), item, owner, borrowers.get(t));
+          results.add(executor.submit(() -> {
+            start.await();
+            return item.tryAddContract(contract);
+          }));
+        }
+        start.countDown();
+        int wins = 0;
+        for (Future<Boolean> result : results) {
+          wins += result.get() ? 1 : 0;
+        }
+
+        assertEquals(1, wins, "Bookings won in round " + round);
+        assertEquals(1, item.getAllContracts().size());
+        assertEquals(1, register.getContractRegister().getContractsByItem(item.getKey()).size());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(ROUNDS, register.getContractRegister().size());
+  }
+}
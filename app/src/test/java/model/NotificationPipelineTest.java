@@ -0,0 +1,86 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the notification pipeline with an in-memory sink and a clock moved by
+ * the test.
+ */
+public class NotificationPipelineTest {
+  private static final int FIRST_DAY = 20_000;
+  private static final int CONTRACTS = 5;
+
+  @Test
+  public void remindsOfEveryEndingContractOnce() throws Exception {
+    UserRegister register = new UserRegister();
+    Member owner = new Member("owner", "password", "owner@example.com", "0700000001");
+    Member borrower = new Member("borrower", "password", "borrower@example.com", "0700000002");
+    register.addIuser(owner);
+    register.addIuser(borrower);
+    List<Item> items = new ArrayList<>();
+    for (int i = 0; i < CONTRACTS; i++) {
+      Item item = new Item("Item " + i, 1, "Test item", CategoryEnum.values()[0]);
+      owner.addItem(item);
+      item.addContract(new Contract(SimpleDate.ofEpochDay(FIRST_DAY + i), SimpleDate.ofEpochDay(FIRST_DAY + i + 1),
+          item, owner, borrower));
+      items.add(item);
+    }
+
+    AtomicInteger day = new AtomicInteger(FIRST_DAY);
+    InMemoryNotificationSink sink = new InMemoryNotificationSink();
+    NotificationPipeline pipeline = new NotificationPipeline(register.getContractRegister(), day::get, sink, 10);
+    pipeline.start();
+    day.addAndGet(CONTRACTS + 2); // Past the end of every contract in one step
+    pipeline.close();
+
+    Map<NotificationKind, Integer> kinds = new EnumMap<>(NotificationKind.class);
+    for (Notification notification : sink.getDelivered()) {
+      kinds.merge(notification.getKind(), 1, Integer::sum);
+      long expectedRecipient = notification.getKind() == NotificationKind.BECAME_AVAILABLE ? owner.getKey()
+          : borrower.getKey();
+      assertEquals(expectedRecipient, notification.getRecipient().getKey());
+    }
+    assertEquals(CONTRACTS, kinds.get(NotificationKind.ENDING_TOMORROW));
+    assertEquals(CONTRACTS, kinds.get(NotificationKind.OVERDUE));
+    assertEquals(CONTRACTS, kinds.get(NotificationKind.BECAME_AVAILABLE));
+    assertEquals(3 * CONTRACTS, pipeline.getDelivered());
+    assertEquals(0, pipeline.getDropped());
+  }
+
+  @Test
+  public void doesNotRemindAgainAfterARestartOnTheSameDay(@TempDir Path directory) throws Exception {
+    UserRegister register = new UserRegister();
+    Member owner = new Member("owner", "password", "owner@example.com", "0700000001");
+    Member borrower = new Member("borrower", "password", "borrower@example.com", "0700000002");
+    register.addIuser(owner);
+    register.addIuser(borrower);
+    Item item = new Item("Item", 1, "Test item", CategoryEnum.values()[0]);
+    owner.addItem(item);
+    item.addContract(new Contract(SimpleDate.ofEpochDay(FIRST_DAY), SimpleDate.ofEpochDay(FIRST_DAY + 1), item, owner,
+        borrower));
+    Path dayFile = directory.resolve("reminders.day");
+
+    InMemoryNotificationSink firstSink = new InMemoryNotificationSink();
+    NotificationPipeline first = new NotificationPipeline(register.getContractRegister(), () -> FIRST_DAY, firstSink,
+        10, dayFile);
+    first.start();
+    first.close();
+    InMemoryNotificationSink secondSink = new InMemoryNotificationSink();
+    NotificationPipeline second = new NotificationPipeline(register.getContractRegister(), () -> FIRST_DAY, secondSink,
+        10, dayFile);
+    second.start();
+    second.close();
+
+    assertEquals(1, firstSink.getDelivered().size()); // The contract ends tomorrow
+    assertEquals(0, secondSink.getDelivered().size());
+  }
+}
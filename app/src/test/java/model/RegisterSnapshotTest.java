@@ -0,0 +1,118 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests saving a register to a snapshot and loading it into an empty one.
+ */
+public class RegisterSnapshotTest {
+  private static final int FIRST_DAY = 20_000;
+
+  @Test
+  public void loadsWhatWasSaved(@TempDir Path directory) throws IOException {
+    UserRegister saved = new UserRegister();
+    Member owner = new Member("owner", "password", "owner@example.com", "0700000001");
+    Member borrower = new Member("borrower", "secret12", "borrower@example.com", "0700000002");
+    saved.addIuser(owner);
+    saved.addIuser(borrower);
+    saved.addIuser(new Administrator("admin", "password", "admin@example.com", "0700000003"));
+    Item drill = new Item("Red drill", 5, "A strong drill", CategoryEnum.TOOL);
+    Item kayak = new Item("Blue kayak", 7, "A fast kayak", CategoryEnum.SPORT);
+    owner.addItem(drill);
+    owner.addItem(kayak);
+    borrower.addCredits(40);
+    drill.addContract(new Contract(SimpleDate.ofEpochDay(FIRST_DAY), SimpleDate.ofEpochDay(FIRST_DAY + 3), drill,
+        owner, borrower));
+    drill.addContract(new Contract(SimpleDate.ofEpochDay(FIRST_DAY + 10), SimpleDate.ofEpochDay(FIRST_DAY + 12),
+        drill, owner, borrower));
+    Path file = directory.resolve("register.snapshot");
+    RegisterSnapshot.write(saved, 1234, file);
+
+    UserRegister loaded = new UserRegister();
+    assertEquals(1234, RegisterSnapshot.load(loaded, file));
+
+    assertEquals(saved.getListOfAllUsers().size(), loaded.getListOfAllUsers().size());
+    for (Iuser iuser : saved.getListOfAllUsers()) {
+      Iuser copy = loaded.getIuserByKey(iuser.getKey());
+      assertNotNull(copy, "Missing user " + iuser.getUsername());
+      assertEquals(iuser.getClass(), copy.getClass());
+      assertEquals(iuser.getUsername(), copy.getUsername());
+      assertEquals(iuser.getPassword(), copy.getPassword());
+      assertEquals(iuser.getEmail(), copy.getEmail());
+      assertEquals(iuser.getPhoneNumber(), copy.getPhoneNumber());
+    }
+    Member loadedOwner = (Member) loaded.getIuserByKey(owner.getKey());
+    Member loadedBorrower = (Member) loaded.getIuserByKey(borrower.getKey());
+    assertEquals(owner.getCredits(), loadedOwner.getCredits());
+    assertEquals(borrower.getCredits(), loadedBorrower.getCredits());
+
+    assertEquals(2, loaded.getAllItems().size());
+    for (Item item : saved.getAllItems()) {
+      Item copy = loaded.getItemByKey(item.getKey());
+      assertNotNull(copy, "Missing item " + item.getName());
+      assertEquals(item.getName(), copy.getName());
+      assertEquals(item.getcostPerDay(), copy.getcostPerDay());
+      assertEquals(item.getDescription(), copy.getDescription());
+      assertEquals(item.getCategory(), copy.getCategory());
+      assertEquals(item.getDayOfRegistration(), copy.getDayOfRegistration());
+      assertSame(loadedOwner, copy.getOwner());
+      assertEquals(dates(item.getAllContracts()), dates(copy.getAllContracts()));
+    }
+    assertEquals(2, loadedOwner.getNumberOfItems());
+    assertEquals(1, loaded.getNumberOfItemsInCategory(CategoryEnum.TOOL));
+    assertEquals(1, loaded.searchItems("kay", 10).size());
+
+    assertEquals(2, loaded.getContractRegister().size());
+    assertEquals(2, loaded.getContractRegister().getContractsByBorrower(borrower.getKey()).size());
+    assertEquals(1, loadedBorrower.getBorrowedItems().size());
+    assertEquals(0, loaded.getDroppedContractCount());
+  }
+
+  @Test
+  public void leavesOutAndCountsOverlappingContracts(@TempDir Path directory) throws IOException {
+    UserRegister saved = new UserRegister();
+    Member owner = new Member("owner", "password", "owner@example.com", "0700000001");
+    Member borrower = new Member("borrower", "password", "borrower@example.com", "0700000002");
+    saved.addIuser(owner);
+    saved.addIuser(borrower);
+    Item item = new Item("Drill", 5, "A drill", CategoryEnum.TOOL);
+    owner.addItem(item);
+    Contract first = new Contract(SimpleDate.ofEpochDay(FIRST_DAY), SimpleDate.ofEpochDay(FIRST_DAY + 3), item, owner,
+        borrower);
+    item.addContract(first);
+    // As booked by racing sessions before bookings were checked atomically
+    saved.getContractRegister().addContract(new Contract(SimpleDate.ofEpochDay(FIRST_DAY + 2),
+        SimpleDate.ofEpochDay(FIRST_DAY + 5), item, owner, borrower));
+    Path file = directory.resolve("register.snapshot");
+    RegisterSnapshot.write(saved, 0, file);
+
+    UserRegister loaded = new UserRegister();
+    RegisterSnapshot.load(loaded, file);
+
+    assertEquals(1, loaded.getDroppedContractCount());
+    assertEquals(1, loaded.getContractRegister().size());
+    assertNotNull(loaded.getContractRegister().getContractByKey(first.getContractKey()));
+  }
+
+  /*
+   * Lists the dates of contracts as text, so contracts of two registers can be
+   * compared.
+   */
+  private static List<String> dates(List<Contract> contracts) {
+    List<String> dates = new ArrayList<>();
+    for (Contract contract : contracts) {
+      dates.add(contract.getContractId() + " " + contract.getStartDate().getEpochDay() + "-"
+          + contract.getEndDate().getEpochDay());
+    }
+    return dates;
+  }
+}
@@ -0,0 +1,104 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Stress test for UserRegister used from many threads at once. Threads register
+ * members whose email addresses and phone numbers collide on purpose, change
+ * them, and add items and credits, and the register must still hold every
+ * email address and phone number at most once.
+ */
+public class UserRegisterConcurrencyTest {
+  private static final int THREADS = 16;
+  private static final int ATTEMPTS_PER_THREAD = 2_000;
+  private static final int DISTINCT_EMAILS = 500;
+  private static final int DISTINCT_PHONE_NUMBERS = 500;
+
+  @Test
+  public void emailsAndPhoneNumbersStayUnique() throws Exception {
+    UserRegister register = new UserRegister();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    List<Future<Integer>> results = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      int thread = t;
+      results.add(executor.submit(() -> {
+        start.await();
+        return registerAndChange(register, thread);
+      }));
+    }
+    start.countDown();
+    int itemsAdded = 0;
+    for (Future<Integer> result : results) {
+      itemsAdded += result.get();
+    }
+    executor.shutdown();
+
+    Set<String> emails = new HashSet<>();
+    Set<String> phoneNumbers = new HashSet<>();
+    int items = 0;
+    for (Iuser iuser : register.getListOfAllUsers()) {
+      assertTrue(emails.add(iuser.getEmail()), "Email registered twice: " + iuser.getEmail());
+      assertTrue(phoneNumbers.add(iuser.getPhoneNumber()), "Phone number registered twice: " + iuser.getPhoneNumber());
+      assertFalse(register.isEmailUnique(iuser.getEmail()), "Email missing from the index: " + iuser.getEmail());
+      assertFalse(register.isPhoneNumberUnique(iuser.getPhoneNumber()));
+      Member member = (Member) iuser;
+      items += member.getNumberOfItems();
+      assertEquals(100 * member.getNumberOfItems(), member.getCredits());
+    }
+    for (int i = 0; i < DISTINCT_EMAILS; i++) {
+      String email = email(i);
+      assertEquals(!emails.contains(email), register.isEmailUnique(email), "Stale index entry for " + email);
+    }
+    assertEquals(itemsAdded, items);
+    assertEquals(items, register.getAllItems().size());
+  }
+
+  /*
+   * Registers members with random emails and phone numbers, and changes the
+   * email and phone number of members registered by this thread. Returns the
+   * number of items added.
+   */
+  private static int registerAndChange(UserRegister register, int thread) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    List<Member> registered = new ArrayList<>();
+    int itemsAdded = 0;
+    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+      if (registered.isEmpty() || random.nextInt(3) > 0) {
+        Member member = new Member("user" + thread + "x" + i, "password",
+            email(random.nextInt(DISTINCT_EMAILS)), phoneNumber(random.nextInt(DISTINCT_PHONE_NUMBERS)));
+        if (register.addIuser(member)) {
+          registered.add(member);
+        }
+      } else {
+        Member member = registered.get(random.nextInt(registered.size()));
+        register.changeEmail(member, email(random.nextInt(DISTINCT_EMAILS)));
+        register.changePhoneNumber(member, phoneNumber(random.nextInt(DISTINCT_PHONE_NUMBERS)));
+        member.addItem(new Item("Item " + i, 10, "Stress test item", CategoryEnum.values()[0]));
+        itemsAdded++;
+      }
+    }
+    return itemsAdded;
+  }
+
+  private static String email(int n) {
+    return "member" + n + "@example.com";
+  }
+
+  private static String phoneNumber(int n) {
+    return String.format("07%08d", n);
+  }
+}
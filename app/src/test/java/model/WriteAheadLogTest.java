@@ -0,0 +1,95 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests replaying the write-ahead log after a crash left a torn or damaged
+ * record at its end, and replaying from an offset.
+ */
+public class WriteAheadLogTest {
+
+  @Test
+  public void cutsOffATornRecordAndKeepsAppending(@TempDir Path directory) throws IOException {
+    Path file = directory.resolve("test.log");
+    long lengthBefore;
+    try (WriteAheadLog log = WriteAheadLog.open(file, record -> { })) {
+      log.append(record("one"));
+      log.append(record("two"));
+      lengthBefore = log.getLength();
+    }
+    // A crash while writing: the header promises more bytes than were written
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+      channel.write(ByteBuffer.allocate(18).putInt(100).putInt(0).put(new byte[10]).flip());
+    }
+
+    List<String> replayed = new ArrayList<>();
+    try (WriteAheadLog log = WriteAheadLog.open(file, record -> replayed.add(record.readUTF()))) {
+      assertEquals(Arrays.asList("one", "two"), replayed);
+      assertEquals(lengthBefore, Files.size(file));
+      assertEquals(lengthBefore, log.getLength());
+      log.append(record("three"));
+    }
+
+    assertEquals(Arrays.asList("one", "two", "three"), replay(file, 0));
+  }
+
+  @Test
+  public void stopsAtADamagedRecord(@TempDir Path directory) throws IOException {
+    Path file = directory.resolve("test.log");
+    long lengthBefore;
+    try (WriteAheadLog log = WriteAheadLog.open(file, record -> { })) {
+      log.append(record("one"));
+      lengthBefore = log.getLength();
+      log.append(record("two"));
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {'X'}), channel.size() - 1); // Fails the checksum
+    }
+
+    assertEquals(Arrays.asList("one"), replay(file, 0));
+    assertEquals(lengthBefore, Files.size(file));
+  }
+
+  @Test
+  public void replaysFromAnOffset(@TempDir Path directory) throws IOException {
+    Path file = directory.resolve("test.log");
+    long offset;
+    try (WriteAheadLog log = WriteAheadLog.open(file, record -> { })) {
+      log.append(record("in the snapshot"));
+      offset = log.getLength();
+      log.appendAll(Arrays.asList(record("after"), record("the snapshot")));
+    }
+
+    assertEquals(Arrays.asList("after", "the snapshot"), replay(file, offset));
+  }
+
+  /*
+   * Opens the log from an offset and returns the records replayed.
+   */
+  private static List<String> replay(Path file, long offset) throws IOException {
+    List<String> replayed = new ArrayList<>();
+    try (WriteAheadLog log = WriteAheadLog.open(file, offset, record -> replayed.add(record.readUTF()))) {
+      return replayed;
+    }
+  }
+
+  private static byte[] record(String text) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    new DataOutputStream(bytes).writeUTF(text);
+    return bytes.toByteArray();
+  }
+}